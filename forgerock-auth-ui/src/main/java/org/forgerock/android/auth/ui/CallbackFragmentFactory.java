@@ -32,37 +32,37 @@ public class CallbackFragmentFactory {
     public static final String NODE = "NODE";
     public static final String CALLBACK = "CALLBACK";
     private static final CallbackFragmentFactory INSTANCE = new CallbackFragmentFactory();
-    private final Map<String, Class<? extends Fragment>> fragments = new HashMap<>();
+    private final Map<String, Creator> fragments = new HashMap<>();
 
 
     private CallbackFragmentFactory() {
         //Page Callback
-        register("UsernamePassword", UsernamePasswordPageFragment.class);
-        register("SecondFactorChoice", SecondFactorChoicePageFragment.class);
-        register("OneTimePassword", OneTimePasswordPageFragment.class);
+        register("UsernamePassword", UsernamePasswordPageFragment::new);
+        register("SecondFactorChoice", SecondFactorChoicePageFragment::new);
+        register("OneTimePassword", OneTimePasswordPageFragment::new);
 
         //Callback
-        register(ChoiceCallback.class, ChoiceCallbackFragment.class);
-        register(PasswordCallback.class, PasswordCallbackFragment.class);
-        register(NameCallback.class, NameCallbackFragment.class);
-        register(ValidatedUsernameCallback.class, ValidatedUsernameCallbackFragment.class);
-        register(ValidatedPasswordCallback.class, ValidatedPasswordCallbackFragment.class);
-        register(StringAttributeInputCallback.class, StringAttributeInputCallbackFragment.class);
-        register(BooleanAttributeInputCallback.class, BooleanAttributeInputCallbackFragment.class);
-        register(NumberAttributeInputCallback.class, NumberAttributeInputCallbackFragment.class);
-        register(KbaCreateCallback.class, KbaCreateCallbackFragment.class);
-        register(TermsAndConditionsCallback.class, TermsAndConditionsCallbackFragment.class);
-        register(PollingWaitCallback.class, PollingWaitCallbackFragment.class);
-        register(ConfirmationCallback.class, ConfirmationCallbackFragment.class);
-        register(TextOutputCallback.class, TextOutputCallbackFragment.class);
-        register(SuspendedTextOutputCallback.class, SuspendedTextOutputCallbackFragment.class);
-        register(ReCaptchaCallback.class, ReCaptchaCallbackFragment.class);
-        register(ConsentMappingCallback.class, ConsentMappingCallbackFragment.class);
-        register(DeviceProfileCallback.class, DeviceProfileCallbackFragment.class);
-        register(WebAuthnRegistrationCallback.class, WebAuthnRegistrationCallbackFragment.class);
-        register(WebAuthnAuthenticationCallback.class, WebAuthnAuthenticationCallbackFragment.class);
-        register(SelectIdPCallback.class, SelectIdPCallbackFragment.class);
-        register(IdPCallback.class, IdPCallbackFragment.class);
+        register("ChoiceCallback", ChoiceCallbackFragment::new);
+        register("PasswordCallback", PasswordCallbackFragment::new);
+        register("NameCallback", NameCallbackFragment::new);
+        register("ValidatedCreateUsernameCallback", ValidatedUsernameCallbackFragment::new);
+        register("ValidatedCreatePasswordCallback", ValidatedPasswordCallbackFragment::new);
+        register("StringAttributeInputCallback", StringAttributeInputCallbackFragment::new);
+        register("BooleanAttributeInputCallback", BooleanAttributeInputCallbackFragment::new);
+        register("NumberAttributeInputCallback", NumberAttributeInputCallbackFragment::new);
+        register("KbaCreateCallback", KbaCreateCallbackFragment::new);
+        register("TermsAndConditionsCallback", TermsAndConditionsCallbackFragment::new);
+        register("PollingWaitCallback", PollingWaitCallbackFragment::new);
+        register("ConfirmationCallback", ConfirmationCallbackFragment::new);
+        register("TextOutputCallback", TextOutputCallbackFragment::new);
+        register("SuspendedTextOutputCallback", SuspendedTextOutputCallbackFragment::new);
+        register("ReCaptchaCallback", ReCaptchaCallbackFragment::new);
+        register("ConsentMappingCallback", ConsentMappingCallbackFragment::new);
+        register("DeviceProfileCallback", DeviceProfileCallbackFragment::new);
+        register("WebAuthnRegistrationCallback", WebAuthnRegistrationCallbackFragment::new);
+        register("WebAuthnAuthenticationCallback", WebAuthnAuthenticationCallbackFragment::new);
+        register("SelectIdPCallback", SelectIdPCallbackFragment::new);
+        register("IdPCallback", IdPCallbackFragment::new);
     }
 
     public static CallbackFragmentFactory getInstance() {
@@ -79,9 +79,9 @@ public class CallbackFragmentFactory {
 
         String stage = node.getStage();
         if (stage != null) {
-            Class<? extends Fragment> clazz = fragments.get(stage);
-            if (clazz != null) {
-                Fragment fragment = newInstance(clazz);
+            Creator creator = fragments.get(stage);
+            if (creator != null) {
+                Fragment fragment = creator.create();
                 Bundle args = new Bundle();
                 args.putSerializable(NODE, node);
                 fragment.setArguments(args);
@@ -103,9 +103,9 @@ public class CallbackFragmentFactory {
      */
     public Fragment getFragment(Callback callback) {
 
-        Class<? extends Fragment> clazz = fragments.get(callback.getType());
-        if (clazz != null) {
-            Fragment fragment = newInstance(clazz);
+        Creator creator = fragments.get(callback.getType());
+        if (creator != null) {
+            Fragment fragment = creator.create();
             Bundle args = new Bundle();
             args.putSerializable(CALLBACK, callback);
             fragment.setArguments(args);
@@ -123,9 +123,9 @@ public class CallbackFragmentFactory {
      */
     public Fragment getFragment(Node node, Callback callback) {
 
-        Class<? extends Fragment> clazz = fragments.get(callback.getType());
-        if (clazz != null) {
-            Fragment fragment = newInstance(clazz);
+        Creator creator = fragments.get(callback.getType());
+        if (creator != null) {
+            Fragment fragment = creator.create();
             Bundle args = new Bundle();
             args.putSerializable(NODE, node);
             args.putSerializable(CALLBACK, callback);
@@ -143,12 +143,22 @@ public class CallbackFragmentFactory {
      * @param fragment The Fragment to collect data.
      */
     public void register(String callback, Class<? extends Fragment> fragment) {
+        register(callback, () -> newInstance(fragment));
+    }
+
+    /**
+     * Register Fragment for Callback or Stage for Page Node, the Fragment is created without reflection.
+     *
+     * @param callback Callback Type or Stage from Page Node
+     * @param fragment The {@link Creator} to create the Fragment, e.g. the constructor reference.
+     */
+    public void register(String callback, Creator fragment) {
         fragments.put(callback, fragment);
     }
 
     public void register(Class<? extends Callback> callback, Class<? extends Fragment> fragment) {
         try {
-            fragments.put(CallbackFactory.getInstance().getType(callback), fragment);
+            register(CallbackFactory.getInstance().getType(callback), fragment);
         } catch (Exception e) {
             Logger.error(TAG, e, e.getMessage());
         }
@@ -163,5 +173,17 @@ public class CallbackFragmentFactory {
         }
     }
 
+    /**
+     * Create the {@link Fragment}
+     */
+    public interface Creator {
+
+        /**
+         * Create the {@link Fragment}
+         *
+         * @return The Fragment
+         */
+        Fragment create();
+    }
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -17,10 +17,24 @@ class AccessTokenStoreInterceptor implements Interceptor<AccessToken> {
 
     private final TokenManager tokenManager;
 
+    /**
+     * The {@link TokenKey} of the down-scoped {@link AccessToken}, null for the {@link AccessToken}
+     * with the configured scope.
+     */
+    private final TokenKey key;
+
+    AccessTokenStoreInterceptor(TokenManager tokenManager) {
+        this(tokenManager, null);
+    }
+
     @Override
     public void intercept(final Chain chain, AccessToken token) {
         if (!token.isPersisted()) {
-            tokenManager.persist(token);
+            if (key == null) {
+                tokenManager.persist(token);
+            } else {
+                tokenManager.persist(key, token);
+            }
         }
         chain.proceed(token);
     }
@@ -8,6 +8,7 @@
 package org.forgerock.android.auth;
 
 import static org.forgerock.android.auth.Encryptor.getEncryptor;
+import static org.forgerock.android.auth.Encryptor.getEnvelopeEncryptor;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
@@ -20,7 +21,8 @@ import androidx.annotation.NonNull;
 import lombok.Builder;
 
 /**
- * A Repository that store data in {@link AccountManager}
+ * A Repository that store data in {@link AccountManager}, the decrypted data is cached in memory with
+ * {@link AccountUserData}.
  */
 @TargetApi(23)
 class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedListener {
@@ -28,6 +30,7 @@ class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedL
     private final Encryptor encryptor;
     private final AccountManager accountManager;
     private final Account account;
+    private final AccountUserData userData;
 
     /**
      * Create an AccountDataRepository
@@ -38,8 +41,24 @@ class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedL
      * @param defaultKeyAlias The key alias to store the key for data encryption.
      * @throws Exception Failed to create an AccountDataRepository.
      */
-    @Builder
     public AccountDataRepository(@NonNull Context context, @NonNull String accountName, Encryptor encryptor, String defaultKeyAlias) throws Exception {
+        this(context, accountName, encryptor, defaultKeyAlias, null, null);
+    }
+
+    /**
+     * Create an AccountDataRepository
+     *
+     * @param context         The Application Context.
+     * @param accountName     The Account Name to store the data.
+     * @param encryptor       The Encryptor to encrypt the data.
+     * @param defaultKeyAlias The key alias to store the key for data encryption.
+     * @param cacheIntervalMillis The duration in milliseconds to cache the data in memory.
+     * @param writeBehind     True to store the data in the background.
+     * @throws Exception Failed to create an AccountDataRepository.
+     */
+    @Builder
+    public AccountDataRepository(@NonNull Context context, @NonNull String accountName, Encryptor encryptor, String defaultKeyAlias,
+                                 Long cacheIntervalMillis, Boolean writeBehind) throws Exception {
         String accountType;
         try {
             accountType = getAccountType(context);
@@ -49,9 +68,22 @@ class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedL
         }
         this.accountManager = AccountManager.get(context);
         this.account = new Account(accountName, accountType);
-        this.encryptor = encryptor == null ?
-                getEncryptor(context, defaultKeyAlias, this) :
-                encryptor;
+        this.userData = new AccountUserData(accountManager, account,
+                cacheIntervalMillis == null ?
+                        context.getResources().getInteger(R.integer.forgerock_account_cache) * 1000L : cacheIntervalMillis,
+                writeBehind == null ?
+                        context.getResources().getBoolean(R.bool.forgerock_write_behind) : writeBehind);
+        if (encryptor == null) {
+            if (context.getResources().getBoolean(R.bool.forgerock_envelope_encryption)) {
+                //Android M+, the SecretKey of the key encryption key is stored in the KeyStore
+                this.encryptor = getEnvelopeEncryptor(context, defaultKeyAlias, null,
+                        new AccountSecretKeyStore(accountManager, account, AccountSecretKeyStore.DATA_KEY), this);
+            } else {
+                this.encryptor = getEncryptor(context, defaultKeyAlias, this);
+            }
+        } else {
+            this.encryptor = encryptor;
+        }
         Logger.debug(TAG, "Using Encryptor %s", this.encryptor.getClass().getSimpleName());
 
         verifyAccount(accountManager, accountType, account);
@@ -65,11 +97,9 @@ class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedL
     @Override
     public String getString(String key) {
         try {
-            String encryptedData = accountManager.getUserData(account, key);
-            if (encryptedData != null) {
-                return new String(encryptor.decrypt(Base64.decode(encryptedData, Base64.DEFAULT)));
-            }
-        } catch (EncryptionException e) {
+            return userData.get(key, encryptedData ->
+                    new String(encryptor.decrypt(Base64.decode(encryptedData, Base64.DEFAULT))));
+        } catch (Exception e) {
             Logger.warn(TAG, e, "Failed to decrypt data");
             //The data are not valid.
             deleteAll();
@@ -79,22 +109,20 @@ class AccountDataRepository implements DataRepository, AccountAware, KeyUpdatedL
 
     @Override
     public void delete(String key) {
-        accountManager.setUserData(account, key, null);
+        userData.set(key, null, null);
     }
 
     @Override
     public void deleteAll() {
-        removeAccount(accountManager, account);
+        userData.removeAccount(() -> removeAccount(accountManager, account));
     }
 
     private void persist(String alias, String data, boolean retry) {
-        accountManager.addAccountExplicitly(account, null, null);
         try {
             if (data == null) {
-                accountManager.setUserData(account, alias, null);
+                userData.set(alias, null, null);
             } else {
-                accountManager.setUserData(account, alias,
-                        Base64.encodeToString(encryptor.encrypt(data.getBytes()), Base64.DEFAULT));
+                userData.set(alias, Base64.encodeToString(encryptor.encrypt(data.getBytes()), Base64.DEFAULT), data);
             }
         } catch (Exception e) {
             try {
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.accounts.Account;
+import android.accounts.AccountManager;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Store the encrypted SecretKey as user data of the {@link Account}
+ */
+@RequiredArgsConstructor
+class AccountSecretKeyStore implements SecretKeyStore {
+
+    /**
+     * The user data key to store the wrapped data encryption key.
+     */
+    static final String DATA_KEY = "org.forgerock.v1.DEK";
+
+    private final AccountManager accountManager;
+    private final Account account;
+    private final String key;
+
+    @Override
+    public void persist(String encryptedSecretKey) {
+        //The account may have been removed with the data
+        accountManager.addAccountExplicitly(account, null, null);
+        accountManager.setUserData(account, key, encryptedSecretKey);
+    }
+
+    @Override
+    public String getEncryptedSecretKey() {
+        return accountManager.getUserData(account, key);
+    }
+
+    @Override
+    public void remove() {
+        accountManager.setUserData(account, key, null);
+    }
+}
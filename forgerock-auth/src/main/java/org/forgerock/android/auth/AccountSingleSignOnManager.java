@@ -8,6 +8,7 @@
 package org.forgerock.android.auth;
 
 import static org.forgerock.android.auth.Encryptor.getEncryptor;
+import static org.forgerock.android.auth.Encryptor.getEnvelopeEncryptor;
 import static java.util.Collections.emptySet;
 
 import android.accounts.Account;
@@ -20,6 +21,7 @@ import android.util.Base64;
 import org.json.JSONArray;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -32,6 +34,7 @@ import lombok.NonNull;
  * For Android L, the encrypted {@link javax.crypto.SecretKey} will
  * be stored as user's password using {@link AccountManager#setPassword(Account, String)},
  * for Android M+ the SecretKey will be store in the KeyChain.
+ * The decrypted data is cached in memory with {@link AccountUserData}.
  */
 class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListener, SecretKeyStore, AccountAware {
 
@@ -44,9 +47,11 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
     private Encryptor encryptor;
     private AccountManager accountManager;
     private Account account;
+    private AccountUserData userData;
 
     @Builder
-    AccountSingleSignOnManager(@NonNull Context context, @NonNull String accountName, Encryptor encryptor) throws Exception {
+    AccountSingleSignOnManager(@NonNull Context context, @NonNull String accountName, Encryptor encryptor,
+                               Long cacheIntervalMillis, Boolean writeBehind) throws Exception {
         try {
             this.accountType = getAccountType(context);
         } catch (Exception e) {
@@ -56,9 +61,21 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
         }
         this.accountManager = AccountManager.get(context);
         this.account = new Account(accountName, accountType);
-        this.encryptor = encryptor == null ?
-                getEncryptor(context, ORG_FORGEROCK_V_1_SSO_KEYS, this, this) :
-                encryptor;
+        this.userData = new AccountUserData(accountManager, account,
+                cacheIntervalMillis == null ?
+                        context.getResources().getInteger(R.integer.forgerock_account_cache) * 1000L : cacheIntervalMillis,
+                writeBehind == null ?
+                        context.getResources().getBoolean(R.bool.forgerock_write_behind) : writeBehind);
+        if (encryptor == null) {
+            if (context.getResources().getBoolean(R.bool.forgerock_envelope_encryption)) {
+                this.encryptor = getEnvelopeEncryptor(context, ORG_FORGEROCK_V_1_SSO_KEYS, this,
+                        new AccountSecretKeyStore(accountManager, account, AccountSecretKeyStore.DATA_KEY), this);
+            } else {
+                this.encryptor = getEncryptor(context, ORG_FORGEROCK_V_1_SSO_KEYS, this, this);
+            }
+        } else {
+            this.encryptor = encryptor;
+        }
         Logger.debug(TAG, "Using Encryptor %s", this.encryptor.getClass().getSimpleName());
 
         verifyAccount(accountManager, accountType, account);
@@ -67,42 +84,41 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
 
     @Override
     public void persist(SSOToken token) {
-        persist(SSO_TOKEN, token.getValue().getBytes(), true);
+        persist(SSO_TOKEN, token.getValue().getBytes(), token, true);
     }
 
     @Override
     public void persist(Collection<String> cookies) {
         if (cookies.isEmpty()) {
-            persist(COOKIES, null, true);
+            persist(COOKIES, null, null, true);
             return;
         }
         JSONArray array = new JSONArray();
         for (String s : cookies) {
             array.put(s);
         }
-        persist(COOKIES, array.toString().getBytes(), true);
+        persist(COOKIES, array.toString().getBytes(),
+                Collections.unmodifiableSet(new HashSet<>(cookies)), true);
 
     }
 
-    private void persist(String alias, byte[] data, boolean retry) {
+    private void persist(String alias, byte[] data, Object decoded, boolean retry) {
         if ((data == null || data.length == 0) &&
                 !isAccountExists(accountManager, accountType, account)) {
             //Account does not exist and nothing to persist
             return;
         }
-        accountManager.addAccountExplicitly(account, null, null);
         try {
             if (data == null) {
-                accountManager.setUserData(account, alias, null);
+                userData.set(alias, null, null);
             } else {
-                accountManager.setUserData(account, alias,
-                        Base64.encodeToString(encryptor.encrypt(data), Base64.DEFAULT));
+                userData.set(alias, Base64.encodeToString(encryptor.encrypt(data), Base64.DEFAULT), decoded);
             }
         } catch (Exception e) {
             try {
                 encryptor.reset();
                 if (retry) {
-                    persist(alias, data, false);
+                    persist(alias, data, decoded, false);
                 } else {
                     throw new RuntimeException(e);
                 }
@@ -114,32 +130,32 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
 
     @Override
     public void clear() {
-        Account[] accounts = accountManager.getAccountsByType(accountType);
-        for (Account acc : accounts) {
-            if (acc.name.equals(account.name)) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1) {
-                    accountManager.removeAccountExplicitly(acc);
-                } else {
-                    AccountManagerFuture<Boolean> future = accountManager.removeAccount(acc, null, null);
-                    try {
-                        future.getResult();
-                    } catch (Exception e) {
-                        Logger.warn(TAG, e, "Failed to remove Account %s.", acc.name);
+        userData.removeAccount(() -> {
+            Account[] accounts = accountManager.getAccountsByType(accountType);
+            for (Account acc : accounts) {
+                if (acc.name.equals(account.name)) {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1) {
+                        accountManager.removeAccountExplicitly(acc);
+                    } else {
+                        AccountManagerFuture<Boolean> future = accountManager.removeAccount(acc, null, null);
+                        try {
+                            future.getResult();
+                        } catch (Exception e) {
+                            Logger.warn(TAG, e, "Failed to remove Account %s.", acc.name);
+                        }
                     }
+                    return;
                 }
-                return;
             }
-        }
+        });
     }
 
     @Override
     public SSOToken getToken() {
         try {
-            String encryptedToken = accountManager.getUserData(account, SSO_TOKEN);
-            if (encryptedToken != null) {
-                return new SSOToken(new String(encryptor.decrypt(Base64.decode(encryptedToken, Base64.DEFAULT))));
-            }
-        } catch (EncryptionException e) {
+            return userData.get(SSO_TOKEN, encryptedToken ->
+                    new SSOToken(new String(encryptor.decrypt(Base64.decode(encryptedToken, Base64.DEFAULT)))));
+        } catch (Exception e) {
             Logger.warn(TAG, e, "Failed to decrypt data");
             //Data not valid anymore.
             clear();
@@ -150,14 +166,16 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
     @Override
     public Collection<String> getCookies() {
         try {
-            String encryptedCookies = accountManager.getUserData(account, COOKIES);
-            if (encryptedCookies != null) {
+            Collection<String> cookies = userData.get(COOKIES, encryptedCookies -> {
                 JSONArray array = new JSONArray(new String(encryptor.decrypt(Base64.decode(encryptedCookies, Base64.DEFAULT))));
                 Set<String> set = new HashSet<>();
                 for (int i = 0; i < array.length(); i++) {
                     set.add(array.getString(i));
                 }
-                return set;
+                return Collections.unmodifiableSet(set);
+            });
+            if (cookies != null) {
+                return cookies;
             }
         } catch (Exception e) {
             Logger.warn(TAG, e, "Failed to decrypt data");
@@ -169,7 +187,12 @@ class AccountSingleSignOnManager implements SingleSignOnManager, KeyUpdatedListe
 
     @Override
     public boolean hasToken() {
-        return accountManager.getUserData(account, SSO_TOKEN) != null;
+        return userData.getString(SSO_TOKEN) != null;
+    }
+
+    @Override
+    public void flush() {
+        userData.flush();
     }
 
     @Override
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.accounts.Account;
+import android.accounts.AccountManager;
+import android.accounts.OnAccountsUpdateListener;
+import android.os.Build;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.NonNull;
+
+/**
+ * Process-local cache of the user data of an {@link Account}.
+ *
+ * <p>
+ * {@link AccountManager#getUserData(Account, String)} is an IPC to the system server. The stored value and its
+ * decoded (decrypted) form are kept in memory, reading the same key again is a memory read. The cache is discarded
+ * when the accounts are updated, e.g. an App of the SSO group signs in or out, and the cached values expire after
+ * the cache interval, so the user data updated by other Apps of the SSO group is eventually visible.
+ *
+ * <p>
+ * With write behind, the writes are applied in the background. Writes made before the background task runs are
+ * batched, only the latest value of each key is written.
+ */
+class AccountUserData {
+
+    private static final String TAG = AccountUserData.class.getSimpleName();
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, AccountUserData.class.getSimpleName());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AccountManager accountManager;
+    private final Account account;
+    private final boolean writeBehind;
+    private final ExpiringReference<Map<String, Value>> cacheRef;
+    //Writes which are not applied yet, a null value removes the key
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    //Serialize the writes with the account removal
+    private final Object writeLock = new Object();
+    //Incremented when the cache is discarded, to not cache the values read before
+    private long generation;
+    private boolean scheduled;
+
+    /**
+     * @param accountManager      The AccountManager
+     * @param account             The Account which stores the user data
+     * @param cacheIntervalMillis The duration in milliseconds to cache the user data, the user data is not cached
+     *                            when it is not positive.
+     * @param writeBehind         True to apply the writes in the background
+     */
+    AccountUserData(@NonNull AccountManager accountManager, @NonNull Account account,
+                    long cacheIntervalMillis, boolean writeBehind) {
+        this.accountManager = accountManager;
+        this.account = account;
+        this.writeBehind = writeBehind;
+        this.cacheRef = new ExpiringReference<>(cacheIntervalMillis, true);
+        if (cacheIntervalMillis > 0) {
+            AccountsListener.register(this);
+        }
+    }
+
+    /**
+     * Retrieve the stored value of the key.
+     *
+     * @param key The key of the user data
+     * @return The stored value, null if the key does not exist.
+     */
+    String getString(@NonNull String key) {
+        return load(key).raw;
+    }
+
+    /**
+     * Retrieve the decoded value of the key, the stored value is decoded once until it is changed.
+     *
+     * @param key     The key of the user data
+     * @param decoder The decoder to decode the stored value
+     * @param <T>     The type of the decoded value
+     * @return The decoded value, null if the key does not exist.
+     * @throws Exception Failed to decode the stored value
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(@NonNull String key, @NonNull Decoder<T> decoder) throws Exception {
+        Value value = load(key);
+        if (value.raw == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (value.decoded != null) {
+                return (T) value.decoded;
+            }
+        }
+        T decoded = decoder.decode(value.raw);
+        synchronized (this) {
+            value.decoded = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * Set the value of the key.
+     *
+     * @param key     The key of the user data
+     * @param raw     The value to store, null to remove the key
+     * @param decoded The decoded form of the value, null to decode it on next read
+     */
+    void set(@NonNull String key, String raw, Object decoded) {
+        synchronized (this) {
+            getCache().put(key, new Value(raw, decoded));
+            if (writeBehind) {
+                pending.put(key, raw);
+                if (!scheduled) {
+                    scheduled = true;
+                    writer.execute(this::write);
+                }
+                return;
+            }
+        }
+        synchronized (writeLock) {
+            addAccount();
+            accountManager.setUserData(account, key, raw);
+        }
+    }
+
+    /**
+     * Remove the account with the pending writes.
+     *
+     * @param remover Remove the account from the {@link AccountManager}
+     */
+    void removeAccount(@NonNull Runnable remover) {
+        synchronized (writeLock) {
+            synchronized (this) {
+                pending.clear();
+                invalidate();
+            }
+            remover.run();
+        }
+    }
+
+    /**
+     * Block until all pending writes are applied.
+     */
+    void flush() {
+        try {
+            writer.submit(this::write).get();
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Failed to write the account user data.");
+        }
+    }
+
+    /**
+     * Discard the cached user data.
+     */
+    synchronized void invalidate() {
+        cacheRef.clear();
+        generation++;
+    }
+
+    private Value load(String key) {
+        long current;
+        synchronized (this) {
+            Map<String, Value> cache = getCache();
+            Value value = cache.get(key);
+            if (value != null) {
+                return value;
+            }
+            if (pending.containsKey(key)) {
+                value = new Value(pending.get(key), null);
+                cache.put(key, value);
+                return value;
+            }
+            current = generation;
+        }
+
+        Value value = new Value(accountManager.getUserData(account, key), null);
+
+        synchronized (this) {
+            Map<String, Value> cache = getCache();
+            Value existing = cache.get(key);
+            if (existing != null) {
+                //Updated while reading from the AccountManager
+                return existing;
+            }
+            if (current == generation) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private Map<String, Value> getCache() {
+        Map<String, Value> cache = cacheRef.get();
+        if (cache == null) {
+            cache = new HashMap<>();
+            cacheRef.set(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Add the account before writing, the shared account may have been removed by another application.
+     */
+    private void addAccount() {
+        accountManager.addAccountExplicitly(account, null, null);
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            Map<String, String> batch;
+            synchronized (this) {
+                scheduled = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+            }
+            try {
+                addAccount();
+                for (Map.Entry<String, String> entry : batch.entrySet()) {
+                    accountManager.setUserData(account, entry.getKey(), entry.getValue());
+                }
+                Logger.debug(TAG, "%d account user data written.", batch.size());
+            } catch (Exception e) {
+                Logger.warn(TAG, e, "Failed to write the account user data.");
+            } finally {
+                synchronized (this) {
+                    for (Map.Entry<String, String> entry : batch.entrySet()) {
+                        //Keep the value which is set after the batch is taken
+                        if (pending.containsKey(entry.getKey()) && pending.get(entry.getKey()) == entry.getValue()) {
+                            pending.remove(entry.getKey());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the stored value.
+     *
+     * @param <T> The type of the decoded value
+     */
+    interface Decoder<T> {
+
+        /**
+         * Decode the stored value.
+         *
+         * @param raw The stored value
+         * @return The decoded value
+         * @throws Exception Failed to decode the value
+         */
+        T decode(String raw) throws Exception;
+    }
+
+    private static class Value {
+
+        private final String raw;
+        private Object decoded;
+
+        private Value(String raw, Object decoded) {
+            this.raw = raw;
+            this.decoded = decoded;
+        }
+    }
+
+    /**
+     * Discard the cached user data when the accounts are updated. It does not keep the {@link AccountUserData}
+     * from being garbage collected and unregisters itself after it is collected.
+     */
+    private static class AccountsListener implements OnAccountsUpdateListener {
+
+        private final WeakReference<AccountUserData> reference;
+        private final AccountManager accountManager;
+
+        private AccountsListener(AccountUserData userData) {
+            this.reference = new WeakReference<>(userData);
+            this.accountManager = userData.accountManager;
+        }
+
+        static void register(AccountUserData userData) {
+            AccountsListener listener = new AccountsListener(userData);
+            try {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    userData.accountManager.addOnAccountsUpdatedListener(listener, null, false,
+                            new String[]{userData.account.type});
+                } else {
+                    userData.accountManager.addOnAccountsUpdatedListener(listener, null, false);
+                }
+            } catch (Exception e) {
+                Logger.warn(TAG, e, "Failed to listen for the accounts update.");
+            }
+        }
+
+        @Override
+        public void onAccountsUpdated(Account[] accounts) {
+            AccountUserData userData = reference.get();
+            if (userData == null) {
+                accountManager.removeOnAccountsUpdatedListener(this);
+            } else {
+                Logger.debug(TAG, "Accounts updated, discard the cached user data.");
+                userData.invalidate();
+            }
+        }
+    }
+}
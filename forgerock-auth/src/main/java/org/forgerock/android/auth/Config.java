@@ -12,6 +12,8 @@ import android.content.SharedPreferences;
 
 import androidx.annotation.VisibleForTesting;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -19,6 +21,8 @@ import java.util.UUID;
 import lombok.Getter;
 import okhttp3.CookieJar;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 /**
  * Provide SDK Configuration, most components in the SDK has its default setting, this class allow developer to
  * override the default configuration.
@@ -49,9 +53,13 @@ public class Config {
     private String tokenEndpoint;
     private String revokeEndpoint;
     private String userinfoEndpoint;
+    private int userinfoCache;
     private String logoutEndpoint;
     private String endSessionEndpoint;
 
+    //Parse the server response from the stream
+    private boolean streamingJson;
+
     //SSO Token Manager
     private Encryptor encryptor;
 
@@ -66,29 +74,50 @@ public class Config {
     //KeyStoreManager
     private KeyStoreManager keyStoreManager;
 
+    //Shared instances, rebuilt when the configuration changed
+    private TokenManager tokenManager;
+    private SingleSignOnManager singleSignOnManager;
+    private SessionManager sessionManager;
+    private IdTokenValidator idTokenValidator;
+    private Outbox outbox;
+    private UserService userService;
+
+    static {
+        EventDispatcher.TOKEN_REMOVED.addObserver((o, arg) -> getInstance().clearUserInfo());
+    }
+
     @VisibleForTesting
     public void setUrl(String url) {
         this.url = url;
+        invalidate();
     }
 
     private Config() {
     }
 
+    @VisibleForTesting
+    void setStreamingJson(boolean streamingJson) {
+        this.streamingJson = streamingJson;
+    }
+
     @VisibleForTesting
     public void setEncryptor(Encryptor encryptor) {
         this.encryptor = encryptor;
+        invalidate();
     }
 
     //For testing to avoid using Android KeyStore Encryption
     @VisibleForTesting
     public void setSsoSharedPreferences(SharedPreferences ssoSharedPreferences) {
         this.ssoSharedPreferences = ssoSharedPreferences;
+        invalidate();
     }
 
     //For testing to avoid using Android KeyStore Encryption
     @VisibleForTesting
     public void setSharedPreferences(SharedPreferences sharedPreferences) {
         this.sharedPreferences = sharedPreferences;
+        invalidate();
     }
 
     public synchronized void init(Context context) {
@@ -109,9 +138,17 @@ public class Config {
             tokenEndpoint = context.getString(R.string.forgerock_token_endpoint);
             revokeEndpoint = context.getString(R.string.forgerock_revoke_endpoint);
             userinfoEndpoint = context.getString(R.string.forgerock_userinfo_endpoint);
+            userinfoCache = context.getResources().getInteger(R.integer.forgerock_userinfo_cache);
             logoutEndpoint = context.getString(R.string.forgerock_logout_endpoint);
             endSessionEndpoint = context.getString(R.string.forgerock_endsession_endpoint);
+            streamingJson = context.getResources().getBoolean(R.bool.forgerock_streaming_json);
             identifier = UUID.randomUUID().toString();
+            OkHttpClientProvider.getInstance().setConnectionPool(
+                    context.getResources().getInteger(R.integer.forgerock_max_idle_connections),
+                    context.getResources().getInteger(R.integer.forgerock_keep_alive_duration), SECONDS);
+            OkHttpClientProvider.getInstance().setDispatcherLimits(
+                    context.getResources().getInteger(R.integer.forgerock_max_requests),
+                    context.getResources().getInteger(R.integer.forgerock_max_requests_per_host));
         }
         initialized = true;
     }
@@ -139,6 +176,26 @@ public class Config {
                 .build();
     }
 
+    ConnectionWarmer getConnectionWarmer() {
+        ServerConfig serverConfig = getServerConfig();
+        ConnectionWarmer.ConnectionWarmerBuilder builder = ConnectionWarmer.builder()
+                .serverConfig(serverConfig);
+        try {
+            //Also pre-warm the OAuth host when it is not the same as the AM host
+            if (!serverConfig.getHost().equals(new URL(oAuthUrl).getHost())) {
+                builder.serverConfig(ServerConfig.builder()
+                        .context(context)
+                        .url(oAuthUrl)
+                        .timeout(timeout)
+                        .pins(pins)
+                        .build());
+            }
+        } catch (MalformedURLException e) {
+            //OAuth url is not configured
+        }
+        return builder.build();
+    }
+
     OAuth2Client getOAuth2Client() {
         return OAuth2Client.builder()
                 .clientId(clientId)
@@ -149,34 +206,121 @@ public class Config {
     }
 
     @VisibleForTesting
-    TokenManager getTokenManager() {
-        return DefaultTokenManager.builder()
-                .context(context)
-                .sharedPreferences(sharedPreferences)
-                .oAuth2Client(getOAuth2Client())
-                .build();
+    synchronized TokenManager getTokenManager() {
+        if (tokenManager == null) {
+            tokenManager = DefaultTokenManager.builder()
+                    .context(context)
+                    .sharedPreferences(sharedPreferences)
+                    .oAuth2Client(getOAuth2Client())
+                    .build();
+        }
+        return tokenManager;
     }
 
-    SingleSignOnManager getSingleSignOnManager() {
-        return DefaultSingleSignOnManager.builder()
-                .sharedPreferences(ssoSharedPreferences)
-                .serverConfig(getServerConfig())
-                .context(context)
-                .encryptor(encryptor)
-                .build();
+    synchronized SingleSignOnManager getSingleSignOnManager() {
+        if (singleSignOnManager == null) {
+            singleSignOnManager = DefaultSingleSignOnManager.builder()
+                    .sharedPreferences(ssoSharedPreferences)
+                    .serverConfig(getServerConfig())
+                    .context(context)
+                    .encryptor(encryptor)
+                    .build();
+        }
+        return singleSignOnManager;
     }
 
     /**
-     * Retrieve the Session Manager that manage the user session.
+     * Retrieve the Session Manager that manage the user session. The same instance is shared
+     * until the configuration changed.
      *
      * @return The SessionManager
      */
-    public SessionManager getSessionManager() {
-        return SessionManager.builder()
-                .tokenManager(getTokenManager())
-                .singleSignOnManager(getSingleSignOnManager())
-                .build();
+    public synchronized SessionManager getSessionManager() {
+        if (sessionManager == null) {
+            sessionManager = SessionManager.builder()
+                    .tokenManager(getTokenManager())
+                    .singleSignOnManager(getSingleSignOnManager())
+                    .oAuth2Client(getOAuth2Client())
+                    .serverConfig(getServerConfig())
+                    .build();
+        }
+        return sessionManager;
+
+    }
+
+    /**
+     * Retrieve the {@link IdTokenValidator} to validate the ID Token on the device. The same instance, with the cached
+     * discovery document and JSON Web Key Set, is shared until the configuration changed.
+     *
+     * @return The IdTokenValidator
+     */
+    public synchronized IdTokenValidator getIdTokenValidator() {
+        if (idTokenValidator == null) {
+            idTokenValidator = IdTokenValidator.builder()
+                    .clientId(clientId)
+                    .serverConfig(getServerConfig())
+                    .build();
+        }
+        return idTokenValidator;
+    }
+
+    /**
+     * Retrieve the {@link Outbox} to send the deferred server calls in the background. The same instance is
+     * shared until the configuration changed.
+     *
+     * @return The Outbox, null if the SDK is not initialized.
+     */
+    synchronized Outbox getOutbox() {
+        if (outbox == null && context != null) {
+            outbox = Outbox.builder()
+                    .context(context)
+                    .serverConfig(getServerConfig())
+                    .encryptor(encryptor)
+                    .build();
+        }
+        return outbox;
+    }
+
+    /**
+     * Retrieve the {@link UserService} to retrieve the {@link UserInfo}. The same instance, with the cached
+     * {@link UserInfo}, is shared until the configuration changed.
+     *
+     * @return The UserService
+     */
+    synchronized UserService getUserService() {
+        if (userService == null) {
+            userService = UserService.builder()
+                    .serverConfig(getServerConfig())
+                    .tokenManager(getTokenManager())
+                    .cacheTtl(SECONDS.toMillis(userinfoCache))
+                    .build();
+        }
+        return userService;
+    }
+
+    /**
+     * Discard the cached {@link UserInfo} when the token is removed.
+     */
+    private void clearUserInfo() {
+        UserService service;
+        synchronized (this) {
+            service = userService;
+        }
+        if (service != null) {
+            service.clear();
+        }
+    }
 
+    /**
+     * Discard the shared instances, they are rebuilt with the updated configuration on next access.
+     */
+    private synchronized void invalidate() {
+        tokenManager = null;
+        singleSignOnManager = null;
+        sessionManager = null;
+        idTokenValidator = null;
+        outbox = null;
+        userService = null;
     }
 
     private CookieJar getCookieJar() {
@@ -204,6 +348,7 @@ public class Config {
     @VisibleForTesting
     void setCookieJar(CookieJar cookieJar) {
         this.cookieJar = cookieJar;
+        invalidate();
     }
 
     @VisibleForTesting
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Timings of a connection established in advance with {@link FRAuth#prewarm(android.content.Context, FRListener)},
+ * all durations are in milliseconds.
+ */
+@Builder
+@Getter
+@ToString
+public class ConnectionTiming {
+
+    private String host;
+    //DNS lookup
+    private long dnsMillis;
+    //TCP connect, including the TLS handshake
+    private long connectMillis;
+    //TLS handshake, including the certificate pinning
+    private long secureConnectMillis;
+    //From the start of the request to the response
+    private long totalMillis;
+    //True when a pooled connection has been reused, no connection has been established
+    private boolean reused;
+
+}
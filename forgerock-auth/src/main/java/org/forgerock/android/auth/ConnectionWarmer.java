@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Builder;
+import lombok.Singular;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Establish the connections to the servers in advance, the connections are kept in the connection pool shared
+ * by the {@link OkHttpClient} provided by {@link OkHttpClientProvider}, so the first request to the server
+ * does not pay for the DNS lookup, TCP connect and TLS handshake.
+ */
+class ConnectionWarmer {
+
+    private static final String TAG = ConnectionWarmer.class.getSimpleName();
+    private static final Action PREWARM = new Action(Action.PREWARM);
+
+    private final List<ServerConfig> serverConfigs;
+
+    @Builder
+    private ConnectionWarmer(@Singular List<ServerConfig> serverConfigs) {
+        this.serverConfigs = serverConfigs;
+    }
+
+    /**
+     * Send a HEAD request to each server url in the background.
+     *
+     * @param listener Listener to receive the {@link ConnectionTiming} of each server, or the first failure.
+     */
+    void warmUp(final FRListener<List<ConnectionTiming>> listener) {
+        if (serverConfigs.isEmpty()) {
+            Listener.onSuccess(listener, Collections.<ConnectionTiming>emptyList());
+            return;
+        }
+
+        final List<ConnectionTiming> timings = Collections.synchronizedList(new ArrayList<>());
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger remaining = new AtomicInteger(serverConfigs.size());
+
+        for (ServerConfig serverConfig : serverConfigs) {
+            final String host = serverConfig.getHost();
+            //Capture the metrics of the call, the metrics are still sent to the registered NetworkMetricsSink
+            final AtomicReference<NetworkMetrics> metricsRef = new AtomicReference<>();
+            OkHttpClient client = OkHttpClientProvider.getInstance().lookup(serverConfig).newBuilder()
+                    .eventListenerFactory(NetworkMetricsEventListener.factory(metricsRef::set))
+                    .build();
+            Request request;
+            try {
+                request = new Request.Builder()
+                        .url(serverConfig.getUrl())
+                        .head()
+                        .tag(PREWARM)
+                        .build();
+            } catch (IllegalArgumentException e) {
+                failures.add(e);
+                complete(remaining, timings, failures, listener);
+                continue;
+            }
+
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                    Logger.warn(TAG, e, "Failed to pre-warm connection to %s", host);
+                    failures.add(e);
+                    complete(remaining, timings, failures, listener);
+                }
+
+                @Override
+                public void onResponse(@NotNull Call call, @NotNull Response response) {
+                    //Closing the response ends the call, the metrics are recorded
+                    response.close();
+                    ConnectionTiming timing = toTiming(host, metricsRef.get());
+                    Logger.debug(TAG, "Connection pre-warmed: %s", timing);
+                    timings.add(timing);
+                    complete(remaining, timings, failures, listener);
+                }
+            });
+        }
+    }
+
+    private static ConnectionTiming toTiming(String host, NetworkMetrics metrics) {
+        if (metrics == null) {
+            return ConnectionTiming.builder().host(host).build();
+        }
+        return ConnectionTiming.builder()
+                .host(host)
+                .dnsMillis(metrics.getDnsMillis())
+                .connectMillis(metrics.getConnectMillis())
+                .secureConnectMillis(metrics.getSecureConnectMillis())
+                .totalMillis(metrics.getTotalMillis())
+                .reused(metrics.isConnectionReused())
+                .build();
+    }
+
+    private void complete(AtomicInteger remaining,
+                          List<ConnectionTiming> timings,
+                          List<Exception> failures,
+                          FRListener<List<ConnectionTiming>> listener) {
+        if (remaining.decrementAndGet() > 0) {
+            return;
+        }
+        if (failures.isEmpty()) {
+            Listener.onSuccess(listener, new ArrayList<>(timings));
+        } else {
+            Listener.onException(listener, failures.get(0));
+        }
+    }
+}
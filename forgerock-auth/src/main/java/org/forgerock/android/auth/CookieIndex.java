@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import okhttp3.Cookie;
+import okhttp3.HttpUrl;
+
+/**
+ * In-memory index of the stored {@link Cookie}s, keyed by domain, path and name.
+ *
+ * <p>
+ * Each stored value is parsed once, and the index reports whether the effective set of cookies changed, so the
+ * cookies are only persisted when needed. Cookies are bucketed by domain, looking up the cookies for a request does
+ * not scan the cookies of other domains.
+ */
+class CookieIndex {
+
+    private final CookieMarshaller cookieMarshaller;
+    //Cookies keyed by domain, then by path and name
+    private final Map<String, Map<Key, Entry>> domains = new HashMap<>();
+    //Cookies keyed by the stored value
+    private final Map<String, Entry> values = new HashMap<>();
+
+    CookieIndex(@NonNull CookieMarshaller cookieMarshaller) {
+        this.cookieMarshaller = cookieMarshaller;
+    }
+
+    /**
+     * Synchronize the index with the stored cookies, values which have been loaded before are not parsed again.
+     * Cookies stored with the legacy format are marshalled again with the current format.
+     *
+     * @param stored The stored cookies
+     * @return True if some stored cookies are expired, failed to parse or migrated, the stored cookies should be updated.
+     */
+    boolean load(@NonNull Collection<String> stored) {
+        if (stored.size() == values.size() && values.keySet().containsAll(stored)) {
+            return removeExpired();
+        }
+
+        Map<String, Entry> loaded = new HashMap<>(values);
+        domains.clear();
+        values.clear();
+        boolean modified = false;
+        for (String value : stored) {
+            Entry entry = loaded.get(value);
+            if (entry == null) {
+                Cookie cookie = cookieMarshaller.unmarshal(value);
+                if (cookie == null) {
+                    //Failed to parse it
+                    modified = true;
+                    continue;
+                }
+                if (cookieMarshaller.isLegacy(value)) {
+                    //Migrate to the current format
+                    String migrated = cookieMarshaller.marshal(cookie);
+                    if (migrated != null) {
+                        modified = true;
+                        value = migrated;
+                    }
+                }
+                entry = new Entry(cookie, value);
+            }
+            if (isExpired(entry.cookie)) {
+                modified = true;
+                continue;
+            }
+            modified |= index(entry);
+        }
+        return modified;
+    }
+
+    /**
+     * Add or replace the cookie with the same domain, path and name. An expired cookie removes the existing one.
+     *
+     * @param cookie The cookie received from the server
+     * @return True if the effective set of cookies changed
+     */
+    boolean put(@NonNull Cookie cookie) {
+        Map<Key, Entry> bucket = domains.get(cookie.domain());
+        Key key = new Key(cookie.path(), cookie.name());
+        Entry existing = bucket == null ? null : bucket.get(key);
+
+        if (isExpired(cookie)) {
+            if (existing != null) {
+                remove(bucket, key, existing);
+                return true;
+            }
+            return false;
+        }
+        if (existing != null && existing.cookie.equals(cookie)) {
+            return false;
+        }
+        String value = cookieMarshaller.marshal(cookie);
+        if (value == null) {
+            return false;
+        }
+        index(new Entry(cookie, value));
+        return true;
+    }
+
+    /**
+     * Find the cookies to send with the request, only the buckets of the host and its parent domains are visited.
+     *
+     * @param httpUrl The request url
+     * @return The non-expired cookies which match the request
+     */
+    List<Cookie> match(@NonNull HttpUrl httpUrl) {
+        List<Cookie> result = new ArrayList<>();
+        String domain = httpUrl.host();
+        while (domain != null) {
+            Map<Key, Entry> bucket = domains.get(domain);
+            if (bucket != null) {
+                for (Entry entry : bucket.values()) {
+                    if (!isExpired(entry.cookie) && entry.cookie.matches(httpUrl)) {
+                        result.add(entry.cookie);
+                    }
+                }
+            }
+            int index = domain.indexOf('.');
+            domain = index < 0 ? null : domain.substring(index + 1);
+        }
+        return result;
+    }
+
+    /**
+     * The cookies in the stored form.
+     *
+     * @return The stored value of the cookies
+     */
+    Collection<String> values() {
+        return new HashSet<>(values.keySet());
+    }
+
+    private boolean index(Entry entry) {
+        Map<Key, Entry> bucket = domains.get(entry.cookie.domain());
+        if (bucket == null) {
+            bucket = new HashMap<>();
+            domains.put(entry.cookie.domain(), bucket);
+        }
+        Entry replaced = bucket.put(new Key(entry.cookie.path(), entry.cookie.name()), entry);
+        if (replaced != null) {
+            values.remove(replaced.value);
+        }
+        values.put(entry.value, entry);
+        return replaced != null;
+    }
+
+    private void remove(Map<Key, Entry> bucket, Key key, Entry entry) {
+        bucket.remove(key);
+        if (bucket.isEmpty()) {
+            domains.remove(entry.cookie.domain());
+        }
+        values.remove(entry.value);
+    }
+
+    private boolean removeExpired() {
+        boolean modified = false;
+        Iterator<Map<Key, Entry>> buckets = domains.values().iterator();
+        while (buckets.hasNext()) {
+            Map<Key, Entry> bucket = buckets.next();
+            Iterator<Entry> entries = bucket.values().iterator();
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                if (isExpired(entry.cookie)) {
+                    entries.remove();
+                    values.remove(entry.value);
+                    modified = true;
+                }
+            }
+            if (bucket.isEmpty()) {
+                buckets.remove();
+            }
+        }
+        return modified;
+    }
+
+    private static boolean isExpired(Cookie cookie) {
+        return cookie.expiresAt() < System.currentTimeMillis();
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+
+        private final String path;
+        private final String name;
+
+        private Key(String path, String name) {
+            this.path = path;
+            this.name = name;
+        }
+    }
+
+    private static class Entry {
+
+        private final Cookie cookie;
+        private final String value;
+
+        private Entry(Cookie cookie, String value) {
+            this.cookie = cookie;
+            this.value = value;
+        }
+    }
+}
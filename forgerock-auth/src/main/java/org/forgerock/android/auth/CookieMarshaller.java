@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2020 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -13,17 +13,32 @@ import androidx.annotation.NonNull;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 import okhttp3.Cookie;
 
 /**
  * Class to support marshal and unmarshal of {@link Cookie} Object
+ *
+ * <p>
+ * Cookies are written with a compact versioned binary format, encoded with Base64. Cookies stored with the legacy
+ * format, the Java object serialization of {@link SerializableCookie}, can still be read.
  */
 class CookieMarshaller {
 
-    private static String TAG = CookieMarshaller.class.getSimpleName();
+    private static final String TAG = CookieMarshaller.class.getSimpleName();
+
+    private static final byte VERSION = 1;
+    //Base64 of the Java object serialization stream header (0xACED), used by the legacy format
+    private static final String LEGACY_PREFIX = "rO0";
+
+    private static final int SECURE = 1;
+    private static final int HTTP_ONLY = 1 << 1;
+    private static final int HOST_ONLY = 1 << 2;
+    private static final int PERSISTENT = 1 << 3;
 
     /**
      * Write out the {@link Cookie} Object to String
@@ -32,14 +47,27 @@ class CookieMarshaller {
      * @return The marshalled String
      */
     String marshal(@NonNull Cookie cookie) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ObjectOutputStream outputStream = new ObjectOutputStream(baos)) {
-            outputStream.writeObject(new SerializableCookie(cookie));
-            return Base64.encodeToString(baos.toByteArray(), Base64.DEFAULT);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(32 + cookie.name().length()
+                + cookie.value().length() + cookie.domain().length() + cookie.path().length());
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            int flags = (cookie.secure() ? SECURE : 0)
+                    | (cookie.httpOnly() ? HTTP_ONLY : 0)
+                    | (cookie.hostOnly() ? HOST_ONLY : 0)
+                    | (cookie.persistent() ? PERSISTENT : 0);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeUTF(cookie.name());
+            out.writeUTF(cookie.value());
+            out.writeUTF(cookie.domain());
+            out.writeUTF(cookie.path());
+            if (cookie.persistent()) {
+                out.writeLong(cookie.expiresAt());
+            }
         } catch (Exception e) {
-            Logger.warn(TAG, "Failed to marshal the cookie to String.", e);
+            Logger.warn(TAG, e, "Failed to marshal the cookie to String.");
             return null;
         }
+        return Base64.encodeToString(baos.toByteArray(), Base64.NO_WRAP);
     }
 
     /**
@@ -50,15 +78,43 @@ class CookieMarshaller {
      */
     Cookie unmarshal(@NonNull String cookie) {
         try {
-            Base64.decode(cookie, Base64.DEFAULT);
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(Base64.decode(cookie, Base64.DEFAULT));
-            try (ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream)) {
-                return ((SerializableCookie) objectInputStream.readObject()).getCookie();
+            byte[] bytes = Base64.decode(cookie, Base64.DEFAULT);
+            if (isLegacy(cookie)) {
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return ((SerializableCookie) in.readObject()).getCookie();
+                }
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                byte version = in.readByte();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported cookie format version: " + version);
+                }
+                int flags = in.readByte();
+                Cookie.Builder builder = new Cookie.Builder()
+                        .name(in.readUTF())
+                        .value(in.readUTF());
+                String domain = in.readUTF();
+                builder = (flags & HOST_ONLY) != 0 ? builder.hostOnlyDomain(domain) : builder.domain(domain);
+                builder = builder.path(in.readUTF());
+                builder = (flags & PERSISTENT) != 0 ? builder.expiresAt(in.readLong()) : builder;
+                builder = (flags & SECURE) != 0 ? builder.secure() : builder;
+                builder = (flags & HTTP_ONLY) != 0 ? builder.httpOnly() : builder;
+                return builder.build();
             }
         } catch (Exception e) {
-            Logger.warn(TAG, "Failed to unmarshal the cookie from String.", e);
+            Logger.warn(TAG, e, "Failed to unmarshal the cookie from String.");
             return null;
         }
     }
 
+    /**
+     * Check if the cookie is marshalled with the legacy Java object serialization format.
+     *
+     * @param cookie The String representation of the Cookie.
+     * @return True if the cookie should be marshalled again with the current format.
+     */
+    boolean isLegacy(@NonNull String cookie) {
+        return cookie.startsWith(LEGACY_PREFIX);
+    }
+
 }
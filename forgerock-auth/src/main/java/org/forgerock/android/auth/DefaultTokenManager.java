@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -18,11 +18,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.Builder;
 import lombok.NonNull;
@@ -40,6 +40,12 @@ import static org.forgerock.android.auth.StringUtils.isNotEmpty;
  * {@link DefaultTokenManager#builder#cacheIntervalMillis}. with the encryption/decryption, disk and Keystore IO, it may drains
  * device CPU and Battery resources. If Application intensively with network operation, setting the
  * this attribute may improve performance.
+ * <p>
+ * With {@link DefaultTokenManager#builder#proactiveRefresh}, the {@link AccessToken} is refreshed in the background
+ * by {@link TokenRefreshScheduler} before it expires.
+ * <p>
+ * Down-scoped {@link AccessToken}s are cached by {@link TokenKey}, up to {@link DefaultTokenManager#builder#scopedCacheSize}
+ * entries, and persisted with the same {@link SharedPreferences}.
  */
 class DefaultTokenManager implements TokenManager {
 
@@ -60,24 +66,45 @@ class DefaultTokenManager implements TokenManager {
      * The {@link OAuth2Client} to auto refresh {@link AccessToken}
      */
     private final OAuth2Client oAuth2Client;
-    private final AtomicReference<AccessToken> accessTokenRef;
-    private static final ScheduledExecutorService worker =
-            Executors.newSingleThreadScheduledExecutor();
+    private final ExpiringReference<AccessToken> accessTokenRef;
+
+    /**
+     * In-flight refresh keyed by the Refresh Token, with the listeners waiting for the result.
+     * Shared by all instances, as concurrent callers may use different {@link DefaultTokenManager} instances.
+     */
+    private static final Map<String, List<FRListener<AccessToken>>> REFRESHING = new HashMap<>();
 
     private final long cacheIntervalMillis;
 
+    /**
+     * Persist with {@link SharedPreferences.Editor#apply()} instead of {@link SharedPreferences.Editor#commit()}
+     */
+    private final boolean writeBehind;
+
     /**
      * Threshold to refresh the {@link AccessToken}
      */
     private long threshold;
 
+    /**
+     * Refresh the {@link AccessToken} in the background before it expires
+     */
+    private final boolean proactiveRefresh;
+
+    /**
+     * The down-scoped {@link AccessToken}s
+     */
+    private final ScopedTokenCache scopedTokens;
 
     @Builder
     public DefaultTokenManager(@NonNull Context context,
                                OAuth2Client oAuth2Client,
                                SharedPreferences sharedPreferences,
                                Long cacheIntervalMillis,
-                               Long threshold) {
+                               Long threshold,
+                               Boolean writeBehind,
+                               Boolean proactiveRefresh,
+                               Integer scopedCacheSize) {
 
         this.sharedPreferences = sharedPreferences == null ? new SecuredSharedPreferences(context,
                 ORG_FORGEROCK_V_1_TOKENS, ORG_FORGEROCK_V_1_KEYS) : sharedPreferences;
@@ -85,20 +112,29 @@ class DefaultTokenManager implements TokenManager {
         Logger.debug(TAG, "Using SharedPreference: %s", this.sharedPreferences.getClass().getSimpleName());
 
         this.oAuth2Client = oAuth2Client;
-        this.accessTokenRef = new AtomicReference<>();
         this.cacheIntervalMillis = cacheIntervalMillis == null
                 ? context.getResources().getInteger(R.integer.forgerock_oauth_cache) * 1000 : cacheIntervalMillis;
+        this.accessTokenRef = new ExpiringReference<>(this.cacheIntervalMillis, true);
         this.threshold = threshold == null
                 ? context.getResources().getInteger(R.integer.forgerock_oauth_threshold) : threshold;
+        this.writeBehind = writeBehind == null
+                ? context.getResources().getBoolean(R.bool.forgerock_write_behind) : writeBehind;
+        this.proactiveRefresh = proactiveRefresh == null
+                ? context.getResources().getBoolean(R.bool.forgerock_oauth_proactive_refresh) : proactiveRefresh;
+        this.scopedTokens = new ScopedTokenCache(this.sharedPreferences, scopedCacheSize == null
+                ? context.getResources().getInteger(R.integer.forgerock_oauth_scoped_cache_size) : scopedCacheSize,
+                this.writeBehind);
     }
 
     @SuppressLint("ApplySharedPref")
     @Override
     public void persist(@NonNull AccessToken accessToken) {
         cache(accessToken);
-        sharedPreferences.edit()
-                .putString(ACCESS_TOKEN, accessToken.toJson())
-                .commit();
+        save(sharedPreferences.edit()
+                .putString(ACCESS_TOKEN, accessToken.toJson()));
+        if (proactiveRefresh) {
+            TokenRefreshScheduler.getInstance().schedule(this, accessToken, threshold);
+        }
     }
 
     @Override
@@ -106,6 +142,19 @@ class DefaultTokenManager implements TokenManager {
         oAuth2Client.exchangeToken(token, additionalParameters, listener);
     }
 
+    @Override
+    public void persist(@NonNull TokenKey key, @NonNull AccessToken accessToken) {
+        scopedTokens.put(key, accessToken);
+    }
+
+    @Override
+    public void exchangeToken(@NonNull SSOToken token, @NonNull TokenKey key, @NonNull Map<String, String> additionalParameters,
+                              FRListener<AccessToken> listener) {
+        Map<String, String> parameters = new HashMap<>(additionalParameters);
+        parameters.putAll(key.getParameters());
+        oAuth2Client.exchangeToken(token, key.getScopeValue(), parameters, listener);
+    }
+
     @Override
     public void exchangeToken(String code, PKCE pkce, Map<String, String> additionalParameters, FRListener<AccessToken> listener) {
         oAuth2Client.token(null, code, pkce, additionalParameters, new OAuth2ResponseHandler(), listener);
@@ -140,6 +189,10 @@ class DefaultTokenManager implements TokenManager {
                 Logger.debug(TAG, "Access Token Expired!");
                 refresh(accessToken, tokenListener);
             } else {
+                if (proactiveRefresh) {
+                    //Token persisted by previous process
+                    TokenRefreshScheduler.getInstance().track(this, accessToken, threshold);
+                }
                 Listener.onSuccess(tokenListener, accessToken);
             }
 
@@ -149,6 +202,41 @@ class DefaultTokenManager implements TokenManager {
         }
     }
 
+    @Override
+    public void getAccessToken(@NonNull TokenKey key, AccessTokenVerifier verifier, FRListener<AccessToken> tokenListener) {
+        AccessToken accessToken = scopedTokens.get(key);
+        if (accessToken == null) {
+            Listener.onException(tokenListener,
+                    new AuthenticationRequiredException("No Access Token, authentication is required."));
+            return;
+        }
+        accessToken.setPersisted(true);
+
+        if (verifier != null && !verifier.isValid(accessToken)) {
+            scopedTokens.remove(key);
+            Listener.onException(tokenListener,
+                    new AuthenticationRequiredException("Access Token is not valid, authentication is required."));
+            return;
+        }
+
+        if (accessToken.isExpired(threshold) && accessToken.getRefreshToken() != null) {
+            Logger.debug(TAG, "Scoped Access Token Expired!");
+            refresh(key, accessToken, tokenListener);
+        } else {
+            Listener.onSuccess(tokenListener, accessToken);
+        }
+    }
+
+    @Override
+    public AccessToken getStoredAccessToken() {
+        return getAccessTokenLocally();
+    }
+
+    @Override
+    public List<AccessToken> getScopedAccessTokens() {
+        return scopedTokens.getAll();
+    }
+
     @Override
     public boolean hasToken() {
         //Consider null if Access token does not exists
@@ -164,35 +252,216 @@ class DefaultTokenManager implements TokenManager {
             Listener.onException(listener, new AuthenticationRequiredException("Refresh Token does not exists."));
             return;
         }
-        oAuth2Client.refresh(accessToken.getSessionToken(), refreshToken, new FRListener<AccessToken>() {
-            @Override
-            public void onSuccess(AccessToken token) {
-                persist(token);
-                token.setPersisted(true);
-                Listener.onSuccess(listener, token);
+
+        //Single flight, join the in-flight refresh with the same Refresh Token
+        AccessToken stored;
+        synchronized (REFRESHING) {
+            if (join(refreshToken, listener)) {
+                Logger.debug(TAG, "Waiting for the in-flight Access Token refresh.");
+                return;
+            }
+            //The token may have been refreshed after the caller read it
+            stored = superseded(getAccessTokenLocally(), refreshToken);
+            if (stored == null) {
+                start(refreshToken, listener);
+            }
+        }
+        if (stored != null) {
+            Logger.debug(TAG, "Access Token has been refreshed.");
+            if (stored.isExpired(threshold) && stored.getRefreshToken() != null) {
+                refresh(stored, listener);
+            } else {
+                stored.setPersisted(true);
+                Listener.onSuccess(listener, stored);
             }
+            return;
+        }
 
-            @Override
-            public void onException(Exception e) {
-                if (e instanceof ApiException && e.getMessage() != null) {
-                    //We clear the tokens if failed to refresh.
-                    ApiException apiException = (ApiException) e;
-                    if (apiException.getStatusCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
-                        try {
-                            JSONObject error = new JSONObject(e.getMessage());
-                            if (error.getString("error").equals("invalid_grant")) {
-                                clear();
-                                Listener.onException(listener, new InvalidGrantException("Failed to refresh, due to invalid grant", e));
-                                return;
-                            }
-                        } catch (JSONException jsonException) {
-                            //ignore
+        try {
+            oAuth2Client.refresh(accessToken.getSessionToken(), refreshToken, new FRListener<AccessToken>() {
+                @Override
+                public void onSuccess(AccessToken token) {
+                    persist(token);
+                    token.setPersisted(true);
+                    notifySuccess(complete(refreshToken), token);
+                }
+
+                @Override
+                public void onException(Exception e) {
+                    Exception result = e;
+                    if (isInvalidGrant(e)) {
+                        //We clear the tokens if failed to refresh, unless the tokens have been refreshed with
+                        //another Refresh Token meanwhile
+                        if (superseded(getAccessTokenLocally(), refreshToken) == null) {
+                            clear();
                         }
+                        result = new InvalidGrantException("Failed to refresh, due to invalid grant", e);
                     }
+                    notifyException(complete(refreshToken), result);
                 }
-                Listener.onException(listener, e);
+            });
+        } catch (RuntimeException e) {
+            notifyException(complete(refreshToken), e);
+        }
+    }
+
+    /**
+     * Notify the waiters of a refresh, a failing waiter does not prevent the others from being notified.
+     */
+    private static void notifySuccess(List<FRListener<AccessToken>> waiters, AccessToken token) {
+        for (FRListener<AccessToken> waiter : waiters) {
+            try {
+                Listener.onSuccess(waiter, token);
+            } catch (Exception e) {
+                Logger.warn(TAG, e, "Access Token refresh listener failed");
             }
-        });
+        }
+    }
+
+    private static void notifyException(List<FRListener<AccessToken>> waiters, Exception e) {
+        for (FRListener<AccessToken> waiter : waiters) {
+            try {
+                Listener.onException(waiter, e);
+            } catch (Exception ex) {
+                Logger.warn(TAG, ex, "Access Token refresh listener failed");
+            }
+        }
+    }
+
+    /**
+     * Refresh the down-scoped {@link AccessToken} with the requested scope and persist it.
+     *
+     * @param key         The {@link TokenKey} of the {@link AccessToken}
+     * @param accessToken The expired {@link AccessToken}
+     * @param listener    Listener to listen for refresh event.
+     */
+    private void refresh(TokenKey key, AccessToken accessToken, FRListener<AccessToken> listener) {
+
+        String refreshToken = accessToken.getRefreshToken();
+
+        //Single flight, join the in-flight refresh with the same Refresh Token
+        AccessToken stored;
+        synchronized (REFRESHING) {
+            if (join(refreshToken, listener)) {
+                Logger.debug(TAG, "Waiting for the in-flight Scoped Access Token refresh.");
+                return;
+            }
+            //The token may have been refreshed after the caller read it
+            stored = superseded(scopedTokens.get(key), refreshToken);
+            if (stored == null) {
+                start(refreshToken, listener);
+            }
+        }
+        if (stored != null) {
+            Logger.debug(TAG, "Scoped Access Token has been refreshed.");
+            if (stored.isExpired(threshold) && stored.getRefreshToken() != null) {
+                refresh(key, stored, listener);
+            } else {
+                stored.setPersisted(true);
+                Listener.onSuccess(listener, stored);
+            }
+            return;
+        }
+
+        try {
+            oAuth2Client.refresh(accessToken.getSessionToken(), refreshToken,
+                    key.getScopeValue(), key.getParameters(), new FRListener<AccessToken>() {
+                        @Override
+                        public void onSuccess(AccessToken token) {
+                            persist(key, token);
+                            token.setPersisted(true);
+                            notifySuccess(complete(refreshToken), token);
+                        }
+
+                        @Override
+                        public void onException(Exception e) {
+                            Exception result = e;
+                            if (isInvalidGrant(e)) {
+                                //Keep the token refreshed with another Refresh Token meanwhile
+                                scopedTokens.remove(key, refreshToken);
+                                result = new InvalidGrantException("Failed to refresh, due to invalid grant", e);
+                            }
+                            notifyException(complete(refreshToken), result);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            notifyException(complete(refreshToken), e);
+        }
+    }
+
+    /**
+     * Check if the refresh failed because the Refresh Token is not valid anymore.
+     *
+     * @param e The refresh failure
+     * @return True if the server responds with invalid_grant
+     */
+    private static boolean isInvalidGrant(Exception e) {
+        if (e instanceof ApiException && e.getMessage() != null
+                && ((ApiException) e).getStatusCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+            try {
+                JSONObject error = new JSONObject(e.getMessage());
+                return error.getString("error").equals("invalid_grant");
+            } catch (JSONException jsonException) {
+                //ignore
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Join the in-flight refresh with the same Refresh Token, the caller must hold the lock of {@link #REFRESHING}.
+     *
+     * @param refreshToken The Refresh Token used for the refresh
+     * @param listener     The listener waiting for the refresh result
+     * @return True if the listener joined an in-flight refresh, false if there is no in-flight refresh
+     */
+    private static boolean join(String refreshToken, FRListener<AccessToken> listener) {
+        List<FRListener<AccessToken>> waiters = REFRESHING.get(refreshToken);
+        if (waiters == null) {
+            return false;
+        }
+        waiters.add(listener);
+        return true;
+    }
+
+    /**
+     * Register the refresh with the Refresh Token as in-flight, the caller must hold the lock of {@link #REFRESHING}.
+     *
+     * @param refreshToken The Refresh Token used for the refresh
+     * @param listener     The listener waiting for the refresh result
+     */
+    private static void start(String refreshToken, FRListener<AccessToken> listener) {
+        List<FRListener<AccessToken>> waiters = new ArrayList<>();
+        waiters.add(listener);
+        REFRESHING.put(refreshToken, waiters);
+    }
+
+    /**
+     * Check if the stored {@link AccessToken} has been refreshed with another Refresh Token, e.g. by a refresh
+     * which completed after the caller read the {@link AccessToken}.
+     *
+     * @param stored       The stored {@link AccessToken}
+     * @param refreshToken The Refresh Token of the caller
+     * @return The stored {@link AccessToken} if it does not use the Refresh Token, null otherwise
+     */
+    private static AccessToken superseded(AccessToken stored, String refreshToken) {
+        if (stored == null || refreshToken.equals(stored.getRefreshToken())) {
+            return null;
+        }
+        return stored;
+    }
+
+    /**
+     * Complete the in-flight refresh, callers which arrive after this point start a new refresh.
+     *
+     * @param refreshToken The Refresh Token used for the refresh
+     * @return The listeners waiting for the refresh result
+     */
+    private static List<FRListener<AccessToken>> complete(String refreshToken) {
+        synchronized (REFRESHING) {
+            List<FRListener<AccessToken>> waiters = REFRESHING.remove(refreshToken);
+            return waiters == null ? Collections.emptyList() : waiters;
+        }
     }
 
     /**
@@ -202,9 +471,10 @@ class DefaultTokenManager implements TokenManager {
      */
     private AccessToken getAccessTokenLocally() {
 
-        if (accessTokenRef.get() != null) {
+        AccessToken cached = accessTokenRef.get();
+        if (cached != null) {
             Logger.debug(TAG, "Retrieving Access Token from cache");
-            return accessTokenRef.get();
+            return cached;
         }
 
         //Consider null if Access token does not exists
@@ -216,34 +486,59 @@ class DefaultTokenManager implements TokenManager {
     }
 
     /**
-     * Cache the {@link AccessToken} in memory and setup a worker thread to clear it after.
+     * Cache the {@link AccessToken} in memory, it expires after {@link #cacheIntervalMillis}.
      *
      * @param accessToken The AccessToken
      */
     private void cache(AccessToken accessToken) {
-        if (cacheIntervalMillis > 0) {
-            accessTokenRef.set(accessToken);
-            worker.schedule(() -> {
-                Logger.debug(TAG, "Removing Access Token from cache.");
-                accessTokenRef.set(null);
-            }, cacheIntervalMillis, TimeUnit.MILLISECONDS);
-        }
+        accessTokenRef.set(accessToken);
     }
 
     @SuppressLint("ApplySharedPref")
     @Override
     public void clear() {
-        accessTokenRef.set(null);
-        sharedPreferences.edit().clear().commit();
+        accessTokenRef.clear();
+        scopedTokens.reset();
+        if (proactiveRefresh) {
+            TokenRefreshScheduler.getInstance().cancel();
+        }
+        save(sharedPreferences.edit().clear());
         //Broadcast Token removed event
         EventDispatcher.TOKEN_REMOVED.notifyObservers();
     }
 
+    @SuppressLint("ApplySharedPref")
+    @Override
+    public void flush() {
+        //Commit blocks until all pending apply() are written to disk
+        sharedPreferences.edit().commit();
+    }
+
+    /**
+     * Save the changes, in write behind mode the changes are visible in memory immediately
+     * and written to disk in the background.
+     *
+     * @param editor The editor with the changes.
+     */
+    @SuppressLint("ApplySharedPref")
+    private void save(SharedPreferences.Editor editor) {
+        if (writeBehind) {
+            editor.apply();
+        } else {
+            editor.commit();
+        }
+    }
+
     @Override
     public void revoke(FRListener<Void> listener) {
         AccessToken accessToken = getAccessTokenLocally();
+        List<AccessToken> scoped = scopedTokens.getAll();
         //No matter success revoke or not, clear the token locally.
         clear();
+        //Best effort to revoke the down-scoped tokens
+        for (AccessToken token : scoped) {
+            oAuth2Client.revoke(token, null);
+        }
         if (accessToken == null) {
             Listener.onException(listener, new IllegalStateException("Access Token Not found!"));
             return;
@@ -51,9 +51,29 @@ public class FRAuth {
                 }
             }
             sharedPreferences.edit().putString("url", Config.getInstance().getUrl()).apply();
+            //Send the server calls deferred by the previous run
+            Outbox outbox = Config.getInstance().getOutbox();
+            if (outbox != null) {
+                outbox.flush();
+            }
+            if (context.getResources().getBoolean(R.bool.forgerock_prewarm)) {
+                prewarm(context, null);
+            }
         }
     }
 
+    /**
+     * Establish the connections to the configured AM server (and the OAuth server if it is on a different host)
+     * in the background, so the first request does not pay for the DNS lookup, TCP connect and TLS handshake.
+     *
+     * @param context  The Application Context
+     * @param listener Listener to receive the {@link ConnectionTiming} of each connection
+     */
+    public static void prewarm(Context context, FRListener<List<ConnectionTiming>> listener) {
+        Config.getInstance().init(context);
+        Config.getInstance().getConnectionWarmer().warmUp(listener);
+    }
+
     @Builder
     private FRAuth(@NonNull Context context,
                    String serviceName,
@@ -33,6 +33,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 public class FRUser {
@@ -81,6 +82,17 @@ public class FRUser {
         FRLifecycle.dispatchLogout();
     }
 
+    /**
+     * Logout the user, the user session is removed locally before the server calls complete.
+     *
+     * @param listener Listener to listen for the outcome of the server calls to close the session.
+     */
+    public void logout(FRListener<LogoutResult> listener) {
+        current.set(null);
+        sessionManager.logout(listener);
+        FRLifecycle.dispatchLogout();
+    }
+
     /**
      * Revoke the {@link AccessToken} asynchronously,
      *
@@ -127,9 +139,35 @@ public class FRUser {
         return sessionManager.getAccessToken();
     }
 
+    /**
+     * Retrieve the down-scoped {@link AccessToken} for a resource server asynchronously, the {@link AccessToken} is
+     * cached by the {@link TokenKey}, switching between resource servers does not require a new authorization.
+     *
+     * @param key      The {@link TokenKey} with the requested scope and resource
+     * @param listener Listener to listen get Access Token event.
+     */
+    public void getAccessToken(@NonNull TokenKey key, FRListener<AccessToken> listener) {
+        sessionManager.getAccessToken(key, listener);
+    }
+
+    /**
+     * Retrieve the down-scoped {@link AccessToken} for a resource server, the {@link AccessToken} is
+     * cached by the {@link TokenKey}, switching between resource servers does not require a new authorization.
+     *
+     * @param key The {@link TokenKey} with the requested scope and resource
+     * @return The {@link AccessToken}
+     * @throws AuthenticationRequiredException when unable to retrieve a valid {@link AccessToken},
+     *                                         re-login with {@link FRUser#login(Context, NodeListener)}
+     */
+    @WorkerThread
+    public AccessToken getAccessToken(@NonNull TokenKey key) throws AuthenticationRequiredException {
+        return sessionManager.getAccessToken(key);
+    }
+
     /**
      * Handles REST requests to the OpenId Connect userinfo endpoint for retrieving information about the user who granted
-     * the authorization for the token.
+     * the authorization for the token. The {@link UserInfo} is cached for the current {@link AccessToken}, the cache
+     * duration is defined under <b>string.xml</b> file with <b>forgerock_userinfo_cache</b>.
      *
      * @param listener Listener to listen get UserInfo event.
      *                 <b> throws {@link org.forgerock.android.auth.exception.AuthenticationException when server returns {@link java.net.HttpURLConnection#HTTP_UNAUTHORIZED}
@@ -139,21 +177,35 @@ public class FRUser {
      *                 <b> throws {@link java.net.MalformedURLException} When failed to parse the URL for API request.
      */
     public void getUserInfo(final FRListener<UserInfo> listener) {
+        Config.getInstance().getUserService().userinfo(listener);
+    }
 
-        UserService.builder()
-                .serverConfig(Config.getInstance().getServerConfig())
-                .build()
-                .userinfo(new FRListener<UserInfo>() {
-                    @Override
-                    public void onSuccess(UserInfo result) {
-                        Listener.onSuccess(listener, result);
-                    }
-
-                    @Override
-                    public void onException(Exception e) {
-                        Listener.onException(listener, e);
-                    }
-                });
+    /**
+     * Retrieve the claims of the ID Token as {@link UserInfo}. The ID Token signature and claims are validated on
+     * the device, the userinfo endpoint is only called when the {@link AccessToken} has no ID Token.
+     *
+     * @param listener Listener to listen get UserInfo event.
+     *                 <b> throws {@link org.forgerock.android.auth.exception.InvalidIdTokenException} when the ID Token is not valid,
+     *                 <b> throws {@link AuthenticationRequiredException} when unable to retrieve a valid {@link AccessToken},
+     *                 <b> throws {@link org.forgerock.android.auth.exception.ApiException} When server return errors.
+     *                 <b> throws {@link IOException} When there is any network error.
+     */
+    public void getIdTokenUserInfo(final FRListener<UserInfo> listener) {
+        sessionManager.getAccessToken(new FRListener<AccessToken>() {
+            @Override
+            public void onSuccess(AccessToken accessToken) {
+                if (StringUtils.isNotEmpty(accessToken.getIdToken())) {
+                    Config.getInstance().getIdTokenValidator().validate(accessToken.getIdToken(), listener);
+                } else {
+                    getUserInfo(listener);
+                }
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.util.Base64;
+
+import org.forgerock.android.auth.exception.InvalidIdTokenException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Validate the ID Token on the device, without calling the userinfo endpoint.
+ *
+ * <p>
+ * The ID Token signature is verified with the JSON Web Key Set of the realm, the {@code iss}, {@code aud},
+ * {@code azp}, {@code exp}, {@code nbf} and {@code iat} claims are verified against the OpenID Connect discovery
+ * document and the configured client. The discovery document and the JSON Web Key Set are retrieved once and cached
+ * by {@link JwkSetCache}, and reloaded when the signing key is not found.
+ *
+ * <p>
+ * RS256, RS384, RS512, ES256, ES384 and ES512 signatures are supported.
+ */
+public class IdTokenValidator {
+
+    private static final String TAG = IdTokenValidator.class.getSimpleName();
+
+    //Default tolerance for the time based claims
+    static final long DEFAULT_CLOCK_SKEW = 60;
+
+    private static final int BASE64_URL = Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP;
+
+    private final String clientId;
+    private final long clockSkew;
+    private final JwkSetCache jwkSetCache;
+
+    /**
+     * @param clientId     The registered client identifier, the expected audience of the ID Token.
+     * @param serverConfig The {@link ServerConfig} of the server which issued the ID Token
+     * @param clockSkew    Tolerance in seconds for the time based claims.
+     */
+    @Builder
+    public IdTokenValidator(@NonNull String clientId, @NonNull ServerConfig serverConfig, Long clockSkew) {
+        this.clientId = clientId;
+        this.clockSkew = clockSkew == null ? DEFAULT_CLOCK_SKEW : clockSkew;
+        this.jwkSetCache = new JwkSetCache(serverConfig);
+    }
+
+    /**
+     * Validate the ID Token and return the claims as {@link UserInfo}.
+     *
+     * @param idToken  The ID Token
+     * @param listener Listener to listen for the result,
+     *                 <b> throws {@link InvalidIdTokenException} when the ID Token is not valid,
+     *                 <b> throws {@link java.io.IOException} or {@link org.forgerock.android.auth.exception.ApiException}
+     *                 when failed to retrieve the discovery document or the JSON Web Key Set.
+     */
+    public void validate(@NonNull String idToken, FRListener<UserInfo> listener) {
+        final JWT jwt;
+        try {
+            jwt = JWT.parse(idToken);
+        } catch (InvalidIdTokenException e) {
+            Listener.onException(listener, e);
+            return;
+        }
+
+        jwkSetCache.getConfiguration(new FRListener<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject configuration) {
+                try {
+                    verifyClaims(jwt.getPayload(), configuration.optString("issuer", null));
+                } catch (InvalidIdTokenException e) {
+                    Listener.onException(listener, e);
+                    return;
+                }
+                verifySignature(jwt, false, listener);
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+            }
+        });
+    }
+
+    /**
+     * Discard the cached discovery document and JSON Web Key Set.
+     */
+    public void clear() {
+        jwkSetCache.clear();
+    }
+
+    private void verifySignature(JWT jwt, boolean reloaded, FRListener<UserInfo> listener) {
+        jwkSetCache.getJwkSet(reloaded, new FRListener<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject jwks) {
+                try {
+                    List<PublicKey> keys = getKeys(jwks, jwt);
+                    if (keys.isEmpty()) {
+                        if (!reloaded) {
+                            //Key may have been rotated
+                            Logger.debug(TAG, "Signing key %s not found.", jwt.getKid());
+                            verifySignature(jwt, true, listener);
+                        } else {
+                            Listener.onException(listener, new InvalidIdTokenException("Signing key not found."));
+                        }
+                        return;
+                    }
+                    for (PublicKey key : keys) {
+                        if (jwt.verify(key)) {
+                            Listener.onSuccess(listener, UserInfo.unmarshal(jwt.getPayload()));
+                            return;
+                        }
+                    }
+                    Listener.onException(listener, new InvalidIdTokenException("Invalid ID Token signature."));
+                } catch (InvalidIdTokenException e) {
+                    Listener.onException(listener, e);
+                } catch (Exception e) {
+                    Listener.onException(listener, new InvalidIdTokenException("Failed to verify the ID Token signature.", e));
+                }
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+            }
+        });
+    }
+
+    private void verifyClaims(JSONObject claims, String issuer) throws InvalidIdTokenException {
+        if (issuer == null || !issuer.equals(claims.optString("iss"))) {
+            throw new InvalidIdTokenException("Invalid issuer.");
+        }
+
+        List<String> audience = new ArrayList<>();
+        JSONArray aud = claims.optJSONArray("aud");
+        if (aud != null) {
+            for (int i = 0; i < aud.length(); i++) {
+                audience.add(aud.optString(i));
+            }
+        } else if (claims.has("aud")) {
+            audience.add(claims.optString("aud"));
+        }
+        if (!audience.contains(clientId)) {
+            throw new InvalidIdTokenException("Invalid audience.");
+        }
+        String azp = claims.optString("azp", null);
+        if ((audience.size() > 1 || azp != null) && !clientId.equals(azp)) {
+            throw new InvalidIdTokenException("Invalid authorized party.");
+        }
+
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        if (!claims.has("exp") || claims.optLong("exp") + clockSkew < now) {
+            throw new InvalidIdTokenException("ID Token expired.");
+        }
+        if (claims.has("nbf") && claims.optLong("nbf") - clockSkew > now) {
+            throw new InvalidIdTokenException("ID Token not yet valid.");
+        }
+        if (!claims.has("iat") || claims.optLong("iat") - clockSkew > now) {
+            throw new InvalidIdTokenException("Invalid issued at time.");
+        }
+    }
+
+    /**
+     * Find the keys which may have signed the ID Token.
+     */
+    private static List<PublicKey> getKeys(JSONObject jwks, JWT jwt) throws GeneralSecurityException {
+        List<PublicKey> result = new ArrayList<>();
+        JSONArray keys = jwks.optJSONArray("keys");
+        if (keys == null) {
+            return result;
+        }
+        for (int i = 0; i < keys.length(); i++) {
+            JSONObject jwk = keys.optJSONObject(i);
+            if (jwk == null
+                    || "enc".equals(jwk.optString("use"))
+                    || !jwt.getKeyType().equals(jwk.optString("kty"))
+                    || (jwt.getKid() != null && !jwt.getKid().equals(jwk.optString("kid")))) {
+                continue;
+            }
+            PublicKey key = toPublicKey(jwk);
+            if (key != null) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    private static PublicKey toPublicKey(JSONObject jwk) throws GeneralSecurityException {
+        switch (jwk.optString("kty")) {
+            case "RSA":
+                return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                        toBigInteger(jwk.optString("n")), toBigInteger(jwk.optString("e"))));
+            case "EC":
+                String curve = getCurveName(jwk.optString("crv"));
+                if (curve == null) {
+                    return null;
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve));
+                return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                        new ECPoint(toBigInteger(jwk.optString("x")), toBigInteger(jwk.optString("y"))),
+                        parameters.getParameterSpec(ECParameterSpec.class)));
+            default:
+                return null;
+        }
+    }
+
+    private static String getCurveName(String crv) {
+        switch (crv) {
+            case "P-256":
+                return "secp256r1";
+            case "P-384":
+                return "secp384r1";
+            case "P-521":
+                return "secp521r1";
+            default:
+                return null;
+        }
+    }
+
+    private static BigInteger toBigInteger(String value) {
+        return new BigInteger(1, Base64.decode(value, BASE64_URL));
+    }
+
+    /**
+     * Signed JWT
+     */
+    private static class JWT {
+
+        private final JSONObject header;
+        private final JSONObject payload;
+        private final byte[] signingInput;
+        private final byte[] signature;
+
+        private JWT(JSONObject header, JSONObject payload, byte[] signingInput, byte[] signature) {
+            this.header = header;
+            this.payload = payload;
+            this.signingInput = signingInput;
+            this.signature = signature;
+        }
+
+        static JWT parse(String value) throws InvalidIdTokenException {
+            String[] parts = value.split("\\.");
+            if (parts.length != 3) {
+                throw new InvalidIdTokenException("ID Token is not a signed JWT.");
+            }
+            try {
+                JWT jwt = new JWT(new JSONObject(decode(parts[0])), new JSONObject(decode(parts[1])),
+                        (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII),
+                        Base64.decode(parts[2], BASE64_URL));
+                //Reject unsigned and symmetric signatures
+                jwt.getAlgorithm();
+                return jwt;
+            } catch (IllegalArgumentException | JSONException e) {
+                throw new InvalidIdTokenException("Failed to parse the ID Token.", e);
+            }
+        }
+
+        private static String decode(String value) {
+            return new String(Base64.decode(value, BASE64_URL), StandardCharsets.UTF_8);
+        }
+
+        JSONObject getPayload() {
+            return payload;
+        }
+
+        String getKid() {
+            return header.optString("kid", null);
+        }
+
+        String getKeyType() {
+            return header.optString("alg").startsWith("ES") ? "EC" : "RSA";
+        }
+
+        private String getAlgorithm() throws InvalidIdTokenException {
+            switch (header.optString("alg")) {
+                case "RS256":
+                    return "SHA256withRSA";
+                case "RS384":
+                    return "SHA384withRSA";
+                case "RS512":
+                    return "SHA512withRSA";
+                case "ES256":
+                    return "SHA256withECDSA";
+                case "ES384":
+                    return "SHA384withECDSA";
+                case "ES512":
+                    return "SHA512withECDSA";
+                default:
+                    throw new InvalidIdTokenException("Unsupported algorithm: " + header.optString("alg"));
+            }
+        }
+
+        boolean verify(PublicKey key) throws GeneralSecurityException, InvalidIdTokenException {
+            Signature verifier = Signature.getInstance(getAlgorithm());
+            verifier.initVerify(key);
+            verifier.update(signingInput);
+            if ("EC".equals(getKeyType())) {
+                return verifier.verify(toDer(signature));
+            }
+            return verifier.verify(signature);
+        }
+
+        /**
+         * Convert the JWS ECDSA signature (R || S) to the ASN.1 DER format expected by {@link Signature}.
+         */
+        private static byte[] toDer(byte[] signature) {
+            int half = signature.length / 2;
+            byte[] r = toDerInteger(Arrays.copyOfRange(signature, 0, half));
+            byte[] s = toDerInteger(Arrays.copyOfRange(signature, half, signature.length));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(0x30);
+            writeLength(out, r.length + s.length);
+            out.write(r, 0, r.length);
+            out.write(s, 0, s.length);
+            return out.toByteArray();
+        }
+
+        private static byte[] toDerInteger(byte[] value) {
+            byte[] integer = new BigInteger(1, value).toByteArray();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(0x02);
+            writeLength(out, integer.length);
+            out.write(integer, 0, integer.length);
+            return out.toByteArray();
+        }
+
+        private static void writeLength(ByteArrayOutputStream out, int length) {
+            if (length > 0x7f) {
+                out.write(0x81);
+            }
+            out.write(length);
+        }
+    }
+
+}
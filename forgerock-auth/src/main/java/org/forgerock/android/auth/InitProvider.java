@@ -29,6 +29,7 @@ import java.lang.ref.WeakReference;
 public class InitProvider extends ContentProvider {
 
     private static WeakReference<Activity> currentActivity = new WeakReference<>(null);
+    private static int startedActivities = 0;
 
     /**
      * Retrieve the current active {@link Activity}
@@ -82,7 +83,9 @@ public class InitProvider extends ContentProvider {
 
             @Override
             public void onActivityStarted(@NonNull Activity activity) {
-
+                if (startedActivities++ == 0) {
+                    TokenRefreshScheduler.getInstance().onForeground();
+                }
             }
 
             @Override
@@ -97,7 +100,9 @@ public class InitProvider extends ContentProvider {
 
             @Override
             public void onActivityStopped(@NonNull Activity activity) {
-
+                if (startedActivities > 0 && --startedActivities == 0) {
+                    TokenRefreshScheduler.getInstance().onBackground();
+                }
             }
 
             @Override
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.util.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Parse JSON content from a {@link Reader} with {@link JsonReader}, the {@link JSONObject} is built while
+ * reading the stream, without materializing the whole content as a {@link String} first.
+ *
+ * <p>
+ * The result is the same as <code>new JSONObject(String)</code>, numbers without fraction or exponent
+ * are parsed as {@link Integer} or {@link Long}, other numbers as {@link Double}. Models which do not keep the
+ * JSON content can be read straight from the {@link JsonReader} with {@link #nextString(JsonReader)} and
+ * {@link #nextLong(JsonReader, long)} instead.
+ */
+final class JsonStreamParser {
+
+    private JsonStreamParser() {
+    }
+
+    /**
+     * Parse a JSON Object from the {@link Reader}, the {@link Reader} is closed after parsing.
+     *
+     * @param in The Reader to read the JSON content
+     * @return The parsed JSONObject
+     * @throws IOException   Failed to read the content
+     * @throws JSONException The content is not a valid JSON Object
+     */
+    static JSONObject parse(Reader in) throws IOException, JSONException {
+        try (JsonReader reader = new JsonReader(in)) {
+            return readObject(reader);
+        } catch (IllegalStateException | NumberFormatException e) {
+            //JsonReader throws IllegalStateException for unexpected token
+            throw new JSONException(e.getMessage());
+        }
+    }
+
+    /**
+     * Read the next value as {@link String}, same as {@link JSONObject#optString(String, String)}, numbers and
+     * booleans are converted to {@link String}.
+     *
+     * @param reader The JsonReader positioned at the value
+     * @return The value, null if the value is null, an object or an array
+     * @throws IOException Failed to read the content
+     */
+    static String nextString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * Read the next value as long, same as {@link JSONObject#optLong(String, long)}, numbers with fraction are
+     * truncated.
+     *
+     * @param reader   The JsonReader positioned at the value
+     * @param fallback The value to return if the value is not a number
+     * @return The value
+     * @throws IOException Failed to read the content
+     */
+    static long nextLong(JsonReader reader, long fallback) throws IOException {
+        String literal = nextString(reader);
+        if (literal == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(literal);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(literal);
+            } catch (NumberFormatException ex) {
+                return fallback;
+            }
+        }
+    }
+
+    private static JSONObject readObject(JsonReader reader) throws IOException, JSONException {
+        JSONObject jsonObject = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            jsonObject.put(reader.nextName(), readValue(reader));
+        }
+        reader.endObject();
+        return jsonObject;
+    }
+
+    private static JSONArray readArray(JsonReader reader) throws IOException, JSONException {
+        JSONArray jsonArray = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            jsonArray.put(readValue(reader));
+        }
+        reader.endArray();
+        return jsonArray;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                return readArray(reader);
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return toNumber(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            default:
+                throw new JSONException("Unexpected token " + reader.peek());
+        }
+    }
+
+    private static Object toNumber(String literal) {
+        if (literal.indexOf('.') == -1) {
+            try {
+                long value = Long.parseLong(literal);
+                if (value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                //Exponent or out of range, parse as Double
+            }
+        }
+        return Double.valueOf(literal);
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.net.Uri;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.NonNull;
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retrieve and cache the OpenID Connect discovery document and the JSON Web Key Set (JWKS) of the realm.
+ *
+ * <p>
+ * The documents are cached in memory for the max-age of the Cache-Control response header, and revalidated with
+ * the ETag when they expire. The JWKS can be reloaded before it expires when the signing key is not found,
+ * at most once every {@link #MIN_RELOAD_INTERVAL} milliseconds.
+ */
+class JwkSetCache implements ResponseHandler {
+
+    private static final String TAG = JwkSetCache.class.getSimpleName();
+
+    //Cache duration when the server does not provide the max-age
+    static final long DEFAULT_MAX_AGE = TimeUnit.HOURS.toMillis(1);
+    //Minimum interval to reload the JWKS when the key is not found
+    static final long MIN_RELOAD_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String JWKS_URI = "jwks_uri";
+    private static final Action DISCOVERY = new Action(Action.DISCOVERY);
+    private static final Action JWKS = new Action(Action.JWKS);
+
+    private final ServerConfig serverConfig;
+    private final OkHttpClient client;
+
+    private Document configuration;
+    private Document jwks;
+    private long lastReload;
+
+    JwkSetCache(@NonNull ServerConfig serverConfig) {
+        this.serverConfig = serverConfig;
+        this.client = OkHttpClientProvider.getInstance().lookup(serverConfig);
+    }
+
+    /**
+     * Retrieve the OpenID Connect discovery document.
+     *
+     * @param listener Listener to listen for the discovery document
+     */
+    void getConfiguration(FRListener<JSONObject> listener) {
+        Document cached;
+        synchronized (this) {
+            cached = configuration;
+        }
+        fetch(getDiscoveryUrl(), cached, DISCOVERY, new FRListener<Document>() {
+            @Override
+            public void onSuccess(Document result) {
+                synchronized (JwkSetCache.this) {
+                    configuration = result;
+                }
+                Listener.onSuccess(listener, result.getJson());
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+            }
+        });
+    }
+
+    /**
+     * Retrieve the JWKS.
+     *
+     * @param reload   True to reload the JWKS before it expires, ignored if the JWKS has been reloaded recently.
+     * @param listener Listener to listen for the JWKS
+     */
+    void getJwkSet(boolean reload, FRListener<JSONObject> listener) {
+        getConfiguration(new FRListener<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                String jwksUri = result.optString(JWKS_URI, null);
+                if (jwksUri == null) {
+                    Listener.onException(listener, new IllegalStateException("jwks_uri not found."));
+                    return;
+                }
+                Document cached;
+                synchronized (JwkSetCache.this) {
+                    cached = jwks;
+                    if (reload && cached != null
+                            && System.currentTimeMillis() - lastReload >= MIN_RELOAD_INTERVAL) {
+                        Logger.debug(TAG, "Reloading the JWKS.");
+                        lastReload = System.currentTimeMillis();
+                        cached = cached.expire();
+                    }
+                }
+                fetch(jwksUri, cached, JWKS, new FRListener<Document>() {
+                    @Override
+                    public void onSuccess(Document document) {
+                        synchronized (JwkSetCache.this) {
+                            jwks = document;
+                        }
+                        Listener.onSuccess(listener, document.getJson());
+                    }
+
+                    @Override
+                    public void onException(Exception e) {
+                        Listener.onException(listener, e);
+                    }
+                });
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+            }
+        });
+    }
+
+    /**
+     * Discard the cached documents.
+     */
+    synchronized void clear() {
+        configuration = null;
+        jwks = null;
+        lastReload = 0;
+    }
+
+    private void fetch(String url, Document cached, Action action, FRListener<Document> listener) {
+        if (cached != null && !cached.isExpired()) {
+            Listener.onSuccess(listener, cached);
+            return;
+        }
+
+        Request.Builder builder;
+        try {
+            builder = new Request.Builder()
+                    .url(url)
+                    .get()
+                    .tag(action);
+        } catch (IllegalArgumentException e) {
+            Listener.onException(listener, e);
+            return;
+        }
+        if (cached != null && cached.getEtag() != null) {
+            builder.header(IF_NONE_MATCH, cached.getEtag());
+        }
+
+        client.newCall(builder.build()).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                Listener.onException(listener, e);
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                    Logger.debug(TAG, "%s not modified.", url);
+                    response.close();
+                    Listener.onSuccess(listener, new Document(cached.getJson(), cached.getEtag(), maxAge(response)));
+                } else if (response.isSuccessful()) {
+                    try {
+                        Listener.onSuccess(listener, new Document(getJson(response),
+                                response.header(ETAG), maxAge(response)));
+                    } catch (Exception e) {
+                        Listener.onException(listener, e);
+                    }
+                } else {
+                    handleError(response, listener);
+                }
+            }
+        });
+    }
+
+    private static long maxAge(Response response) {
+        CacheControl cacheControl = response.cacheControl();
+        if (cacheControl.noStore() || cacheControl.noCache()) {
+            return 0;
+        }
+        if (cacheControl.maxAgeSeconds() >= 0) {
+            return TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds());
+        }
+        return DEFAULT_MAX_AGE;
+    }
+
+    @VisibleForTesting
+    String getDiscoveryUrl() {
+        return Uri.parse(serverConfig.getUrl()).buildUpon()
+                .appendPath("oauth2")
+                .appendPath("realms")
+                .appendPath(serverConfig.getRealm())
+                .appendPath(".well-known")
+                .appendPath("openid-configuration")
+                .build().toString();
+    }
+
+    /**
+     * Cached JSON document
+     */
+    @Getter
+    private static class Document {
+
+        private final JSONObject json;
+        private final String etag;
+        private final long expiresAt;
+
+        Document(JSONObject json, String etag, long maxAge) {
+            this.json = json;
+            this.etag = etag;
+            this.expiresAt = System.currentTimeMillis() + maxAge;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        Document expire() {
+            return new Document(json, etag, 0);
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.forgerock.android.auth.exception.ApiException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.Builder;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Perform the server calls to close the session in parallel under an overall deadline.
+ *
+ * <p>
+ * The listener is notified with a {@link LogoutResult} once all steps complete or when the deadline is reached,
+ * whichever comes first. Steps which did not complete before the deadline keep running in the background.
+ * Steps failed with a transient error (network error, HTTP 429 or 5xx) are deferred to the {@link Outbox}
+ * to retry in the background.
+ */
+class LogoutPipeline {
+
+    private static final String TAG = LogoutPipeline.class.getSimpleName();
+
+    static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, LogoutPipeline.class.getSimpleName());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long timeout;
+    private final Outbox outbox;
+
+    /**
+     * @param timeout The overall deadline in milliseconds, no deadline when it is not positive.
+     * @param outbox  The {@link Outbox} to retry the failed steps, failed steps are not retried when null.
+     */
+    @Builder
+    private LogoutPipeline(Long timeout, Outbox outbox) {
+        this.timeout = timeout == null ? DEFAULT_TIMEOUT : timeout;
+        this.outbox = outbox;
+    }
+
+    /**
+     * Perform the steps in parallel.
+     *
+     * @param steps    The steps keyed by the {@link Action} type
+     * @param listener Listener to listen for the {@link LogoutResult}
+     */
+    void execute(Map<String, Step> steps, FRListener<LogoutResult> listener) {
+        Execution execution = new Execution(steps, listener);
+        execution.start();
+    }
+
+    private void attempt(String name, Step step, FRListener<Void> listener) {
+        step.execute(new FRListener<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Listener.onSuccess(listener, result);
+            }
+
+            @Override
+            public void onException(Exception e) {
+                Listener.onException(listener, e);
+                Request request = step.getRequest();
+                if (outbox != null && request != null && isRetryable(e)) {
+                    Logger.warn(TAG, "%s failed, retry in the background: %s", name, e.getMessage());
+                    outbox.add(request, 1);
+                } else {
+                    Logger.warn(TAG, "%s failed: %s", name, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof IOException) {
+            return true;
+        }
+        if (e instanceof ApiException) {
+            int statusCode = ((ApiException) e).getStatusCode();
+            return statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+        }
+        return false;
+    }
+
+    /**
+     * A server call of the logout.
+     */
+    interface Step {
+
+        /**
+         * Perform the server call.
+         *
+         * @param listener Listener to listen for the completion of the call
+         */
+        void execute(FRListener<Void> listener);
+
+        /**
+         * The request of the server call, to retry in the background.
+         *
+         * @return The request, null if the server call cannot be retried.
+         */
+        default Request getRequest() {
+            return null;
+        }
+    }
+
+    /**
+     * A {@link Step} which sends a single request.
+     */
+    static class RequestStep implements Step, ResponseHandler {
+
+        private final OkHttpClient client;
+        private final Request request;
+
+        RequestStep(OkHttpClient client, Request request) {
+            this.client = client;
+            this.request = request;
+        }
+
+        @Override
+        public void execute(FRListener<Void> listener) {
+            client.newCall(request).enqueue(new okhttp3.Callback() {
+                @Override
+                public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                    Listener.onException(listener, e);
+                }
+
+                @Override
+                public void onResponse(@NotNull Call call, @NotNull Response response) {
+                    if (response.isSuccessful()) {
+                        Listener.onSuccess(listener, null);
+                        close(response);
+                    } else {
+                        handleError(response, listener);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public Request getRequest() {
+            return request;
+        }
+    }
+
+    /**
+     * Collect the outcome of the steps of a single logout.
+     */
+    private class Execution {
+
+        private final Map<String, Step> steps;
+        private final FRListener<LogoutResult> listener;
+        private final Map<String, LogoutResult.Status> status = new LinkedHashMap<>();
+        private final Map<String, Exception> exceptions = new LinkedHashMap<>();
+        private ScheduledFuture<?> deadline;
+        private boolean done;
+
+        private Execution(Map<String, Step> steps, FRListener<LogoutResult> listener) {
+            this.steps = new LinkedHashMap<>(steps);
+            this.listener = listener;
+        }
+
+        private void start() {
+            if (steps.isEmpty()) {
+                complete();
+                return;
+            }
+            if (timeout > 0) {
+                synchronized (this) {
+                    deadline = scheduler.schedule(this::expire, timeout, TimeUnit.MILLISECONDS);
+                }
+            }
+            for (Map.Entry<String, Step> entry : steps.entrySet()) {
+                String name = entry.getKey();
+                attempt(name, entry.getValue(), new FRListener<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        record(name, LogoutResult.Status.SUCCESS, null);
+                    }
+
+                    @Override
+                    public void onException(Exception e) {
+                        record(name, LogoutResult.Status.FAILED, e);
+                    }
+                });
+            }
+        }
+
+        private void record(String name, LogoutResult.Status result, Exception e) {
+            synchronized (this) {
+                if (done) {
+                    Logger.debug(TAG, "%s completed after the deadline: %s", name, result);
+                    return;
+                }
+                status.put(name, result);
+                if (e != null) {
+                    exceptions.put(name, e);
+                }
+                if (status.size() < steps.size()) {
+                    return;
+                }
+            }
+            complete();
+        }
+
+        private void expire() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                for (String name : steps.keySet()) {
+                    if (!status.containsKey(name)) {
+                        status.put(name, LogoutResult.Status.TIMEOUT);
+                        exceptions.put(name, new TimeoutException(name + " did not complete in " + timeout + " ms."));
+                    }
+                }
+            }
+            complete();
+        }
+
+        private void complete() {
+            LogoutResult result;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                //Report the steps in the order they are defined
+                Map<String, LogoutResult.Status> ordered = new LinkedHashMap<>();
+                for (String name : steps.keySet()) {
+                    if (status.containsKey(name)) {
+                        ordered.put(name, status.get(name));
+                    }
+                }
+                result = new LogoutResult(ordered, exceptions);
+            }
+            Listener.onSuccess(listener, result);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.ToString;
+
+/**
+ * Result of the logout, with the outcome of each server call performed to close the session.
+ * The steps are identified by the {@link Action} type, {@link Action#REVOKE_TOKEN}, {@link Action#END_SESSION}
+ * and {@link Action#LOGOUT}.
+ */
+@ToString
+public class LogoutResult {
+
+    /**
+     * Outcome of a logout step.
+     */
+    public enum Status {
+        /**
+         * The server call succeeded.
+         */
+        SUCCESS,
+        /**
+         * The server call failed.
+         */
+        FAILED,
+        /**
+         * The server call did not complete before the deadline.
+         */
+        TIMEOUT,
+        /**
+         * The server call is not required, e.g. there is no SSO Token to logout.
+         */
+        SKIPPED
+    }
+
+    private final Map<String, Status> steps;
+    private final Map<String, Exception> exceptions;
+
+    LogoutResult(Map<String, Status> steps, Map<String, Exception> exceptions) {
+        this.steps = Collections.unmodifiableMap(new LinkedHashMap<>(steps));
+        this.exceptions = Collections.unmodifiableMap(new LinkedHashMap<>(exceptions));
+    }
+
+    /**
+     * Retrieve the outcome of all performed steps.
+     *
+     * @return The outcome of the steps keyed by the {@link Action} type
+     */
+    public Map<String, Status> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Retrieve the outcome of a step.
+     *
+     * @param step The {@link Action} type of the step
+     * @return The outcome, {@link Status#SKIPPED} if the step was not performed.
+     */
+    public Status getStatus(String step) {
+        Status status = steps.get(step);
+        return status == null ? Status.SKIPPED : status;
+    }
+
+    /**
+     * Retrieve the cause of a failed or timed out step.
+     *
+     * @param step The {@link Action} type of the step
+     * @return The cause, null if the step did not fail.
+     */
+    public Exception getException(String step) {
+        return exceptions.get(step);
+    }
+
+    /**
+     * Check if all the performed steps succeeded.
+     *
+     * @return True if no step failed or timed out.
+     */
+    public boolean isSuccess() {
+        return exceptions.isEmpty();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -52,7 +52,7 @@ public class Node implements Serializable {
         }
         JSONArray array = new JSONArray();
         for (Callback cb : callbacks) {
-            array.put(new JSONObject(cb.getContent()));
+            array.put(cb.toJsonObject());
         }
         jsonObject.put("callbacks", array);
         return jsonObject;
@@ -73,17 +73,16 @@ public interface NodeListener<T> extends FRListener<T> {
         for (int i = 0; i < jsonArray.length(); i++) {
             JSONObject cb = jsonArray.getJSONObject(i);
             String type = cb.getString("type");
-            // Return the Callback Class which represent the Callback from AM
-            Class<? extends Callback> clazz = CallbackFactory.getInstance().getCallbacks().get(type);
-            if (clazz == null) {
+            // Create the Callback which represent the Callback from AM
+            Callback callback = CallbackFactory.getInstance().create(type, cb, i);
+            if (callback == null) {
                 //When Callback is not registered to the SDK
                 throw new UnsupportedCallbackException(null, "Callback Type Not Supported: " + cb.getString("type"));
             }
-            Callback callback = clazz.getConstructor(JSONObject.class, int.class).newInstance(cb, i);
             if (callback instanceof DerivableCallback) {
                 Class<? extends Callback> derivedClass = ((DerivableCallback) callback).getDerivedCallback();
                 if (derivedClass != null) {
-                    callback = derivedClass.getConstructor(JSONObject.class, int.class).newInstance(cb, i);
+                    callback = CallbackFactory.getInstance().create(derivedClass, cb, i);
                 } else {
                     Logger.debug(TAG, "Derive class not found.");
                 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -24,6 +24,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Collections;
 import java.util.Map;
 
 import lombok.Getter;
@@ -90,19 +91,29 @@ public class OAuth2Client {
     public void exchangeToken(@NonNull SSOToken token,
                               @NonNull Map<String, String> additionalParameters,
                               final FRListener<AccessToken> listener) {
+        exchangeToken(token, scope, additionalParameters, listener);
+    }
+
+    /**
+     * Sends an authorization request to the authorization service with the requested scope.
+     *
+     * @param token                The SSO Token received with the result of {@link AuthService}
+     * @param scope                The requested scope, space delimited
+     * @param additionalParameters Additional parameters for inclusion in the authorization endpoint
+     *                             request
+     * @param listener             Listener that listens to changes resulting from OAuth endpoints .
+     */
+    public void exchangeToken(@NonNull SSOToken token,
+                              @NonNull String scope,
+                              @NonNull Map<String, String> additionalParameters,
+                              final FRListener<AccessToken> listener) {
         Logger.debug(TAG, "Exchanging Access Token with SSO Token.");
         final OAuth2ResponseHandler handler = new OAuth2ResponseHandler();
         try {
-            FormBody.Builder builder = new FormBody.Builder();
-
-            if (scope != null) {
-                builder.add(OAuth2.SCOPE, scope);
-            }
-
             final PKCE pkce = generateCodeChallenge();
 
             okhttp3.Request request = new okhttp3.Request.Builder()
-                    .url(getAuthorizeUrl(token, pkce, additionalParameters))
+                    .url(getAuthorizeUrl(token, scope, pkce, additionalParameters))
                     .get()
                     .header(ACCEPT_API_VERSION, ServerConfig.API_VERSION_2_1)
                     .tag(AUTHORIZE)
@@ -145,6 +156,23 @@ public class OAuth2Client {
      * @param listener     Listen for endpoint event
      */
     public void refresh(@Nullable SSOToken sessionToken, @NonNull String refreshToken, final FRListener<AccessToken> listener) {
+        refresh(sessionToken, refreshToken, scope, Collections.emptyMap(), listener);
+    }
+
+    /**
+     * Refresh the Access Token with the provided Refresh Token and the requested scope
+     *
+     * @param sessionToken         The Session Token that bind to existing AccessToken
+     * @param refreshToken         The Refresh Token that use to refresh the Access Token
+     * @param scope                The requested scope, space delimited
+     * @param additionalParameters Additional parameters for inclusion in the token endpoint request
+     * @param listener             Listen for endpoint event
+     */
+    public void refresh(@Nullable SSOToken sessionToken,
+                        @NonNull String refreshToken,
+                        @Nullable String scope,
+                        @NonNull Map<String, String> additionalParameters,
+                        final FRListener<AccessToken> listener) {
         Logger.debug(TAG, "Refreshing Access Token");
 
         final OAuth2ResponseHandler handler = new OAuth2ResponseHandler();
@@ -155,6 +183,10 @@ public class OAuth2Client {
                 builder.add(OAuth2.SCOPE, scope);
             }
 
+            for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+
             RequestBody body = builder.add(OAuth2.CLIENT_ID, clientId)
                     .add(OAuth2.GRANT_TYPE, OAuth2.REFRESH_TOKEN)
                     .add(OAuth2.RESPONSE_TYPE, responseType)
@@ -197,42 +229,51 @@ public class OAuth2Client {
      */
     public void revoke(@NonNull AccessToken accessToken, final FRListener<Void> listener) {
         Logger.debug(TAG, "Revoking Access Token & Refresh Token");
-        final OAuth2ResponseHandler handler = new OAuth2ResponseHandler();
+        okhttp3.Request request;
         try {
-            FormBody.Builder builder = new FormBody.Builder();
-
-            String token = accessToken.getRefreshToken() == null ? accessToken.getValue() : accessToken.getRefreshToken();
-
-            RequestBody body = builder
-                    .add(OAuth2.CLIENT_ID, clientId)
-                    .add(OAuth2.TOKEN, token)
-                    .build();
-
-            okhttp3.Request request = new okhttp3.Request.Builder()
-                    .url(getRevokeUrl())
-                    .post(body)
-                    .header(CONTENT_TYPE, APPLICATION_X_WWW_FORM_URLENCODED)
-                    .header(ACCEPT_API_VERSION, ServerConfig.API_VERSION_2_1)
-                    .tag(REVOKE_TOKEN)
-                    .build();
-
+            request = getRevokeRequest(accessToken);
+        } catch (MalformedURLException e) {
+            Listener.onException(listener, e);
+            return;
+        }
 
-            getOkHttpClient().newCall(request).enqueue(new okhttp3.Callback() {
+        final OAuth2ResponseHandler handler = new OAuth2ResponseHandler();
+        getOkHttpClient().newCall(request).enqueue(new okhttp3.Callback() {
 
-                @Override
-                public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                    Listener.onException(listener, e);
-                }
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                Listener.onException(listener, e);
+            }
 
-                @Override
-                public void onResponse(@NotNull Call call, @NotNull Response response) {
-                    handler.handleRevokeResponse(response, listener);
-                }
-            });
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                handler.handleRevokeResponse(response, listener);
+            }
+        });
+    }
 
-        } catch (IOException e) {
-            Listener.onException(listener, e);
-        }
+    /**
+     * Build the request to revoke the AccessToken, the refresh token is revoked if provided, otherwise
+     * the access token.
+     *
+     * @param accessToken The AccessToken to be revoked
+     * @return The revoke request
+     */
+    okhttp3.Request getRevokeRequest(@NonNull AccessToken accessToken) throws MalformedURLException {
+        String token = accessToken.getRefreshToken() == null ? accessToken.getValue() : accessToken.getRefreshToken();
+
+        RequestBody body = new FormBody.Builder()
+                .add(OAuth2.CLIENT_ID, clientId)
+                .add(OAuth2.TOKEN, token)
+                .build();
+
+        return new okhttp3.Request.Builder()
+                .url(getRevokeUrl())
+                .post(body)
+                .header(CONTENT_TYPE, APPLICATION_X_WWW_FORM_URLENCODED)
+                .header(ACCEPT_API_VERSION, ServerConfig.API_VERSION_2_1)
+                .tag(REVOKE_TOKEN)
+                .build();
     }
 
     /**
@@ -243,13 +284,9 @@ public class OAuth2Client {
      */
     public void endSession(@NonNull String idToken, FRListener<Void> listener) {
 
-        okhttp3.Request request = null;
+        okhttp3.Request request;
         try {
-            request = new okhttp3.Request.Builder()
-                    .url(getEndSessionUrl(clientId, idToken))
-                    .get()
-                    .tag(END_SESSION)
-                    .build();
+            request = getEndSessionRequest(idToken);
         } catch (MalformedURLException e) {
             Listener.onException(listener, e);
             return;
@@ -270,7 +307,21 @@ public class OAuth2Client {
         });
     }
 
-    private OkHttpClient getOkHttpClient() {
+    /**
+     * Build the request to end the user session with end session endpoint.
+     *
+     * @param idToken The ID_TOKEN which associated with the user session.
+     * @return The end session request
+     */
+    okhttp3.Request getEndSessionRequest(@NonNull String idToken) throws MalformedURLException {
+        return new okhttp3.Request.Builder()
+                .url(getEndSessionUrl(clientId, idToken))
+                .get()
+                .tag(END_SESSION)
+                .build();
+    }
+
+    OkHttpClient getOkHttpClient() {
         if (okHttpClient == null) {
             okHttpClient = OkHttpClientProvider.getInstance().lookup(serverConfig);
         }
@@ -335,7 +386,7 @@ public class OAuth2Client {
         }
     }
 
-    private URL getAuthorizeUrl(Token token, PKCE pkce, Map<String, String> additionalParameters) throws MalformedURLException, UnsupportedEncodingException {
+    private URL getAuthorizeUrl(Token token, String scope, PKCE pkce, Map<String, String> additionalParameters) throws MalformedURLException, UnsupportedEncodingException {
         Uri.Builder builder = Uri.parse(getAuthorizeUrl().toString()).buildUpon();
         for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
             builder.appendQueryParameter(entry.getKey(), entry.getValue());
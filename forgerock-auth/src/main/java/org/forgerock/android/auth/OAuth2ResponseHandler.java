@@ -8,13 +8,17 @@
 package org.forgerock.android.auth;
 
 import android.net.Uri;
+import android.util.JsonReader;
 
 import okhttp3.Response;
 
 import org.forgerock.android.auth.exception.ApiException;
 import org.forgerock.android.auth.exception.AuthenticationException;
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.util.Objects;
 
@@ -56,16 +60,22 @@ class OAuth2ResponseHandler implements ResponseHandler {
     void handleTokenResponse(SSOToken sessionToken, Response response, String origRefreshToken, FRListener<AccessToken> listener) {
         if (response.isSuccessful()) {
             try {
-                JSONObject jsonObject = new JSONObject(response.body().string());
-                Listener.onSuccess(listener, AccessToken.builder()
-                        .idToken(jsonObject.optString(ID_TOKEN, null))
-                        .value(jsonObject.getString(ACCESS_TOKEN))
-                        .refreshToken(jsonObject.optString(REFRESH_TOKEN, origRefreshToken))
-                        .scope(AccessToken.Scope.parse(jsonObject.optString(SCOPE, null)))
-                        .tokenType(jsonObject.optString(TOKEN_TYPE, null))
-                        .expiresIn(jsonObject.optLong(EXPIRES_IN, 0))
-                        .sessionToken(sessionToken)
-                        .build());
+                AccessToken accessToken;
+                if (Config.getInstance().isStreamingJson()) {
+                    accessToken = readAccessToken(sessionToken, response.body().charStream(), origRefreshToken);
+                } else {
+                    JSONObject jsonObject = getJson(response);
+                    accessToken = AccessToken.builder()
+                            .idToken(jsonObject.optString(ID_TOKEN, null))
+                            .value(jsonObject.getString(ACCESS_TOKEN))
+                            .refreshToken(jsonObject.optString(REFRESH_TOKEN, origRefreshToken))
+                            .scope(AccessToken.Scope.parse(jsonObject.optString(SCOPE, null)))
+                            .tokenType(jsonObject.optString(TOKEN_TYPE, null))
+                            .expiresIn(jsonObject.optLong(EXPIRES_IN, 0))
+                            .sessionToken(sessionToken)
+                            .build();
+                }
+                Listener.onSuccess(listener, accessToken);
             } catch (Exception e) {
                 Listener.onException(listener, e);
             }
@@ -74,6 +84,62 @@ class OAuth2ResponseHandler implements ResponseHandler {
         }
     }
 
+    /**
+     * Read the {@link AccessToken} from the Token response stream, without building the {@link JSONObject}.
+     *
+     * @param sessionToken     The SSO Token bound to the {@link AccessToken}
+     * @param in               The Token response body
+     * @param origRefreshToken The Refresh Token to keep if the response does not contain one
+     * @return The {@link AccessToken}
+     * @throws IOException   Failed to read the response
+     * @throws JSONException The response is not a valid Token response
+     */
+    private static AccessToken readAccessToken(SSOToken sessionToken, Reader in, String origRefreshToken)
+            throws IOException, JSONException {
+        AccessToken.AccessTokenBuilder builder = AccessToken.builder()
+                .refreshToken(origRefreshToken)
+                .sessionToken(sessionToken);
+        String value = null;
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case ACCESS_TOKEN:
+                        value = JsonStreamParser.nextString(reader);
+                        break;
+                    case ID_TOKEN:
+                        builder.idToken(JsonStreamParser.nextString(reader));
+                        break;
+                    case REFRESH_TOKEN:
+                        String refreshToken = JsonStreamParser.nextString(reader);
+                        if (refreshToken != null) {
+                            builder.refreshToken(refreshToken);
+                        }
+                        break;
+                    case SCOPE:
+                        builder.scope(AccessToken.Scope.parse(JsonStreamParser.nextString(reader)));
+                        break;
+                    case TOKEN_TYPE:
+                        builder.tokenType(JsonStreamParser.nextString(reader));
+                        break;
+                    case EXPIRES_IN:
+                        builder.expiresIn(JsonStreamParser.nextLong(reader, 0));
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            //JsonReader throws IllegalStateException for unexpected token
+            throw new JSONException(e.getMessage());
+        }
+        if (value == null) {
+            throw new JSONException("No value for " + ACCESS_TOKEN);
+        }
+        return builder.value(value).build();
+    }
+
     /**
      * Handle revoke token response
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -22,13 +22,23 @@ class OAuthInterceptor implements Interceptor<SSOToken> {
 
     private final SessionManager sessionManager;
 
+    /**
+     * The {@link TokenKey} of the down-scoped {@link AccessToken}, null for the {@link AccessToken}
+     * with the configured scope.
+     */
+    private final TokenKey key;
+
+    OAuthInterceptor(SessionManager sessionManager) {
+        this(sessionManager, null);
+    }
+
     @Override
     public void intercept(final Chain chain, SSOToken token) {
         if (token == null) {
             Listener.onException(chain.getListener(), new AuthenticationRequiredException("Authentication Required."));
             return;
         }
-        sessionManager.getTokenManager().exchangeToken(token, Collections.emptyMap(), new FRListener<AccessToken>() {
+        FRListener<AccessToken> listener = new FRListener<AccessToken>() {
             @Override
             public void onSuccess(AccessToken accessToken) {
                 chain.proceed(accessToken);
@@ -36,7 +46,8 @@ class OAuthInterceptor implements Interceptor<SSOToken> {
 
             @Override
             public void onException(Exception e) {
-                if (e instanceof AuthorizeException) {
+                //The requested scope may be denied for a valid session, keep the SSOToken for down-scoped request
+                if (e instanceof AuthorizeException && key == null) {
                     //We clean up the SSOToken if we are not able to use the SSOToken to exchange authorization code.
                     sessionManager.getSingleSignOnManager().clear();
                    Listener.onException(chain.getListener(), new AuthenticationRequiredException(e));
@@ -44,6 +55,11 @@ class OAuthInterceptor implements Interceptor<SSOToken> {
                     Listener.onException(chain.getListener(), e);
                 }
             }
-        });
+        };
+        if (key == null) {
+            sessionManager.getTokenManager().exchangeToken(token, Collections.emptyMap(), listener);
+        } else {
+            sessionManager.getTokenManager().exchangeToken(token, key, Collections.emptyMap(), listener);
+        }
     }
 }
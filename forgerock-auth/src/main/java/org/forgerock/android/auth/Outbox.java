@@ -0,0 +1,482 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Process;
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Builder;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Durable queue of idempotent server calls which are not urgent, e.g. token revocation, end session and
+ * session logout. The calls are persisted encrypted, so they survive when the device is offline or the
+ * application is terminated, and are sent in batches when the network is available.
+ *
+ * <p>
+ * The calls are sent one at a time from a single low priority thread, they do not take a slot of the shared
+ * {@link okhttp3.Dispatcher} and wait while interactive calls are in flight. A call failed with a transient error
+ * (network error, HTTP 429 or 5xx) is retried with exponential backoff, up to {@link #MAX_ATTEMPTS} attempts.
+ * Other failures are not retried.
+ */
+class Outbox {
+
+    private static final String TAG = Outbox.class.getSimpleName();
+
+    static final String ORG_FORGEROCK_V_1_OUTBOX = "org.forgerock.v1.OUTBOX";
+    static final String ORG_FORGEROCK_V_1_OUTBOX_KEYS = "org.forgerock.v1.OUTBOX_KEYS";
+
+    static final int MAX_ATTEMPTS = 8;
+    static final int BATCH_SIZE = 16;
+    static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF = TimeUnit.HOURS.toMillis(1);
+    //Calls are discarded when they cannot be sent within this duration
+    static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+    //Delay to collect the calls into a batch, or to wait for the interactive calls to complete
+    static final long FLUSH_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final String ACTION = "action";
+    private static final String METHOD = "method";
+    private static final String URL = "url";
+    private static final String HEADERS = "headers";
+    private static final String BODY = "body";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String ATTEMPTS = "attempts";
+    private static final String NEXT_ATTEMPT = "nextAttempt";
+    private static final String CREATED = "created";
+
+    private static final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            r.run();
+        }, Outbox.class.getSimpleName());
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    private final ServerConfig serverConfig;
+    private final SharedPreferences sharedPreferences;
+    private final long initialBackoff;
+    private final Object drainLock = new Object();
+    private ScheduledFuture<?> scheduled;
+    private long scheduledAt;
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    /**
+     * @param context           The Application Context
+     * @param serverConfig      The {@link ServerConfig} to send the calls
+     * @param sharedPreferences The storage of the calls, default to encrypted {@link SecuredSharedPreferences}
+     * @param encryptor         The {@link Encryptor} of the default storage, default to the device Encryptor
+     * @param initialBackoff    The delay in milliseconds before the first retry, doubled on each retry.
+     */
+    @Builder
+    private Outbox(@NonNull Context context,
+                   @NonNull ServerConfig serverConfig,
+                   SharedPreferences sharedPreferences,
+                   Encryptor encryptor,
+                   Long initialBackoff) {
+        this.context = context.getApplicationContext();
+        this.serverConfig = serverConfig;
+        this.sharedPreferences = sharedPreferences == null ? new SecuredSharedPreferences(context,
+                ORG_FORGEROCK_V_1_OUTBOX, ORG_FORGEROCK_V_1_OUTBOX_KEYS, encryptor) : sharedPreferences;
+        this.initialBackoff = initialBackoff == null ? INITIAL_BACKOFF : initialBackoff;
+    }
+
+    /**
+     * Queue the call, it is sent in the background with the next batch.
+     *
+     * @param request The request of the call, the request body should not be a stream.
+     */
+    void add(Request request) {
+        add(request, 0);
+    }
+
+    /**
+     * Queue a call which has already been attempted, it is sent after the backoff delay.
+     *
+     * @param request  The request of the call, the request body should not be a stream.
+     * @param attempts The number of attempts already made
+     */
+    void add(Request request, int attempts) {
+        if (attempts >= MAX_ATTEMPTS) {
+            Logger.warn(TAG, "%s discarded after %d attempts", getAction(request), attempts);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long nextAttempt = attempts == 0 ? now : now + backoff(attempts);
+        try {
+            sharedPreferences.edit()
+                    .putString(UUID.randomUUID().toString(), toJson(request, attempts, nextAttempt, now).toString())
+                    .apply();
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Failed to queue %s", getAction(request));
+            return;
+        }
+        Logger.debug(TAG, "%s queued", getAction(request));
+        schedule(Math.max(FLUSH_DELAY, nextAttempt - now));
+    }
+
+    /**
+     * Send the due calls in the background.
+     */
+    void flush() {
+        schedule(0);
+    }
+
+    /**
+     * Number of queued calls.
+     *
+     * @return The number of queued calls
+     */
+    int size() {
+        return sharedPreferences.getAll().size();
+    }
+
+    /**
+     * Discard all queued calls.
+     */
+    void clear() {
+        sharedPreferences.edit().clear().apply();
+    }
+
+    private synchronized void schedule(long delay) {
+        long at = System.currentTimeMillis() + delay;
+        if (scheduled != null && !scheduled.isDone() && scheduledAt <= at) {
+            return;
+        }
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduledAt = at;
+        scheduled = dispatcher.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        //The running task no longer holds the schedule, so the batch can schedule the next one
+        synchronized (this) {
+            scheduled = null;
+            scheduledAt = 0;
+        }
+        drain();
+    }
+
+    /**
+     * Send a batch of the due calls and schedule the next batch, runs on the Outbox thread.
+     */
+    @VisibleForTesting
+    void drain() {
+        synchronized (drainLock) {
+            drainBatch();
+        }
+    }
+
+    private void drainBatch() {
+        if (!isConnected()) {
+            Logger.debug(TAG, "Network is not available, wait for connectivity.");
+            listenForConnectivity();
+            return;
+        }
+
+        OkHttpClient client = OkHttpClientProvider.getInstance().lookup(serverConfig);
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        int sent = 0;
+
+        for (Entry entry : load()) {
+            if (now - entry.created >= MAX_AGE) {
+                Logger.warn(TAG, "%s expired, discarded", entry.action);
+                remove(entry.id);
+                continue;
+            }
+            if (entry.nextAttempt > now) {
+                next = Math.min(next, entry.nextAttempt);
+                continue;
+            }
+            //Interactive calls always win, resume when they complete
+            if (sent >= BATCH_SIZE || client.dispatcher().runningCallsCount() > 0) {
+                next = now;
+                break;
+            }
+            sent++;
+            if (!send(client, entry)) {
+                //Stop the batch, the network is gone
+                next = Long.MAX_VALUE;
+                break;
+            }
+            if (entry.nextAttempt > now) {
+                next = Math.min(next, entry.nextAttempt);
+            }
+        }
+
+        if (next != Long.MAX_VALUE) {
+            schedule(Math.max(FLUSH_DELAY, next - now));
+        }
+    }
+
+    /**
+     * Send a single call.
+     *
+     * @return False if the network is not available.
+     */
+    private boolean send(OkHttpClient client, Entry entry) {
+        Request request;
+        try {
+            request = entry.toRequest();
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Discard invalid call %s", entry.id);
+            remove(entry.id);
+            return true;
+        }
+        try (Response response = client.newCall(request).execute()) {
+            int code = response.code();
+            if (response.isSuccessful()) {
+                Logger.debug(TAG, "%s sent", entry.action);
+                remove(entry.id);
+            } else if (code == HTTP_TOO_MANY_REQUESTS || code >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                retry(entry);
+            } else {
+                Logger.warn(TAG, "%s rejected with %d, discarded", entry.action, code);
+                remove(entry.id);
+            }
+            return true;
+        } catch (IOException e) {
+            Logger.warn(TAG, e, "Failed to send %s", entry.action);
+            retry(entry);
+            if (!isConnected()) {
+                listenForConnectivity();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void retry(Entry entry) {
+        entry.attempts++;
+        if (entry.attempts >= MAX_ATTEMPTS) {
+            Logger.warn(TAG, "%s discarded after %d attempts", entry.action, entry.attempts);
+            remove(entry.id);
+            return;
+        }
+        entry.nextAttempt = System.currentTimeMillis() + backoff(entry.attempts);
+        try {
+            sharedPreferences.edit().putString(entry.id, entry.toJson().toString()).apply();
+        } catch (JSONException e) {
+            remove(entry.id);
+        }
+    }
+
+    private long backoff(int attempts) {
+        return Math.min(MAX_BACKOFF, initialBackoff << Math.min(attempts - 1, 16));
+    }
+
+    private void remove(String id) {
+        sharedPreferences.edit().remove(id).apply();
+    }
+
+    /**
+     * Load the queued calls ordered by the creation time, invalid calls are discarded.
+     */
+    private List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        for (String id : sharedPreferences.getAll().keySet()) {
+            try {
+                entries.add(Entry.fromJson(id, new JSONObject(sharedPreferences.getString(id, null))));
+            } catch (Exception e) {
+                Logger.warn(TAG, e, "Discard invalid call %s", id);
+                remove(id);
+            }
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.created, b.created));
+        return entries;
+    }
+
+    private boolean isConnected() {
+        try {
+            ConnectivityManager connectivityManager = (ConnectivityManager) context
+                    .getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivityManager == null) {
+                return true;
+            }
+            NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+            return networkInfo != null && networkInfo.isConnected();
+        } catch (SecurityException e) {
+            //Assume connected without the ACCESS_NETWORK_STATE permission
+            return true;
+        }
+    }
+
+    /**
+     * Flush the queued calls once the network is available.
+     */
+    private synchronized void listenForConnectivity() {
+        if (networkCallback != null) {
+            return;
+        }
+        ConnectivityManager connectivityManager = (ConnectivityManager) context
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                Logger.debug(TAG, "Network is available, flush the queued calls.");
+                synchronized (Outbox.this) {
+                    if (networkCallback == this) {
+                        connectivityManager.unregisterNetworkCallback(this);
+                        networkCallback = null;
+                    }
+                }
+                flush();
+            }
+        };
+        try {
+            connectivityManager.registerNetworkCallback(new NetworkRequest.Builder()
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build(), networkCallback);
+        } catch (SecurityException e) {
+            Logger.warn(TAG, e, "Failed to listen for connectivity");
+            networkCallback = null;
+        }
+    }
+
+    private static String getAction(Request request) {
+        Object tag = request.tag();
+        return tag instanceof Action ? ((Action) tag).getType() : request.url().encodedPath();
+    }
+
+    private static JSONObject toJson(Request request, int attempts, long nextAttempt, long created)
+            throws IOException, JSONException {
+        Entry entry = new Entry();
+        entry.action = getAction(request);
+        entry.method = request.method();
+        entry.url = request.url().toString();
+        entry.headers = request.headers();
+        RequestBody body = request.body();
+        if (body != null) {
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            entry.body = buffer.readByteArray();
+            MediaType contentType = body.contentType();
+            entry.contentType = contentType == null ? null : contentType.toString();
+        }
+        entry.attempts = attempts;
+        entry.nextAttempt = nextAttempt;
+        entry.created = created;
+        return entry.toJson();
+    }
+
+    /**
+     * A queued call
+     */
+    private static class Entry {
+
+        private String id;
+        private String action;
+        private String method;
+        private String url;
+        private Headers headers;
+        private byte[] body;
+        private String contentType;
+        private int attempts;
+        private long nextAttempt;
+        private long created;
+
+        private Request toRequest() {
+            RequestBody requestBody = null;
+            if (body != null) {
+                requestBody = RequestBody.create(body, contentType == null ? null : MediaType.parse(contentType));
+            }
+            return new Request.Builder()
+                    .url(url)
+                    .headers(headers)
+                    .method(method, requestBody)
+                    .tag(new Action(action))
+                    .build();
+        }
+
+        private JSONObject toJson() throws JSONException {
+            JSONArray headerArray = new JSONArray();
+            for (int i = 0; i < headers.size(); i++) {
+                headerArray.put(new JSONArray().put(headers.name(i)).put(headers.value(i)));
+            }
+            JSONObject json = new JSONObject()
+                    .put(ACTION, action)
+                    .put(METHOD, method)
+                    .put(URL, url)
+                    .put(HEADERS, headerArray)
+                    .put(ATTEMPTS, attempts)
+                    .put(NEXT_ATTEMPT, nextAttempt)
+                    .put(CREATED, created);
+            if (body != null) {
+                json.put(BODY, Base64.encodeToString(body, Base64.NO_WRAP));
+            }
+            if (contentType != null) {
+                json.put(CONTENT_TYPE, contentType);
+            }
+            return json;
+        }
+
+        private static Entry fromJson(String id, JSONObject json) throws JSONException {
+            Entry entry = new Entry();
+            entry.id = id;
+            entry.action = json.getString(ACTION);
+            entry.method = json.getString(METHOD);
+            entry.url = json.getString(URL);
+            Headers.Builder builder = new Headers.Builder();
+            JSONArray headerArray = json.getJSONArray(HEADERS);
+            for (int i = 0; i < headerArray.length(); i++) {
+                JSONArray header = headerArray.getJSONArray(i);
+                builder.add(header.getString(0), header.getString(1));
+            }
+            entry.headers = builder.build();
+            String body = json.optString(BODY, null);
+            entry.body = body == null ? null : Base64.decode(body, Base64.NO_WRAP);
+            entry.contentType = json.optString(CONTENT_TYPE, null);
+            entry.attempts = json.getInt(ATTEMPTS);
+            entry.nextAttempt = json.getLong(NEXT_ATTEMPT);
+            entry.created = json.getLong(CREATED);
+            return entry;
+        }
+    }
+}
@@ -11,7 +11,10 @@ import okhttp3.Response;
 
 import org.forgerock.android.auth.exception.ApiException;
 import org.forgerock.android.auth.exception.AuthenticationException;
+import org.json.JSONException;
+import org.json.JSONObject;
 
+import java.io.IOException;
 import java.net.HttpURLConnection;
 
 interface ResponseHandler {
@@ -32,6 +35,20 @@ interface ResponseHandler {
     }
 
 
+    /**
+     * Parse the response body as {@link JSONObject}. When streaming JSON parsing is enabled with
+     * {@link Config#isStreamingJson()}, the body is parsed from the stream without reading it as a String first.
+     *
+     * @param response API Response
+     * @return The response body as JSONObject
+     */
+    default JSONObject getJson(Response response) throws IOException, JSONException {
+        if (Config.getInstance().isStreamingJson()) {
+            return JsonStreamParser.parse(response.body().charStream());
+        }
+        return new JSONObject(response.body().string());
+    }
+
     default String getBody(Response response) {
         try {
             return response.body().string();
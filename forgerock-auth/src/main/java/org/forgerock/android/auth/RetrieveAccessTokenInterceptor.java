@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -20,18 +20,29 @@ class RetrieveAccessTokenInterceptor implements Interceptor<SSOToken> {
 
     private final TokenManager tokenManager;
 
+    /**
+     * The {@link TokenKey} of the down-scoped {@link AccessToken}, null for the {@link AccessToken}
+     * with the configured scope.
+     */
+    private final TokenKey key;
+
+    RetrieveAccessTokenInterceptor(TokenManager tokenManager) {
+        this(tokenManager, null);
+    }
+
     @Override
     public void intercept(final Chain chain, final SSOToken sessionToken) {
 
         //With Verifier to verify the token is associated with the Session Token
-        tokenManager.getAccessToken(accessToken -> {
+        AccessTokenVerifier verifier = accessToken -> {
             if (sessionToken == null && accessToken.getSessionToken() == null) {
                 return true;
             } else {
                 return accessToken.getSessionToken() != null &&
                         accessToken.getSessionToken().equals(sessionToken);
             }
-        }, new FRListener<AccessToken>() {
+        };
+        FRListener<AccessToken> listener = new FRListener<AccessToken>() {
             @Override
             public void onSuccess(AccessToken result) {
                 //We don't have to proceed to next, we have the AccessToken already
@@ -50,6 +61,11 @@ class RetrieveAccessTokenInterceptor implements Interceptor<SSOToken> {
                     Listener.onException(chain.getListener(), e);
                 }
             }
-        });
+        };
+        if (key == null) {
+            tokenManager.getAccessToken(verifier, listener);
+        } else {
+            tokenManager.getAccessToken(key, verifier, listener);
+        }
     }
 }
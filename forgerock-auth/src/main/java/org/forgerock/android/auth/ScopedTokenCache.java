@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.annotation.SuppressLint;
+import android.content.SharedPreferences;
+import android.util.Base64;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Least recently used cache of the down-scoped {@link AccessToken}s, keyed by {@link TokenKey}.
+ *
+ * <p>
+ * The {@link AccessToken}s are persisted with the same {@link SharedPreferences} as the primary {@link AccessToken},
+ * under a hash of the {@link TokenKey}, and loaded on first use. An expired {@link AccessToken} is kept as long as it
+ * can be refreshed, and the least recently used {@link AccessToken} is removed when the cache is full.
+ */
+class ScopedTokenCache {
+
+    private static final String TAG = ScopedTokenCache.class.getSimpleName();
+
+    static final String PREFIX = "scoped_access_token.";
+
+    private final SharedPreferences sharedPreferences;
+    private final int maxSize;
+    private final boolean writeBehind;
+
+    //Access ordered, the value is null when the token is persisted but not yet loaded
+    private final LinkedHashMap<String, AccessToken> tokens = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean loaded;
+
+    ScopedTokenCache(SharedPreferences sharedPreferences, int maxSize, boolean writeBehind) {
+        this.sharedPreferences = sharedPreferences;
+        this.maxSize = maxSize;
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Retrieve the {@link AccessToken} for the {@link TokenKey}.
+     *
+     * @param key The {@link TokenKey}
+     * @return The {@link AccessToken}, it may be expired, null if not found or if it expired without Refresh Token.
+     */
+    synchronized AccessToken get(TokenKey key) {
+        String name = name(key);
+        AccessToken accessToken = load(name);
+        if (accessToken != null && accessToken.isExpired() && accessToken.getRefreshToken() == null) {
+            Logger.debug(TAG, "Scoped Access Token expired: %s", key);
+            remove(key);
+            return null;
+        }
+        return accessToken;
+    }
+
+    /**
+     * Store the {@link AccessToken} for the {@link TokenKey}, the least recently used {@link AccessToken} is
+     * removed when the cache is full.
+     *
+     * @param key         The {@link TokenKey}
+     * @param accessToken The {@link AccessToken}
+     */
+    synchronized void put(TokenKey key, AccessToken accessToken) {
+        loadNames();
+        String name = name(key);
+        tokens.put(name, accessToken);
+        SharedPreferences.Editor editor = sharedPreferences.edit().putString(name, accessToken.toJson());
+        Iterator<String> iterator = tokens.keySet().iterator();
+        while (tokens.size() > maxSize && iterator.hasNext()) {
+            editor.remove(iterator.next());
+            iterator.remove();
+        }
+        save(editor);
+    }
+
+    /**
+     * Remove the {@link AccessToken} for the {@link TokenKey}.
+     *
+     * @param key The {@link TokenKey}
+     */
+    synchronized void remove(TokenKey key) {
+        String name = name(key);
+        tokens.remove(name);
+        save(sharedPreferences.edit().remove(name));
+    }
+
+    /**
+     * Remove the {@link AccessToken} for the {@link TokenKey} if it still uses the Refresh Token.
+     *
+     * @param key          The {@link TokenKey}
+     * @param refreshToken The Refresh Token
+     */
+    synchronized void remove(TokenKey key, String refreshToken) {
+        AccessToken accessToken = load(name(key));
+        if (accessToken != null && refreshToken.equals(accessToken.getRefreshToken())) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Retrieve all the stored {@link AccessToken}s.
+     *
+     * @return The stored {@link AccessToken}s
+     */
+    synchronized List<AccessToken> getAll() {
+        loadNames();
+        List<AccessToken> result = new ArrayList<>();
+        for (String name : new ArrayList<>(tokens.keySet())) {
+            AccessToken accessToken = load(name);
+            if (accessToken != null) {
+                result.add(accessToken);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discard the in memory {@link AccessToken}s, the persisted {@link AccessToken}s are removed by the owner of
+     * the {@link SharedPreferences}.
+     */
+    synchronized void reset() {
+        tokens.clear();
+        loaded = false;
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        loadNames();
+        return tokens.size();
+    }
+
+    private AccessToken load(String name) {
+        loadNames();
+        if (!tokens.containsKey(name)) {
+            return null;
+        }
+        AccessToken accessToken = tokens.get(name);
+        if (accessToken == null) {
+            String value = sharedPreferences.getString(name, null);
+            accessToken = value == null ? null : AccessToken.fromJson(value);
+            if (accessToken == null) {
+                tokens.remove(name);
+                return null;
+            }
+            tokens.put(name, accessToken);
+        }
+        return accessToken;
+    }
+
+    /**
+     * Index the persisted {@link AccessToken}s without decrypting them.
+     */
+    private void loadNames() {
+        if (loaded) {
+            return;
+        }
+        for (String name : sharedPreferences.getAll().keySet()) {
+            if (name.startsWith(PREFIX) && !tokens.containsKey(name)) {
+                tokens.put(name, null);
+            }
+        }
+        loaded = true;
+    }
+
+    @SuppressLint("ApplySharedPref")
+    private void save(SharedPreferences.Editor editor) {
+        if (writeBehind) {
+            editor.apply();
+        } else {
+            editor.commit();
+        }
+    }
+
+    private static String name(TokenKey key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.getName().getBytes(StandardCharsets.UTF_8));
+            return PREFIX + Base64.encodeToString(digest, Base64.NO_WRAP | Base64.NO_PADDING | Base64.URL_SAFE);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
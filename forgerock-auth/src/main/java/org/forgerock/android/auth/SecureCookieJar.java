@@ -11,140 +11,114 @@ import android.content.Context;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Observable;
+import java.util.Observer;
 
 import lombok.Builder;
 import okhttp3.Cookie;
 import okhttp3.CookieJar;
 import okhttp3.HttpUrl;
 
+/**
+ * {@link CookieJar} which stores the cookies with the {@link SingleSignOnManager}.
+ *
+ * <p>
+ * The stored cookies are indexed in memory with {@link CookieIndex}, and only the stored values which changed are
+ * parsed again when the index is synchronized with the storage. The index is used without reading the storage for
+ * the <b>forgerock_cookie_cache</b> interval when loading cookies for a request, the index is always synchronized with
+ * the storage before received cookies are persisted, and the cache is discarded when the tokens are removed. The
+ * cookies are only persisted when the effective set of cookies changed.
+ */
 public class SecureCookieJar implements CookieJar {
 
     private SingleSignOnManager singleSignOnManager;
-    private AtomicReference<Set<Cookie>> cacheRef = new AtomicReference<>();
-    private final long cacheIntervalMillis;
-    private static final ScheduledExecutorService worker =
-            Executors.newSingleThreadScheduledExecutor();
-    private final CookieMarshaller cookieMarshaller = new CookieMarshaller();
+    private final ExpiringReference<CookieIndex> cacheRef;
+    private final CookieIndex index = new CookieIndex(new CookieMarshaller());
 
     @Builder
     public SecureCookieJar(Context context, SingleSignOnManager singleSignOnManager, Long cacheIntervalMillis) {
         this.singleSignOnManager = singleSignOnManager == null ?
                 Config.getInstance().getSingleSignOnManager() : singleSignOnManager;
-        this.cacheIntervalMillis = cacheIntervalMillis == null ?
-                context.getResources().getInteger(R.integer.forgerock_cookie_cache) * 1000 : cacheIntervalMillis;
+        this.cacheRef = new ExpiringReference<>(cacheIntervalMillis == null ?
+                context.getResources().getInteger(R.integer.forgerock_cookie_cache) * 1000 : cacheIntervalMillis, true);
+        EventDispatcher.TOKEN_REMOVED.addObserver(new CacheInvalidator(cacheRef));
     }
 
     @NotNull
     @Override
     public synchronized List<Cookie> loadForRequest(@NotNull HttpUrl httpUrl) {
-
-        Set<Cookie> cookies = cacheRef.get();
-        if (cookies == null) {
-            cookies = new HashSet<>();
-            Collection<String> storedCookies = singleSignOnManager.getCookies();
-            if (!storedCookies.isEmpty()) {
-                Set<String> updatedCookies = new HashSet<>(storedCookies);
-                Iterator<String> iterator = updatedCookies.iterator();
-                while (iterator.hasNext()) {
-                    Cookie cookie = cookieMarshaller.unmarshal(iterator.next());
-                    if (cookie != null) {
-                        if (!isExpired(cookie)) {
-                            cookies.add(cookie);
-                        } else {
-                            //Remove expired cookies
-                            iterator.remove();
-                        }
-                    } else {
-                        //Failed to parse it
-                        iterator.remove();
-                    }
-                }
-
-                // Some cookies are expired, or failed to parse, remove it
-                if (storedCookies.size() != updatedCookies.size()) {
-                    cache(cookies);
-                    persist(updatedCookies);
-                }
-            }
+        if (load()) {
+            // Some cookies are expired, or failed to parse, remove it
+            persist();
         }
-
-        return filter(httpUrl, cookies);
+        return index.match(httpUrl);
     }
 
     @Override
     public synchronized void saveFromResponse(@NotNull HttpUrl httpUrl, @NotNull List<Cookie> list) {
-
-        Set<Cookie> cookies = new HashSet<>();
-        for (String c : singleSignOnManager.getCookies()) {
-            Cookie cookie = cookieMarshaller.unmarshal(c);
-            //Remove the same stored cookies
-            if (cookie != null && !contains(cookie, list)) {
-                cookies.add(cookie);
-            }
-        }
-
+        //Do not persist the cached cookies which have been removed from the storage, e.g. after logout
+        boolean modified = sync();
         for (Cookie cookie : list) {
-            if (!isExpired(cookie)) {
-                cookies.add(cookie);
-            }
+            modified |= index.put(cookie);
         }
-
-        cache(cookies);
-
-        Set<String> updatedCookies = new HashSet<>();
-        for (Cookie cookie : cookies) {
-            updatedCookies.add(cookieMarshaller.marshal(cookie));
+        if (modified) {
+            persist();
         }
-
-        persist(updatedCookies);
     }
 
-    private boolean contains(Cookie input, Collection<Cookie> cookies) {
-        for (Cookie cookie : cookies) {
-            if (cookie.name().equals(input.name()) &&
-                    cookie.domain().equals(input.domain()) &&
-                    cookie.path().equals(input.path())) {
-                return true;
-            }
+    /**
+     * Synchronize the index with the stored cookies, unless the index has been synchronized within the cache interval.
+     *
+     * @return True if the stored cookies should be updated
+     */
+    private boolean load() {
+        if (cacheRef.get() != null) {
+            return false;
         }
-        return false;
+        return sync();
     }
 
-    private List<Cookie> filter(HttpUrl httpUrl, Set<Cookie> cookies) {
-        List<Cookie> result = new ArrayList<>();
-        for (Cookie cookie : cookies) {
-            if (!isExpired(cookie) &&
-                    cookie.matches(httpUrl)) {
-                result.add(cookie);
-            }
-        }
-        return result;
+    /**
+     * Synchronize the index with the stored cookies.
+     *
+     * @return True if the stored cookies should be updated
+     */
+    private boolean sync() {
+        boolean modified = index.load(singleSignOnManager.getCookies());
+        cacheRef.set(index);
+        return modified;
     }
 
-    private boolean isExpired(Cookie cookie) {
-        return cookie.expiresAt() < System.currentTimeMillis();
+    private void persist() {
+        Collection<String> cookies = index.values();
+        singleSignOnManager.persist(cookies);
+        FRLifecycle.dispatchCookiesUpdated(cookies);
     }
 
-    private void cache(Set<Cookie> cookies) {
-        if (cacheIntervalMillis > 0) {
-            cacheRef.set(cookies);
-            worker.schedule(() -> cacheRef.set(null), cacheIntervalMillis, TimeUnit.MILLISECONDS);
+    /**
+     * Discard the cached cookies when the tokens are removed, the observer does not keep the cache from being
+     * garbage collected and unregisters itself after the cache is collected.
+     */
+    private static class CacheInvalidator implements Observer {
+
+        private final WeakReference<ExpiringReference<?>> reference;
+
+        private CacheInvalidator(ExpiringReference<?> reference) {
+            this.reference = new WeakReference<>(reference);
         }
-    }
 
-    private void persist(Collection<String> cookies) {
-        singleSignOnManager.persist(cookies);
-        FRLifecycle.dispatchCookiesUpdated(cookies);
+        @Override
+        public void update(Observable o, Object arg) {
+            ExpiringReference<?> expiringReference = reference.get();
+            if (expiringReference == null) {
+                o.deleteObserver(this);
+            } else {
+                expiringReference.clear();
+            }
+        }
     }
 
 }
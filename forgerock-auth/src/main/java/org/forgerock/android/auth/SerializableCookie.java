@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2020 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -18,7 +18,8 @@ import lombok.Getter;
 import okhttp3.Cookie;
 
 /**
- * A Serializable {@link Cookie} Object
+ * A Serializable {@link Cookie} Object, the legacy storage format of the cookies. It is only used to read the
+ * cookies stored by previous versions, cookies are stored with the compact format of {@link CookieMarshaller}.
  */
 @Keep
 class SerializableCookie implements Serializable {
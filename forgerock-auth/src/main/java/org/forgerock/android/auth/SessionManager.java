@@ -12,29 +12,53 @@ import androidx.annotation.WorkerThread;
 
 import org.forgerock.android.auth.exception.AuthenticationRequiredException;
 
+import java.net.MalformedURLException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NonNull;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+import static org.forgerock.android.auth.StringUtils.isNotEmpty;
 
 /**
  * Manage the user session
  */
 public class SessionManager {
 
+    private static final String TAG = SessionManager.class.getSimpleName();
+
     @Getter
     private TokenManager tokenManager;
     @Getter
     private SingleSignOnManager singleSignOnManager;
     private List<Interceptor<?>> interceptors;
+    private OAuth2Client oAuth2Client;
+    private ServerConfig serverConfig;
+    private Long logoutTimeout;
 
+    /**
+     * @param tokenManager        The {@link TokenManager} to manage the OAuth2.0 tokens
+     * @param singleSignOnManager The {@link SingleSignOnManager} to manage the SSO Token
+     * @param oAuth2Client        The {@link OAuth2Client} to revoke the tokens, default to the configured client
+     * @param serverConfig        The {@link ServerConfig} to logout the session, default to the configured server
+     * @param logoutTimeout       The deadline in milliseconds for the logout server calls
+     */
     @Builder
-    public SessionManager(TokenManager tokenManager, SingleSignOnManager singleSignOnManager) {
+    public SessionManager(TokenManager tokenManager, SingleSignOnManager singleSignOnManager,
+                          OAuth2Client oAuth2Client, ServerConfig serverConfig, Long logoutTimeout) {
 
         this.tokenManager = tokenManager;
         this.singleSignOnManager = singleSignOnManager;
+        this.oAuth2Client = oAuth2Client;
+        this.serverConfig = serverConfig;
+        this.logoutTimeout = logoutTimeout;
 
         this.interceptors = Arrays.asList(
                 new RetrieveSSOTokenInterceptor(this.singleSignOnManager),
@@ -47,6 +71,25 @@ public class SessionManager {
     public AccessToken getAccessToken() throws AuthenticationRequiredException {
         FRListenerFuture<AccessToken> listener = new FRListenerFuture<>();
         getAccessToken(listener);
+        return get(listener);
+    }
+
+    /**
+     * Retrieve the down-scoped {@link AccessToken} for the {@link TokenKey}, the {@link AccessToken} is exchanged
+     * with the SSO Token if it is not cached.
+     *
+     * @param key The {@link TokenKey} with the requested scope and resource
+     * @return The {@link AccessToken}
+     * @throws AuthenticationRequiredException When failed to retrieve the {@link AccessToken}
+     */
+    @WorkerThread
+    public AccessToken getAccessToken(@NonNull TokenKey key) throws AuthenticationRequiredException {
+        FRListenerFuture<AccessToken> listener = new FRListenerFuture<>();
+        getAccessToken(key, listener);
+        return get(listener);
+    }
+
+    private AccessToken get(FRListenerFuture<AccessToken> listener) throws AuthenticationRequiredException {
         try {
             return listener.get();
         } catch (Exception e) {
@@ -77,6 +120,23 @@ public class SessionManager {
         interceptorHandler.proceed(null);
     }
 
+    /**
+     * Retrieve the down-scoped {@link AccessToken} for the {@link TokenKey}, if the {@link AccessToken} is expired,
+     * {@link AccessToken#getRefreshToken()} will be used with the requested scope.
+     *
+     * @param key      The {@link TokenKey} with the requested scope and resource
+     * @param listener The Listener to listen for the result
+     */
+    void getAccessToken(@NonNull TokenKey key, final FRListener<AccessToken> listener) {
+        List<Interceptor<?>> scopedInterceptors = Arrays.asList(
+                new RetrieveSSOTokenInterceptor(singleSignOnManager),
+                new RetrieveAccessTokenInterceptor(tokenManager, key),
+                new OAuthInterceptor(this, key),
+                new AccessTokenStoreInterceptor(tokenManager, key));
+        InterceptorHandler interceptorHandler = new InterceptorHandler(null, scopedInterceptors, listener, 0);
+        interceptorHandler.proceed(null);
+    }
+
     /**
      * Checks if a session exists
      *
@@ -90,8 +150,87 @@ public class SessionManager {
      * Close the session, all tokens will be removed.
      */
     public void close() {
-        tokenManager.revoke(null);
-        singleSignOnManager.revoke(null);
+        logout(null);
+    }
+
+    /**
+     * Logout the user, all tokens are removed locally first, then the OAuth2.0 tokens are revoked, the OpenID Connect
+     * session is ended and the SSO session is logged out in parallel. The listener is notified with the outcome of each
+     * server call once they complete or when the logout deadline is reached. Server calls failed with a transient error
+     * are retried in the background. A {@link SingleSignOnManager} other than the default one logs out the SSO
+     * session with {@link SingleSignOnManager#revoke(FRListener)}.
+     *
+     * @param listener The Listener to listen for the {@link LogoutResult}
+     */
+    public void logout(FRListener<LogoutResult> listener) {
+        Map<String, LogoutPipeline.Step> steps = new LinkedHashMap<>();
+        Outbox outbox = Config.getInstance().getOutbox();
+
+        AccessToken accessToken = tokenManager.getStoredAccessToken();
+        if (accessToken != null) {
+            OAuth2Client client = getOAuth2Client();
+            steps.put(Action.REVOKE_TOKEN, step(client.getOkHttpClient(), () -> client.getRevokeRequest(accessToken)));
+            //The OpenID Connect session is ended with the SSO session if the token is bound to it
+            if (accessToken.getSessionToken() == null && isNotEmpty(accessToken.getIdToken())) {
+                steps.put(Action.END_SESSION, step(client.getOkHttpClient(),
+                        () -> client.getEndSessionRequest(accessToken.getIdToken())));
+            }
+            //The down-scoped tokens are not urgent, revoke them in the background
+            for (AccessToken token : tokenManager.getScopedAccessTokens()) {
+                if (outbox == null) {
+                    client.revoke(token, null);
+                } else {
+                    try {
+                        outbox.add(client.getRevokeRequest(token));
+                    } catch (MalformedURLException e) {
+                        Logger.warn(TAG, e, "Failed to revoke down-scoped Access Token");
+                    }
+                }
+            }
+            tokenManager.clear();
+        } else if (tokenManager.hasToken()) {
+            //The TokenManager does not expose the stored token, let it revoke and clear the token
+            steps.put(Action.REVOKE_TOKEN, tokenManager::revoke);
+        }
+
+        if (singleSignOnManager instanceof DefaultSingleSignOnManager) {
+            SSOToken ssoToken = singleSignOnManager.getToken();
+            if (ssoToken != null) {
+                SessionService sessionService = SessionService.builder()
+                        .serverConfig(getServerConfig())
+                        .build();
+                steps.put(Action.LOGOUT, step(sessionService.getClient(), () -> sessionService.getLogoutRequest(ssoToken)));
+            }
+            //No matter the server calls succeed or not, the session is closed locally
+            singleSignOnManager.clear();
+        } else if (singleSignOnManager.hasToken()) {
+            //Custom SingleSignOnManager, let it revoke and clear the SSO Token
+            steps.put(Action.LOGOUT, singleSignOnManager::revoke);
+        }
+        flush();
+
+        LogoutPipeline.builder()
+                .timeout(logoutTimeout)
+                .outbox(outbox)
+                .build()
+                .execute(steps, listener);
+    }
+
+    private static LogoutPipeline.Step step(OkHttpClient client, RequestSupplier supplier) {
+        try {
+            return new LogoutPipeline.RequestStep(client, supplier.get());
+        } catch (MalformedURLException e) {
+            return listener -> Listener.onException(listener, e);
+        }
+    }
+
+    /**
+     * Block until all pending token and SSO writes are persisted to storage.
+     */
+    @WorkerThread
+    public void flush() {
+        tokenManager.flush();
+        singleSignOnManager.flush();
     }
 
     /**
@@ -105,21 +244,40 @@ public class SessionManager {
 
     @VisibleForTesting
     public void close(FRListener<Void> listener) {
-        tokenManager.revoke(new FRListener<Void>() {
+        logout(new FRListener<LogoutResult>() {
             @Override
-            public void onSuccess(Void result) {
-                closeSession(listener);
+            public void onSuccess(LogoutResult result) {
+                //Report the first failure
+                for (String step : result.getSteps().keySet()) {
+                    Exception e = result.getException(step);
+                    if (e != null) {
+                        Listener.onException(listener, e);
+                        return;
+                    }
+                }
+                Listener.onSuccess(listener, null);
             }
 
             @Override
             public void onException(Exception e) {
-                closeSession(listener);
+                Listener.onException(listener, e);
             }
         });
     }
 
-    private void closeSession(FRListener<Void> listener) {
-        singleSignOnManager.revoke(listener);
+    private OAuth2Client getOAuth2Client() {
+        return oAuth2Client == null ? Config.getInstance().getOAuth2Client() : oAuth2Client;
+    }
+
+    private ServerConfig getServerConfig() {
+        return serverConfig == null ? Config.getInstance().getServerConfig() : serverConfig;
+    }
+
+    /**
+     * Build the request of a logout step.
+     */
+    private interface RequestSupplier {
+        Request get() throws MalformedURLException;
     }
 
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.net.Uri;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import static org.forgerock.android.auth.ServerConfig.ACCEPT_API_VERSION;
+import static org.forgerock.android.auth.ServerConfig.API_VERSION_3_1;
+import static org.forgerock.android.auth.StringUtils.isNotEmpty;
+
+/**
+ * Service Client for the AM session endpoint.
+ */
+class SessionService implements ResponseHandler {
+
+    private static final Action LOGOUT = new Action(Action.LOGOUT);
+
+    @Getter
+    private final OkHttpClient client;
+    private final ServerConfig serverConfig;
+
+    @Builder
+    private SessionService(@NonNull ServerConfig serverConfig) {
+        this.client = OkHttpClientProvider.getInstance().lookup(serverConfig);
+        this.serverConfig = serverConfig;
+    }
+
+    /**
+     * Invalidate the session of the SSO Token on the server.
+     *
+     * @param token    The SSO Token
+     * @param listener Listener to listen for the logout event
+     */
+    void logout(@NonNull SSOToken token, final FRListener<Void> listener) {
+        Request request;
+        try {
+            request = getLogoutRequest(token);
+        } catch (MalformedURLException e) {
+            Listener.onException(listener, e);
+            return;
+        }
+
+        client.newCall(request).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                Listener.onException(listener, e);
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                if (response.isSuccessful()) {
+                    Listener.onSuccess(listener, null);
+                    close(response);
+                } else {
+                    handleError(response, listener);
+                }
+            }
+        });
+    }
+
+    /**
+     * Build the request to invalidate the session of the SSO Token.
+     *
+     * @param token The SSO Token
+     * @return The logout request
+     */
+    Request getLogoutRequest(@NonNull SSOToken token) throws MalformedURLException {
+        return new Request.Builder()
+                .header(serverConfig.getCookieName(), token.getValue())
+                .header(ACCEPT_API_VERSION, API_VERSION_3_1)
+                .url(getLogoutUrl())
+                .post(RequestBody.create(new byte[0]))
+                .tag(LOGOUT)
+                .build();
+    }
+
+    private URL getLogoutUrl() throws MalformedURLException {
+        Uri.Builder builder = Uri.parse(serverConfig.getUrl()).buildUpon();
+        if (isNotEmpty(serverConfig.getLogoutEndpoint())) {
+            builder.appendEncodedPath(serverConfig.getLogoutEndpoint());
+        } else {
+            builder.appendPath("json")
+                    .appendPath("realms")
+                    .appendPath(serverConfig.getRealm())
+                    .appendPath("sessions");
+        }
+        builder.appendQueryParameter("_action", "logout");
+        return new URL(builder.build().toString());
+    }
+}
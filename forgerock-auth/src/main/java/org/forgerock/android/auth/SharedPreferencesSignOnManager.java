@@ -7,6 +7,7 @@
 
 package org.forgerock.android.auth;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.SharedPreferences;
 
@@ -36,34 +37,54 @@ class SharedPreferencesSignOnManager implements SingleSignOnManager {
     //The SharedPreferences to store the token
     private SharedPreferences sharedPreferences;
 
+    //Persist with apply() instead of commit()
+    private final boolean writeBehind;
+
     @Builder
-    public SharedPreferencesSignOnManager(@NonNull Context context, SharedPreferences sharedPreferences) {
+    public SharedPreferencesSignOnManager(@NonNull Context context, SharedPreferences sharedPreferences,
+                                          Boolean writeBehind) {
         this.sharedPreferences = sharedPreferences == null ?
                 new SecuredSharedPreferences(context, ORG_FORGEROCK_V_1_SSO_TOKENS, ORG_FORGEROCK_V_1_KEYS) : sharedPreferences;
+        this.writeBehind = writeBehind == null ?
+                context.getResources().getBoolean(R.bool.forgerock_write_behind) : writeBehind;
     }
 
     @Override
     public void persist(SSOToken token) {
-       sharedPreferences.edit()
-                .putString(SSO_TOKEN, token.getValue())
-                .commit();
+        save(sharedPreferences.edit()
+                .putString(SSO_TOKEN, token.getValue()));
     }
 
     @Override
     public void persist(Collection<String> cookies) {
         if (cookies.isEmpty()) {
-            sharedPreferences.edit().remove(COOKIES).commit();
+            save(sharedPreferences.edit().remove(COOKIES));
         } else {
             Set<String> set = new HashSet<>(cookies);
-            sharedPreferences.edit()
-                    .putStringSet(COOKIES, set)
-                    .commit();
+            save(sharedPreferences.edit()
+                    .putStringSet(COOKIES, set));
         }
     }
 
     @Override
     public void clear() {
-        sharedPreferences.edit().clear().commit();
+        save(sharedPreferences.edit().clear());
+    }
+
+    @SuppressLint("ApplySharedPref")
+    @Override
+    public void flush() {
+        //Commit blocks until all pending apply() are written to disk
+        sharedPreferences.edit().commit();
+    }
+
+    @SuppressLint("ApplySharedPref")
+    private void save(SharedPreferences.Editor editor) {
+        if (writeBehind) {
+            editor.apply();
+        } else {
+            editor.commit();
+        }
     }
 
     @Override
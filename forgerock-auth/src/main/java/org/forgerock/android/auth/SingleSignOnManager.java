@@ -62,4 +62,10 @@ public interface SingleSignOnManager {
      */
     void revoke(FRListener<Void> listener);
 
+    /**
+     * Block until all pending writes are persisted to storage.
+     */
+    default void flush() {
+    }
+
 }
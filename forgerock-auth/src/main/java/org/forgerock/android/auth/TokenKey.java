@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Identify a down-scoped {@link AccessToken} by the requested scope and the resource (audience)
+ * the {@link AccessToken} is issued for.
+ */
+@Getter
+@EqualsAndHashCode
+public class TokenKey {
+
+    static final String RESOURCE = "resource";
+
+    /**
+     * The requested scope
+     */
+    private final AccessToken.Scope scope;
+
+    /**
+     * The resource server the {@link AccessToken} is issued for, null to use the default audience.
+     */
+    private final String resource;
+
+    @lombok.Builder
+    public TokenKey(@NonNull Set<String> scope, String resource) {
+        this.scope = new AccessToken.Scope(scope);
+        this.resource = resource;
+    }
+
+    /**
+     * @return The scope as a space delimited String, in a stable order.
+     */
+    String getScopeValue() {
+        StringBuilder result = new StringBuilder();
+        for (String s : new TreeSet<>(scope)) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(s);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return The additional parameters to request the {@link AccessToken} for the resource.
+     */
+    Map<String, String> getParameters() {
+        if (resource == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.singletonMap(RESOURCE, resource);
+    }
+
+    /**
+     * @return The name to identify the {@link AccessToken} in the storage.
+     */
+    String getName() {
+        return resource == null ? getScopeValue() : getScopeValue() + "|" + resource;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -9,6 +9,8 @@ package org.forgerock.android.auth;
 
 import org.forgerock.android.auth.exception.AuthenticationRequiredException;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -66,6 +68,62 @@ public interface TokenManager {
      */
     void getAccessToken(AccessTokenVerifier accessTokenVerifier, FRListener<AccessToken> tokenListener);
 
+    /**
+     * Retrieve the stored {@link AccessToken} without refreshing it, no network call is made.
+     *
+     * @return The stored {@link AccessToken}, it may be expired, null if there is no {@link AccessToken}.
+     */
+    default AccessToken getStoredAccessToken() {
+        return null;
+    }
+
+    /**
+     * Retrieve the stored down-scoped {@link AccessToken}s without refreshing them, no network call is made.
+     *
+     * @return The stored down-scoped {@link AccessToken}s, they may be expired.
+     */
+    default List<AccessToken> getScopedAccessTokens() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Persist the down-scoped {@link AccessToken} for the {@link TokenKey}.
+     *
+     * @param key   The {@link TokenKey} of the {@link AccessToken}
+     * @param token The AccessToken
+     */
+    default void persist(TokenKey key, AccessToken token) {
+    }
+
+    /**
+     * Sends an authorization request to the authorization service for a down-scoped {@link AccessToken}.
+     *
+     * @param token                The SSO Token received with the result of {@link AuthService}
+     * @param key                  The {@link TokenKey} with the requested scope and resource
+     * @param additionalParameters Additional parameters for inclusion in the authorization endpoint
+     * @param listener             Listener that listens to changes resulting from OAuth endpoints .
+     */
+    default void exchangeToken(SSOToken token, TokenKey key, Map<String, String> additionalParameters,
+                               FRListener<AccessToken> listener) {
+        Listener.onException(listener, new UnsupportedOperationException("Down-scoped Access Token is not supported"));
+    }
+
+    /**
+     * Get the down-scoped {@link AccessToken} for the {@link TokenKey} asynchronously.
+     *
+     * <p>
+     * If the stored {@link AccessToken} is expired, auto refresh the token with the requested scope
+     *
+     * @param key                 The {@link TokenKey} of the {@link AccessToken}
+     * @param accessTokenVerifier Verifier to verify the access token.
+     * @param tokenListener       Listener to listen for get access token event.
+     */
+    default void getAccessToken(TokenKey key, AccessTokenVerifier accessTokenVerifier,
+                                FRListener<AccessToken> tokenListener) {
+        Listener.onException(tokenListener,
+                new AuthenticationRequiredException("No Access Token, authentication is required."));
+    }
+
     /**
      * Check if token exists in the storage.
      *
@@ -85,5 +143,11 @@ public interface TokenManager {
      */
     void revoke(FRListener<Void> listener);
 
+    /**
+     * Block until all pending writes are persisted to storage.
+     */
+    default void flush() {
+    }
+
 
 }
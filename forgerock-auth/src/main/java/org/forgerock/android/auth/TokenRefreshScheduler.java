@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.forgerock.android.auth.exception.AuthenticationRequiredException;
+import org.forgerock.android.auth.exception.InvalidGrantException;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh the {@link AccessToken} in the background before it expires, so callers of
+ * {@link TokenManager#getAccessToken(AccessTokenVerifier, FRListener)} rarely wait for the refresh.
+ *
+ * <p>
+ * The refresh is scheduled between 75% and 85% of the remaining lifetime of the {@link AccessToken}, and always
+ * before the refresh threshold window. A failed refresh is retried with exponential backoff. While the application
+ * is in the background (no started Activity tracked by {@link InitProvider}), the refresh is paused and is performed
+ * when the application returns to the foreground if it is due.
+ */
+class TokenRefreshScheduler {
+
+    private static final String TAG = TokenRefreshScheduler.class.getSimpleName();
+
+    private static final TokenRefreshScheduler INSTANCE = new TokenRefreshScheduler();
+
+    static final long BACKOFF_BASE_MILLIS = 5000;
+    static final long BACKOFF_MAX_MILLIS = 5 * 60 * 1000;
+    static final int MAX_ATTEMPTS = 5;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Random random = new Random();
+
+    private TokenManager tokenManager;
+    private AccessToken accessToken;
+    private long threshold;
+    private int attempt;
+    private long dueTime;
+    private ScheduledFuture<?> pending;
+    private boolean foreground = true;
+
+    private TokenRefreshScheduler() {
+    }
+
+    static TokenRefreshScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule the refresh of the {@link AccessToken}, replace any scheduled refresh.
+     *
+     * @param tokenManager The {@link TokenManager} to refresh the {@link AccessToken}
+     * @param accessToken  The {@link AccessToken} to refresh
+     * @param threshold    The refresh threshold in seconds
+     */
+    synchronized void schedule(TokenManager tokenManager, AccessToken accessToken, long threshold) {
+        cancelPending();
+        this.tokenManager = tokenManager;
+        this.accessToken = accessToken;
+        this.threshold = threshold;
+        this.attempt = 0;
+        if (accessToken.getRefreshToken() == null || accessToken.getExpiration() == null) {
+            //Cannot refresh
+            this.accessToken = null;
+            return;
+        }
+        schedule(delayMillis(accessToken, threshold, random.nextDouble()));
+    }
+
+    /**
+     * Schedule the refresh of the {@link AccessToken} if it is not the scheduled one.
+     *
+     * @param tokenManager The {@link TokenManager} to refresh the {@link AccessToken}
+     * @param accessToken  The {@link AccessToken} to refresh
+     * @param threshold    The refresh threshold in seconds
+     */
+    synchronized void track(TokenManager tokenManager, AccessToken accessToken, long threshold) {
+        if (this.accessToken == null || !this.accessToken.getValue().equals(accessToken.getValue())) {
+            schedule(tokenManager, accessToken, threshold);
+        }
+    }
+
+    /**
+     * Cancel the scheduled refresh.
+     */
+    synchronized void cancel() {
+        cancelPending();
+        tokenManager = null;
+        accessToken = null;
+    }
+
+    /**
+     * Called when the application moves to the foreground, perform the refresh if it is due.
+     */
+    synchronized void onForeground() {
+        foreground = true;
+        if (accessToken != null && pending == null) {
+            schedule(Math.max(0, dueTime - System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Called when the application moves to the background, pause the scheduled refresh.
+     */
+    synchronized void onBackground() {
+        foreground = false;
+        cancelPending();
+    }
+
+    private void schedule(long delayMillis) {
+        dueTime = System.currentTimeMillis() + delayMillis;
+        if (!foreground) {
+            //Resume when back to foreground
+            return;
+        }
+        Logger.debug(TAG, "Access Token refresh scheduled in %d ms", delayMillis);
+        pending = worker.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void refresh() {
+        final TokenManager manager;
+        final AccessToken token;
+        synchronized (this) {
+            pending = null;
+            if (accessToken == null || !foreground) {
+                return;
+            }
+            manager = tokenManager;
+            token = accessToken;
+        }
+        Logger.debug(TAG, "Refreshing Access Token in the background");
+        manager.refresh(token, new FRListener<AccessToken>() {
+            @Override
+            public void onSuccess(AccessToken result) {
+                //The refreshed token is persisted and scheduled by the TokenManager
+                Logger.debug(TAG, "Access Token refreshed in the background");
+            }
+
+            @Override
+            public void onException(Exception e) {
+                onRefreshFailed(token, e);
+            }
+        });
+    }
+
+    private synchronized void onRefreshFailed(AccessToken token, Exception e) {
+        if (token != accessToken) {
+            //Token has been replaced or cancelled
+            return;
+        }
+        if (e instanceof InvalidGrantException
+                || e instanceof AuthenticationRequiredException
+                || ++attempt >= MAX_ATTEMPTS) {
+            Logger.warn(TAG, e, "Background Access Token refresh failed, stop retrying");
+            accessToken = null;
+            return;
+        }
+        Logger.warn(TAG, e, "Background Access Token refresh failed, retry attempt %d", attempt);
+        schedule(backoffMillis(attempt, random.nextDouble()));
+    }
+
+    /**
+     * Calculate the delay before refreshing the {@link AccessToken}.
+     *
+     * @param accessToken The {@link AccessToken}
+     * @param threshold   The refresh threshold in seconds
+     * @param random      Random value between 0 and 1 for the jitter
+     * @return The delay in milliseconds
+     */
+    @VisibleForTesting
+    static long delayMillis(AccessToken accessToken, long threshold, double random) {
+        long remaining = accessToken.getExpiration().getTime() - System.currentTimeMillis();
+        long latest = remaining - TimeUnit.SECONDS.toMillis(threshold);
+        long delay = (long) (remaining * (0.75 + 0.1 * random));
+        return Math.max(0, Math.min(delay, latest));
+    }
+
+    /**
+     * Calculate the exponential backoff delay with jitter.
+     *
+     * @param attempt The number of failed attempts
+     * @param random  Random value between 0 and 1 for the jitter
+     * @return The delay in milliseconds
+     */
+    @VisibleForTesting
+    static long backoffMillis(int attempt, double random) {
+        long backoff = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(attempt - 1, 16));
+        return (long) (backoff * (0.5 + 0.5 * random));
+    }
+
+    @VisibleForTesting
+    synchronized boolean isScheduled() {
+        return accessToken != null;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -19,58 +19,179 @@ import org.jetbrains.annotations.NotNull;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Service Client
+ * Service Client for the OpenID Connect userinfo endpoint.
+ *
+ * <p>
+ * The {@link UserInfo} is cached in memory for the stored {@link AccessToken}, and revalidated with the ETag when
+ * it expires. The cache is not used once the {@link AccessToken} is refreshed or removed. Concurrent requests for the
+ * same {@link AccessToken} share a single server call.
  */
 class UserService implements ResponseHandler {
 
+    private static final String TAG = UserService.class.getSimpleName();
+
+    //Cache duration when it is not configured
+    static final long DEFAULT_CACHE_TTL = TimeUnit.SECONDS.toMillis(60);
+
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER = "Bearer ";
+    private static final Action USER_INFO = new Action(Action.USER_INFO);
+
     private OkHttpClient client;
     private ServerConfig serverConfig;
-    private static final Action USER_INFO = new Action(Action.USER_INFO);
+    private final TokenManager tokenManager;
+    private final long cacheTtl;
+
+    private Entry cached;
+    //In-flight requests keyed by the Access Token
+    private final Map<String, List<FRListener<UserInfo>>> inflight = new HashMap<>();
+    //Incremented when the cache is cleared, to discard the result of the in-flight requests
+    private long generation;
 
+    /**
+     * @param serverConfig The Server configuration
+     * @param tokenManager The {@link TokenManager} which stores the {@link AccessToken}, the {@link UserInfo}
+     *                     is not cached when null.
+     * @param cacheTtl     The cache duration in milliseconds, the {@link UserInfo} is revalidated with the server
+     *                     on every call when it is not positive.
+     */
     @Builder
-    private UserService(ServerConfig serverConfig) {
-        client = OkHttpClientProvider.getInstance().lookup(serverConfig).newBuilder()
-                .addInterceptor(new AccessTokenInterceptor())
-                .build();
+    private UserService(ServerConfig serverConfig, TokenManager tokenManager, Long cacheTtl) {
+        client = OkHttpClientProvider.getInstance().lookup(serverConfig, new AccessTokenInterceptor());
 
         this.serverConfig = serverConfig;
-
+        this.tokenManager = tokenManager;
+        this.cacheTtl = cacheTtl == null ? DEFAULT_CACHE_TTL : cacheTtl;
     }
 
     void userinfo(final FRListener<UserInfo> listener) {
-        Request request = null;
+        String token = getStoredToken();
+        Entry entry;
+        boolean hit;
+        long current;
+        synchronized (this) {
+            entry = cached;
+            if (entry != null && (token == null || !token.equals(entry.token))) {
+                //The Access Token has been refreshed or removed
+                cached = entry = null;
+            }
+            if (entry == null || entry.isExpired()) {
+                //Single flight, join the in-flight request with the same Access Token
+                List<FRListener<UserInfo>> waiters = inflight.get(token);
+                if (waiters != null) {
+                    Logger.debug(TAG, "Waiting for the in-flight UserInfo request.");
+                    waiters.add(listener);
+                    return;
+                }
+                waiters = new ArrayList<>();
+                waiters.add(listener);
+                inflight.put(token, waiters);
+                hit = false;
+            } else {
+                Logger.debug(TAG, "Using cached UserInfo.");
+                hit = true;
+            }
+            current = generation;
+        }
+        if (hit) {
+            Listener.onSuccess(listener, entry.userInfo);
+            return;
+        }
+
+        fetch(entry, new FRListener<Entry>() {
+            @Override
+            public void onSuccess(Entry result) {
+                synchronized (UserService.this) {
+                    if (current == generation && result.token != null) {
+                        cached = result;
+                    }
+                }
+                for (FRListener<UserInfo> waiter : complete(token)) {
+                    try {
+                        Listener.onSuccess(waiter, result.userInfo);
+                    } catch (Exception e) {
+                        Logger.warn(TAG, e, "UserInfo listener failed");
+                    }
+                }
+            }
+
+            @Override
+            public void onException(Exception e) {
+                for (FRListener<UserInfo> waiter : complete(token)) {
+                    try {
+                        Listener.onException(waiter, e);
+                    } catch (Exception ex) {
+                        Logger.warn(TAG, ex, "UserInfo listener failed");
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Discard the cached {@link UserInfo}.
+     */
+    synchronized void clear() {
+        cached = null;
+        generation++;
+    }
+
+    private synchronized List<FRListener<UserInfo>> complete(String token) {
+        List<FRListener<UserInfo>> waiters = inflight.remove(token);
+        return waiters == null ? Collections.emptyList() : waiters;
+    }
+
+    private void fetch(Entry entry, FRListener<Entry> listener) {
+        Request.Builder builder;
         try {
-            request = new Request.Builder()
+            builder = new Request.Builder()
                     .url(getUserInfoUrl())
                     .get()
-                    .tag(USER_INFO)
-                    .build();
+                    .tag(USER_INFO);
         } catch (MalformedURLException e) {
             Listener.onException(listener, e);
             return;
         }
+        if (entry != null && entry.etag != null) {
+            builder.header(IF_NONE_MATCH, entry.etag);
+        }
 
-        client.newCall(request).enqueue(new okhttp3.Callback() {
+        client.newCall(builder.build()).enqueue(new okhttp3.Callback() {
 
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                listener.onException(e);
+                Listener.onException(listener, e);
             }
 
             @Override
             public void onResponse(@NotNull Call call, @NotNull Response response) {
-                if (response.isSuccessful()) {
+                if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                    Logger.debug(TAG, "UserInfo not modified.");
+                    close(response);
+                    Listener.onSuccess(listener, new Entry(getToken(response), entry.userInfo, entry.etag));
+                } else if (response.isSuccessful()) {
+                    Entry result;
                     try {
-                        JSONObject jsonObject = new JSONObject(response.body().string());
-                        Listener.onSuccess(listener, UserInfo.unmarshal(jsonObject));
+                        JSONObject jsonObject = getJson(response);
+                        result = new Entry(getToken(response), UserInfo.unmarshal(jsonObject), response.header(ETAG));
                     } catch (Exception e) {
                         Listener.onException(listener, e);
+                        return;
                     }
+                    Listener.onSuccess(listener, result);
                 } else {
                     handleError(response, listener);
                 }
@@ -78,6 +199,30 @@ class UserService implements ResponseHandler {
         });
     }
 
+    private String getStoredToken() {
+        if (tokenManager == null) {
+            return null;
+        }
+        try {
+            AccessToken accessToken = tokenManager.getStoredAccessToken();
+            return accessToken == null ? null : accessToken.getValue();
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Failed to retrieve the stored Access Token");
+            return null;
+        }
+    }
+
+    /**
+     * Retrieve the Access Token which has been sent with the request.
+     */
+    private static String getToken(Response response) {
+        String authorization = response.request().header(AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return null;
+        }
+        return authorization.substring(BEARER.length());
+    }
+
     private URL getUserInfoUrl() throws MalformedURLException {
 
         Uri.Builder builder = Uri.parse(serverConfig.getUrl()).buildUpon();
@@ -92,4 +237,26 @@ class UserService implements ResponseHandler {
         return new URL(builder.build().toString());
     }
 
+    /**
+     * The {@link UserInfo} of an Access Token.
+     */
+    private class Entry {
+
+        private final String token;
+        private final UserInfo userInfo;
+        private final String etag;
+        private final long expiresAt;
+
+        private Entry(String token, UserInfo userInfo, String etag) {
+            this.token = token;
+            this.userInfo = userInfo;
+            this.etag = etag;
+            this.expiresAt = System.currentTimeMillis() + cacheTtl;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
 }
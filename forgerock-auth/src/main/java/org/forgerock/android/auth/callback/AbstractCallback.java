@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,6 +7,7 @@
 
 package org.forgerock.android.auth.callback;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -14,24 +15,74 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 /**
  * Abstract Callback that provides the raw content of the Callback, and allow sub classes to access
- * Callback's input and output
+ * Callback's input and output.
+ *
+ * <p>
+ * The Callback is kept as a {@link JSONObject} which is parsed once, inputs are updated in place. The content
+ * is only serialized to {@link String} when it is requested with {@link #getContent()} or when the Callback
+ * is Java serialized. Sub classes should read the content with {@link #getContent()} or
+ * {@link #getContentAsJson()} instead of the {@link #content} field.
  */
 @NoArgsConstructor
 @Getter
 public abstract class AbstractCallback implements Callback {
 
-    //The content is as JSON representation, JSONObject is not Serializable
     protected static final String VALUE = "value";
 
+    /**
+     * The content as String for Java serialization, JSONObject is not Serializable. The field is refreshed by
+     * {@link #getContent()}, use {@link #getContent()} to read the current content.
+     */
     protected String content;
     protected int _id;
 
+    @Getter(AccessLevel.NONE)
+    private transient JSONObject json;
+
+    /**
+     * Returns the JSON representation of the Callback, changes to the returned {@link JSONObject}
+     * are reflected in the Callback.
+     *
+     * @return The JSON representation of the Callback
+     * @throws JSONException Failed to parse the content
+     */
     protected JSONObject getContentAsJson() throws JSONException {
-        return new JSONObject(content);
+        if (json == null) {
+            //Restored from Java serialization
+            json = new JSONObject(content);
+        }
+        return json;
+    }
+
+    /**
+     * Return the raw content of the Callback.
+     */
+    @Override
+    public String getContent() {
+        if (json != null) {
+            content = json.toString();
+        }
+        return content;
     }
 
+    @Override
+    public JSONObject toJsonObject() throws JSONException {
+        return getContentAsJson();
+    }
+
+    /**
+     * Create the Callback from the JSON representation. The Callback keeps the provided {@link JSONObject} as its
+     * model without copying it, so setting an input value of the Callback also updates the provided
+     * {@link JSONObject}.
+     *
+     * @param raw   The JSON representation of the Callback
+     * @param index The index of the Callback in the Node
+     */
     public AbstractCallback(JSONObject raw, int index) {
         setContent(raw);
         _id = raw.optInt("_id", index);
@@ -58,13 +109,13 @@ public abstract class AbstractCallback implements Callback {
     }
 
     /**
-     * Sets the value of the Callback
+     * Sets the value of the Callback, the {@link JSONObject} is kept as the model of the Callback without copying it.
      *
      * @param jsonObject The Json Object to represent the Callback
      */
     protected void setContent(JSONObject jsonObject) {
-        content = jsonObject.toString();
-
+        json = jsonObject;
+        content = null;
     }
 
     /**
@@ -75,10 +126,7 @@ public abstract class AbstractCallback implements Callback {
      */
     protected void setValue(Object value, int index) {
         try {
-            JSONObject json = getContentAsJson();
-            JSONObject input = getInput(json, index);
-            input.put(VALUE, value);
-            setContent(json);
+            getInput(getContentAsJson(), index).put(VALUE, value);
         } catch (JSONException e) {
             throw new RuntimeException(e);
         }
@@ -106,10 +154,8 @@ public abstract class AbstractCallback implements Callback {
      * @param index The index of the element.
      */
     public Object getInputValue(int index) {
-        JSONObject input = null;
         try {
-            input = getInput(getContentAsJson(), index);
-            return input.get(VALUE);
+            return getInput(getContentAsJson(), index).get(VALUE);
         } catch (JSONException e) {
             throw new RuntimeException(e);
         }
@@ -122,4 +168,9 @@ public abstract class AbstractCallback implements Callback {
 
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getContent();
+        out.defaultWriteObject();
+    }
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,6 +7,9 @@
 
 package org.forgerock.android.auth.callback;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import java.io.Serializable;
 
 /**
@@ -27,6 +30,16 @@ public interface Callback extends Serializable {
      */
     String getContent();
 
+    /**
+     * Return the content of the Callback as {@link JSONObject}.
+     *
+     * @return The JSON representation of the Callback.
+     * @throws JSONException Failed to parse the content.
+     */
+    default JSONObject toJsonObject() throws JSONException {
+        return new JSONObject(getContent());
+    }
+
     /**
      * Return the type of the Callback, the type name should align with the Callback type returned
      * from AM
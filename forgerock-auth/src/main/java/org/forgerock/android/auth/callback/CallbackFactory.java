@@ -7,8 +7,12 @@
 
 package org.forgerock.android.auth.callback;
 
+import androidx.annotation.NonNull;
+
 import org.forgerock.android.auth.Logger;
+import org.json.JSONObject;
 
+import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +20,10 @@ import lombok.Getter;
 
 /**
  * Factory to manage supported {@link Callback}
+ *
+ * <p>
+ * Built-in Callbacks are registered with their constructor reference, Callbacks are created without reflection.
+ * Callback Classes added directly to {@link #getCallbacks()} are created with reflection.
  */
 public class CallbackFactory {
 
@@ -24,31 +32,32 @@ public class CallbackFactory {
 
     @Getter
     private Map<String, Class<? extends Callback>> callbacks = new HashMap<>();
+    private final Map<Class<? extends Callback>, Creator<? extends Callback>> classCreators = new HashMap<>();
 
     private CallbackFactory() {
-        register(ChoiceCallback.class);
-        register(NameCallback.class);
-        register(PasswordCallback.class);
-        register(StringAttributeInputCallback.class);
-        register(NumberAttributeInputCallback.class);
-        register(BooleanAttributeInputCallback.class);
-        register(ValidatedPasswordCallback.class);
-        register(ValidatedUsernameCallback.class);
-        register(KbaCreateCallback.class);
-        register(TermsAndConditionsCallback.class);
-        register(PollingWaitCallback.class);
-        register(ConfirmationCallback.class);
-        register(TextOutputCallback.class);
-        register(SuspendedTextOutputCallback.class);
-        register(ReCaptchaCallback.class);
-        register(ConsentMappingCallback.class);
-        register(HiddenValueCallback.class);
-        register(DeviceProfileCallback.class);
-        register(MetadataCallback.class);
-        register(WebAuthnRegistrationCallback.class);
-        register(WebAuthnAuthenticationCallback.class);
-        register(SelectIdPCallback.class);
-        register(IdPCallback.class);
+        register("ChoiceCallback", ChoiceCallback.class, ChoiceCallback::new);
+        register("NameCallback", NameCallback.class, NameCallback::new);
+        register("PasswordCallback", PasswordCallback.class, PasswordCallback::new);
+        register("StringAttributeInputCallback", StringAttributeInputCallback.class, StringAttributeInputCallback::new);
+        register("NumberAttributeInputCallback", NumberAttributeInputCallback.class, NumberAttributeInputCallback::new);
+        register("BooleanAttributeInputCallback", BooleanAttributeInputCallback.class, BooleanAttributeInputCallback::new);
+        register("ValidatedCreatePasswordCallback", ValidatedPasswordCallback.class, ValidatedPasswordCallback::new);
+        register("ValidatedCreateUsernameCallback", ValidatedUsernameCallback.class, ValidatedUsernameCallback::new);
+        register("KbaCreateCallback", KbaCreateCallback.class, KbaCreateCallback::new);
+        register("TermsAndConditionsCallback", TermsAndConditionsCallback.class, TermsAndConditionsCallback::new);
+        register("PollingWaitCallback", PollingWaitCallback.class, PollingWaitCallback::new);
+        register("ConfirmationCallback", ConfirmationCallback.class, ConfirmationCallback::new);
+        register("TextOutputCallback", TextOutputCallback.class, TextOutputCallback::new);
+        register("SuspendedTextOutputCallback", SuspendedTextOutputCallback.class, SuspendedTextOutputCallback::new);
+        register("ReCaptchaCallback", ReCaptchaCallback.class, ReCaptchaCallback::new);
+        register("ConsentMappingCallback", ConsentMappingCallback.class, ConsentMappingCallback::new);
+        register("HiddenValueCallback", HiddenValueCallback.class, HiddenValueCallback::new);
+        register("DeviceProfileCallback", DeviceProfileCallback.class, DeviceProfileCallback::new);
+        register("MetadataCallback", MetadataCallback.class, MetadataCallback::new);
+        register("WebAuthnRegistrationCallback", WebAuthnRegistrationCallback.class, WebAuthnRegistrationCallback::new);
+        register("WebAuthnAuthenticationCallback", WebAuthnAuthenticationCallback.class, WebAuthnAuthenticationCallback::new);
+        register("SelectIdPCallback", SelectIdPCallback.class, SelectIdPCallback::new);
+        register("IdPCallback", IdPCallback.class, IdPCallback::new);
     }
 
     /**
@@ -61,20 +70,102 @@ public class CallbackFactory {
     }
 
     /**
-     * Register new Callback Class
+     * Register new Callback Class, the Callback type and the constructor are resolved with reflection
+     * once during the registration.
      *
      * @param callback The callback Class
      */
     public void register(Class<? extends Callback> callback) {
         try {
-            callbacks.put(getType(callback), callback);
+            registerConstructor(callback);
         } catch (Exception e) {
             Logger.error(TAG, e, e.getMessage());
         }
     }
 
+    private <T extends Callback> void registerConstructor(Class<T> callback) throws Exception {
+        Constructor<T> constructor = callback.getConstructor(JSONObject.class, int.class);
+        register(getType(callback), callback, constructor::newInstance);
+    }
+
+    /**
+     * Register new Callback Class with the {@link Creator} to create the Callback.
+     *
+     * @param type     The Callback type
+     * @param callback The callback Class
+     * @param creator  The {@link Creator} to create the Callback, e.g. the constructor reference.
+     * @param <T>      The Callback Type
+     */
+    public synchronized <T extends Callback> void register(@NonNull String type,
+                                                          @NonNull Class<T> callback,
+                                                          @NonNull Creator<T> creator) {
+        Class<? extends Callback> previous = callbacks.put(type, callback);
+        if (previous != null && !previous.equals(callback)) {
+            classCreators.remove(previous);
+        }
+        classCreators.put(callback, creator);
+    }
+
+    /**
+     * Create the Callback for the Callback type.
+     *
+     * @param type       The Callback type
+     * @param jsonObject The JSON representation of the Callback
+     * @param index      The index of the Callback in the Node
+     * @return The Callback, or null if the Callback type is not registered.
+     * @throws Exception Any error during the creation of the Callback
+     */
+    public Callback create(String type, JSONObject jsonObject, int index) throws Exception {
+        Class<? extends Callback> callback;
+        synchronized (this) {
+            callback = callbacks.get(type);
+        }
+        if (callback == null) {
+            return null;
+        }
+        return create(callback, jsonObject, index);
+    }
+
+    /**
+     * Create the Callback for the Callback Class, fallback to reflection if the Callback Class is not registered.
+     *
+     * @param callback   The callback Class
+     * @param jsonObject The JSON representation of the Callback
+     * @param index      The index of the Callback in the Node
+     * @return The Callback
+     * @throws Exception Any error during the creation of the Callback
+     */
+    public Callback create(Class<? extends Callback> callback, JSONObject jsonObject, int index) throws Exception {
+        Creator<? extends Callback> creator;
+        synchronized (this) {
+            creator = classCreators.get(callback);
+        }
+        if (creator == null) {
+            return callback.getConstructor(JSONObject.class, int.class).newInstance(jsonObject, index);
+        }
+        return creator.create(jsonObject, index);
+    }
+
     public String getType(Class<? extends Callback> callback) throws InstantiationException, IllegalAccessException {
         return callback.newInstance().getType();
     }
 
+    /**
+     * Create the {@link Callback} from the JSON representation.
+     *
+     * @param <T> The Callback Type
+     */
+    public interface Creator<T extends Callback> {
+
+        /**
+         * Create the {@link Callback}
+         *
+         * @param jsonObject The JSON representation of the Callback
+         * @param index      The index of the Callback in the Node
+         * @return The Callback
+         * @throws Exception Any error during the creation of the Callback
+         */
+        T create(JSONObject jsonObject, int index) throws Exception;
+    }
+
 }
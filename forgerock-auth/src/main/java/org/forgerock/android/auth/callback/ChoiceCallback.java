@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -46,7 +44,6 @@ public class ChoiceCallback extends AbstractPromptCallback {
      */
     private int defaultChoice;
 
-    @Keep
     public ChoiceCallback(JSONObject jsonObject, int index) throws JSONException {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -69,7 +67,6 @@ public class ConfirmationCallback extends AbstractPromptCallback {
 
     private int selectedIndex;
 
-    @Keep
     public ConfirmationCallback(JSONObject jsonObject, int index) throws JSONException {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -30,7 +28,6 @@ public class ConsentMappingCallback extends AbstractCallback {
     private String[] fields;
     private String message;
 
-    @Keep
     public ConsentMappingCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
@@ -9,8 +9,6 @@ package org.forgerock.android.auth.callback;
 
 import android.content.Context;
 
-import androidx.annotation.Keep;
-
 import org.forgerock.android.auth.FRListener;
 import org.forgerock.android.auth.Listener;
 import org.forgerock.android.auth.collector.FRDeviceCollector;
@@ -41,7 +39,6 @@ public class DeviceProfileCallback extends AbstractCallback implements ActionCal
      */
     private String message;
 
-    @Keep
     public DeviceProfileCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
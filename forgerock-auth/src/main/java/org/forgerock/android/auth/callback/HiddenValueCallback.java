@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import lombok.Getter;
@@ -22,7 +20,6 @@ public class HiddenValueCallback extends AbstractCallback {
     private String id;
     private String defaultValue = "";
 
-    @Keep
     public HiddenValueCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
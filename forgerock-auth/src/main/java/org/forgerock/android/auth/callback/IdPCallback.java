@@ -7,7 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
@@ -48,7 +47,6 @@ public class IdPCallback extends AbstractCallback implements IdPClient, Addition
     private String requestUri;
     private final Map<String, String> additionalParameters = new HashMap<>();
 
-    @Keep
     public IdPCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
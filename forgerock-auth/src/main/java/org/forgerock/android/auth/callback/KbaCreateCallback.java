@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -34,7 +32,6 @@ public class KbaCreateCallback extends AbstractPromptCallback {
      */
     private List<String> predefinedQuestions;
 
-    @Keep
     public KbaCreateCallback(JSONObject raw, int index) {
         super(raw, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.forgerock.android.auth.Node;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -60,7 +58,6 @@ public class MetadataCallback extends AbstractCallback implements DerivableCallb
         return null;
     }
 
-    @Keep
     public MetadataCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import lombok.NoArgsConstructor;
@@ -37,7 +35,6 @@ public class NameCallback extends AbstractPromptCallback {
     ]
 }
  */
-    @Keep
     public NameCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import java.util.Arrays;
@@ -21,7 +19,6 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class PasswordCallback extends AbstractPromptCallback {
 
-    @Keep
     public PasswordCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import lombok.Getter;
@@ -34,7 +32,6 @@ public class PollingWaitCallback extends AbstractCallback {
     /**
      * Constructor for creating this Callback
      */
-    @Keep
     public PollingWaitCallback(JSONObject raw, int index) {
         super(raw, index);
     }
@@ -9,8 +9,6 @@ package org.forgerock.android.auth.callback;
 
 import android.content.Context;
 
-import androidx.annotation.Keep;
-
 import com.google.android.gms.safetynet.SafetyNet;
 
 import org.forgerock.android.auth.FRListener;
@@ -37,7 +35,6 @@ public class ReCaptchaCallback extends AbstractCallback {
     /**
      * Constructor that creates a {@link ReCaptchaCallback}.
      */
-    @Keep
     public ReCaptchaCallback(JSONObject raw, int index) {
         super(raw, index);
     }
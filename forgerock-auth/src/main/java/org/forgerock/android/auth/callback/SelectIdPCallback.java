@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -29,7 +27,6 @@ public class SelectIdPCallback extends AbstractCallback {
     @Getter
     private List<IdPValue> providers;
 
-    @Keep
     public SelectIdPCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
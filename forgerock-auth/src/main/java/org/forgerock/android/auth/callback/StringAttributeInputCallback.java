@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -30,7 +28,6 @@ public class StringAttributeInputCallback extends AttributeInputCallback {
     /**
      * Constructor for this Callback.
      */
-    @Keep
     public StringAttributeInputCallback(JSONObject jsonObject, int index) throws JSONException {
         super(jsonObject, index);
     }
@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import lombok.Getter;
@@ -22,7 +20,6 @@ import lombok.NoArgsConstructor;
 @Getter
 public class SuspendedTextOutputCallback extends TextOutputCallback {
 
-    @Keep
     public SuspendedTextOutputCallback(JSONObject raw, int index) {
         super(raw, index);
     }
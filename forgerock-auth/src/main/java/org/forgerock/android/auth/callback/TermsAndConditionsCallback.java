@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -43,7 +41,6 @@ public class TermsAndConditionsCallback extends AbstractCallback {
      */
     private String createDate;
 
-    @Keep
     public TermsAndConditionsCallback(JSONObject raw, int index) throws JSONException {
         super(raw, index);
     }
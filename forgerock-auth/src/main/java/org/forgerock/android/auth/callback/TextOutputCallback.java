@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.json.JSONObject;
 
 import lombok.Getter;
@@ -40,7 +38,6 @@ public class TextOutputCallback extends AbstractCallback {
      */
     private String message;
 
-    @Keep
     public TextOutputCallback(JSONObject raw, int index) {
         super(raw, index);
     }
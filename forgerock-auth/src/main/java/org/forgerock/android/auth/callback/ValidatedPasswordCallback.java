@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.jetbrains.annotations.NotNull;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -38,7 +36,6 @@ public class ValidatedPasswordCallback extends AbstractValidatedCallback {
 
     private String prompt;
 
-    @Keep
     public ValidatedPasswordCallback(@NotNull JSONObject raw, int index) throws JSONException {
         super(raw, index);
     }
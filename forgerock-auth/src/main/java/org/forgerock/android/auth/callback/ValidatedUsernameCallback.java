@@ -7,8 +7,6 @@
 
 package org.forgerock.android.auth.callback;
 
-import androidx.annotation.Keep;
-
 import org.jetbrains.annotations.NotNull;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -25,7 +23,6 @@ public class ValidatedUsernameCallback extends AbstractValidatedCallback {
 
     private String prompt;
 
-    @Keep
     public ValidatedUsernameCallback(@NotNull JSONObject raw, int index) throws JSONException {
         super(raw, index);
     }
@@ -10,7 +10,6 @@ package org.forgerock.android.auth.callback;
 import android.annotation.TargetApi;
 import android.content.Context;
 
-import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
@@ -148,7 +147,6 @@ import static org.forgerock.android.auth.webauthn.WebAuthn._TYPE;
 @TargetApi(24)
 public class WebAuthnAuthenticationCallback extends MetadataCallback implements WebAuthnCallback {
 
-    @Keep
     public WebAuthnAuthenticationCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
@@ -10,7 +10,6 @@ package org.forgerock.android.auth.callback;
 import android.annotation.TargetApi;
 import android.content.Context;
 
-import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
@@ -95,7 +94,6 @@ import static org.forgerock.android.auth.webauthn.WebAuthn._TYPE;
 @TargetApi(24)
 public class WebAuthnRegistrationCallback extends MetadataCallback implements WebAuthnCallback {
 
-    @Keep
     public WebAuthnRegistrationCallback(JSONObject jsonObject, int index) {
         super(jsonObject, index);
     }
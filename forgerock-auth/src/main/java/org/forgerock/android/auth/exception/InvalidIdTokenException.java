@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth.exception;
+
+/**
+ * Exception that is thrown when the ID Token signature or claims are not valid
+ */
+public class InvalidIdTokenException extends Exception {
+
+    public InvalidIdTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidIdTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth.interceptor;
+
+import org.forgerock.android.auth.AccessToken;
+import org.forgerock.android.auth.Config;
+import org.forgerock.android.auth.FRListenerFuture;
+import org.forgerock.android.auth.Logger;
+import org.forgerock.android.auth.TokenManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * {@link Authenticator} to refresh the {@link AccessToken} when the resource server responds with
+ * {@link java.net.HttpURLConnection#HTTP_UNAUTHORIZED}, and replay the request with the refreshed {@link AccessToken}.
+ *
+ * <p>
+ * Concurrent requests rejected with the same {@link AccessToken} share a single refresh. When the {@link AccessToken}
+ * has already been refreshed by another request, the request is replayed with the stored {@link AccessToken}
+ * without refreshing again. The request waits for the refresh up to the configured network timeout, and gives up
+ * the replay when the refresh does not complete in time.
+ *
+ * <pre>
+ * OkHttpClient client = new OkHttpClient.Builder()
+ *         .addInterceptor(new AccessTokenInterceptor())
+ *         .authenticator(new AccessTokenAuthenticator())
+ *         .build();
+ * </pre>
+ */
+public class AccessTokenAuthenticator implements Authenticator {
+
+    private static final String TAG = AccessTokenAuthenticator.class.getSimpleName();
+
+    static final String AUTHORIZATION = "Authorization";
+    static final String BEARER = "Bearer ";
+
+    /**
+     * Default number of replays for a request.
+     */
+    public static final int DEFAULT_MAX_RETRY = 1;
+
+    private static final int DEFAULT_TIMEOUT = 30;
+
+    private final int maxRetry;
+    private final long timeout;
+
+    public AccessTokenAuthenticator() {
+        this(DEFAULT_MAX_RETRY);
+    }
+
+    /**
+     * @param maxRetry The maximum number of times a request is replayed with a refreshed {@link AccessToken}.
+     */
+    public AccessTokenAuthenticator(int maxRetry) {
+        this(maxRetry, 0);
+    }
+
+    /**
+     * @param maxRetry The maximum number of times a request is replayed with a refreshed {@link AccessToken}.
+     * @param timeout  The maximum time in milliseconds to wait for the refresh, default to the configured
+     *                 network timeout when it is not positive.
+     */
+    public AccessTokenAuthenticator(int maxRetry, long timeout) {
+        this.maxRetry = maxRetry;
+        this.timeout = timeout;
+    }
+
+    @Nullable
+    @Override
+    public Request authenticate(@Nullable Route route, @NotNull Response response) {
+        String authorization = response.request().header(AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            //The request is not authorized with an Access Token
+            return null;
+        }
+        if (priorResponseCount(response) > maxRetry) {
+            Logger.warn(TAG, "Access Token rejected after %d retries", maxRetry);
+            return null;
+        }
+
+        String rejected = authorization.substring(BEARER.length());
+        try {
+            TokenManager tokenManager = Config.getInstance().getSessionManager().getTokenManager();
+            AccessToken accessToken = tokenManager.getStoredAccessToken();
+            if (accessToken == null) {
+                return null;
+            }
+            if (rejected.equals(accessToken.getValue())) {
+                FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+                tokenManager.refresh(accessToken, future);
+                //Never block the dispatcher thread forever, the refresh may be queued behind this call
+                accessToken = future.get(getTimeout(), TimeUnit.MILLISECONDS);
+            }
+            return response.request().newBuilder()
+                    .header(AUTHORIZATION, BEARER + accessToken.getValue())
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            Logger.warn(TAG, "Access Token refresh did not complete in %d ms", getTimeout());
+            return null;
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Failed to refresh the Access Token");
+            return null;
+        }
+    }
+
+    private long getTimeout() {
+        if (timeout > 0) {
+            return timeout;
+        }
+        int configured = Config.getInstance().getTimeout();
+        return TimeUnit.SECONDS.toMillis(configured > 0 ? configured : DEFAULT_TIMEOUT);
+    }
+
+    private static int priorResponseCount(Response response) {
+        int count = 0;
+        while ((response = response.priorResponse()) != null) {
+            count++;
+        }
+        return count + 1;
+    }
+
+}
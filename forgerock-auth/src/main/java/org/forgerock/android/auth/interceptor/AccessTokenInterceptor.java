@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -14,13 +14,18 @@ import okhttp3.Response;
 import org.forgerock.android.auth.AccessToken;
 import org.forgerock.android.auth.FRUser;
 import org.forgerock.android.auth.Logger;
-import org.forgerock.android.auth.exception.AuthenticationRequiredException;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 
 /**
- * Interceptor to inject access token to the API Request
+ * Interceptor to inject access token to the API Request.
+ *
+ * <p>
+ * The {@link AccessToken} is retrieved with {@link FRUser#getAccessToken()}, it is refreshed before sending the
+ * request when it expires within the configured threshold or when the session is no longer valid. Use with
+ * {@link AccessTokenAuthenticator} to refresh the {@link AccessToken} and replay the request when the resource
+ * server rejects it.
  */
 @RequiredArgsConstructor
 public class AccessTokenInterceptor implements Interceptor {
@@ -32,10 +37,11 @@ public class AccessTokenInterceptor implements Interceptor {
     public Response intercept(@NotNull Chain chain) throws IOException {
         AccessToken accessToken;
             try {
-                if (FRUser.getCurrentUser() != null) {
-                    accessToken = FRUser.getCurrentUser().getAccessToken();
+                FRUser user = FRUser.getCurrentUser();
+                if (user != null) {
+                    accessToken = user.getAccessToken();
                     return chain.proceed(chain.request().newBuilder()
-                            .header("Authorization", "Bearer " + accessToken.getValue())
+                            .header(AccessTokenAuthenticator.AUTHORIZATION, AccessTokenAuthenticator.BEARER + accessToken.getValue())
                             .build());
                 }
             } catch (Exception e) {
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.forgerock.android.auth.interceptor.AccessTokenAuthenticator;
+import org.forgerock.android.auth.interceptor.AccessTokenInterceptor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.HttpURLConnection;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccessTokenAuthenticatorTest extends BaseTest {
+
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() {
+        Config.getInstance().getTokenManager().persist(AccessToken.builder()
+                .value("access token")
+                .idToken("id token")
+                .scope(AccessToken.Scope.parse("openid"))
+                .tokenType("Bearer")
+                .refreshToken("refresh token")
+                .expiresIn(3600)
+                .build());
+
+        client = new OkHttpClient.Builder()
+                .addInterceptor(new AccessTokenInterceptor())
+                .authenticator(new AccessTokenAuthenticator())
+                .build();
+    }
+
+    @Test
+    public void testStoredTokenInjected() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        Response response = execute();
+
+        assertThat(response.code()).isEqualTo(HttpURLConnection.HTTP_OK);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(server.takeRequest().getHeader("Authorization")).isEqualTo("Bearer access token");
+    }
+
+    @Test
+    public void testRefreshAndReplayOnUnauthorized() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED));
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        Response response = execute();
+
+        assertThat(response.code()).isEqualTo(HttpURLConnection.HTTP_OK);
+        RecordedRequest rejected = server.takeRequest();
+        assertThat(rejected.getHeader("Authorization")).isEqualTo("Bearer access token");
+        RecordedRequest refresh = server.takeRequest();
+        assertThat(refresh.getPath()).endsWith("/access_token");
+        RecordedRequest replay = server.takeRequest();
+        assertThat(replay.getHeader("Authorization")).isEqualTo("Bearer Refreshed Token");
+        assertThat(Config.getInstance().getTokenManager().getStoredAccessToken().getValue())
+                .isEqualTo("Refreshed Token");
+    }
+
+    @Test
+    public void testRetryIsBounded() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED));
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED));
+
+        Response response = execute();
+
+        assertThat(response.code()).isEqualTo(HttpURLConnection.HTTP_UNAUTHORIZED);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    private Response execute() throws Exception {
+        return client.newCall(new Request.Builder()
+                .url(getUrl() + "/resource")
+                .build()).execute();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.accounts.Account;
+import android.accounts.AccountManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccountUserDataTest {
+
+    private static final long CACHE_INTERVAL = 60000L;
+
+    private final AccountManager accountManager = mock(AccountManager.class);
+    private final Account account = new Account("Dummy", "org.forgerock");
+
+    @Test
+    public void testUserDataIsReadOnce() throws Exception {
+        when(accountManager.getUserData(account, "key")).thenReturn("value");
+        AccountUserData userData = new AccountUserData(accountManager, account, CACHE_INTERVAL, false);
+        AtomicInteger decoded = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(userData.getString("key")).isEqualTo("value");
+            assertThat(userData.get("key", raw -> {
+                decoded.incrementAndGet();
+                return raw.toUpperCase();
+            })).isEqualTo("VALUE");
+        }
+
+        verify(accountManager, times(1)).getUserData(account, "key");
+        assertThat(decoded.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMissingKeyIsCached() throws Exception {
+        AccountUserData userData = new AccountUserData(accountManager, account, CACHE_INTERVAL, false);
+
+        assertThat(userData.getString("key")).isNull();
+        assertThat(userData.<String>get("key", raw -> raw)).isNull();
+
+        verify(accountManager, times(1)).getUserData(account, "key");
+    }
+
+    @Test
+    public void testInvalidate() {
+        when(accountManager.getUserData(account, "key")).thenReturn("value", "updated");
+        AccountUserData userData = new AccountUserData(accountManager, account, CACHE_INTERVAL, false);
+
+        assertThat(userData.getString("key")).isEqualTo("value");
+        userData.invalidate();
+        assertThat(userData.getString("key")).isEqualTo("updated");
+    }
+
+    @Test
+    public void testNotCachedWithoutInterval() {
+        when(accountManager.getUserData(account, "key")).thenReturn("value");
+        AccountUserData userData = new AccountUserData(accountManager, account, 0, false);
+
+        userData.getString("key");
+        userData.getString("key");
+
+        verify(accountManager, times(2)).getUserData(account, "key");
+    }
+
+    @Test
+    public void testWriteThrough() throws Exception {
+        AccountUserData userData = new AccountUserData(accountManager, account, CACHE_INTERVAL, false);
+
+        userData.set("key", "encrypted", "value");
+        userData.set("other", "encrypted other", null);
+
+        verify(accountManager).setUserData(account, "key", "encrypted");
+        verify(accountManager).setUserData(account, "other", "encrypted other");
+        //The account is added before every write, it may have been removed by another application
+        verify(accountManager, times(2)).addAccountExplicitly(account, null, null);
+        assertThat(userData.<String>get("key", raw -> raw)).isEqualTo("value");
+        verify(accountManager, never()).getUserData(any(Account.class), anyString());
+    }
+
+    @Test
+    public void testWriteBehindBatch() {
+        AccountUserData userData = new AccountUserData(accountManager, account, CACHE_INTERVAL, true);
+
+        //Hold the lock so the background task cannot take the writes before all of them are made
+        synchronized (userData) {
+            userData.set("key", "first", null);
+            userData.set("key", "second", null);
+            userData.set("other", "value", null);
+            assertThat(userData.getString("key")).isEqualTo("second");
+        }
+        userData.flush();
+
+        verify(accountManager, never()).setUserData(account, "key", "first");
+        verify(accountManager, times(1)).setUserData(account, "key", "second");
+        verify(accountManager, times(1)).setUserData(account, "other", "value");
+        verify(accountManager, times(1)).addAccountExplicitly(account, null, null);
+    }
+
+    @Test
+    public void testPendingWriteIsVisibleWithoutCache() {
+        AccountUserData userData = new AccountUserData(accountManager, account, 0, true);
+
+        synchronized (userData) {
+            userData.set("key", "value", null);
+            assertThat(userData.getString("key")).isEqualTo("value");
+        }
+        userData.flush();
+
+        verify(accountManager).setUserData(account, "key", "value");
+    }
+}
@@ -18,6 +18,12 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 
         ServerConfigTest.class,
+        ConfigTest.class,
+        AccessTokenAuthenticatorTest.class,
+        IdTokenValidatorTest.class,
+        LogoutPipelineTest.class,
+        OutboxTest.class,
+        UserServiceTest.class,
         ChoiceCallbackTest.class,
         ConfirmationCallbackTest.class,
         LocationCallbackTest.class,
@@ -35,6 +41,7 @@ import org.junit.runners.Suite;
         SelectIdPCallbackTest.class,
         IdPCallbackTest.class,
         SerializableTest.class,
+        CallbackFactoryTest.class,
 
 
         AuthServiceMockTest.class,
@@ -54,6 +61,11 @@ import org.junit.runners.Suite;
         FRDeviceTest.class,
 
         PersistentCookieTest.class,
+        CookieIndexTest.class,
+        CookieMarshallerTest.class,
+        ConnectionWarmerTest.class,
+        JsonStreamParserTest.class,
+        TokenRefreshSchedulerTest.class,
         PolicyAdviceTest.class,
 
         BrowserLoginTest.class,
@@ -63,6 +75,7 @@ import org.junit.runners.Suite;
         WebAuthnRegistrationTest.class,
         WebAuthnAuthenticationTest.class,
         AccountDataRepositoryTest.class,
+        AccountUserDataTest.class,
         SharedPreferencesDataRepositoryTest.class,
         WebAuthnDataRepositoryTest.class,
 
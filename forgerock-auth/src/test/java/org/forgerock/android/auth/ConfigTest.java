@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConfigTest extends BaseTest {
+
+    private static final String CONFIG_TEST = "ConfigTest";
+
+    @After
+    public void tearDown() {
+        context.deleteSharedPreferences(CONFIG_TEST);
+    }
+
+    @Test
+    public void testSharedInstances() {
+        SessionManager sessionManager = Config.getInstance().getSessionManager();
+        assertThat(Config.getInstance().getSessionManager()).isSameAs(sessionManager);
+        assertThat(sessionManager.getTokenManager()).isSameAs(Config.getInstance().getTokenManager());
+        assertThat(sessionManager.getSingleSignOnManager()).isSameAs(Config.getInstance().getSingleSignOnManager());
+    }
+
+    @Test
+    public void testRebuildWhenConfigChanged() {
+        SessionManager sessionManager = Config.getInstance().getSessionManager();
+        TokenManager tokenManager = Config.getInstance().getTokenManager();
+
+        Config.getInstance().setSharedPreferences(context.getSharedPreferences(CONFIG_TEST, Context.MODE_PRIVATE));
+
+        assertThat(Config.getInstance().getSessionManager()).isNotSameAs(sessionManager);
+        assertThat(Config.getInstance().getTokenManager()).isNotSameAs(tokenManager);
+    }
+
+    @Test
+    public void testRebuildAfterReset() {
+        SessionManager sessionManager = Config.getInstance().getSessionManager();
+        Config.reset();
+        Config.getInstance().init(context);
+        Config.getInstance().setUrl(getUrl());
+        Config.getInstance().setEncryptor(new MockEncryptor());
+        assertThat(Config.getInstance().getSessionManager()).isNotSameAs(sessionManager);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConnectionWarmerTest extends BaseTest {
+
+    @Test
+    public void testWarmUp() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HTTP_OK));
+
+        FRListenerFuture<List<ConnectionTiming>> future = new FRListenerFuture<>();
+        ConnectionWarmer.builder()
+                .serverConfig(serverConfig)
+                .build()
+                .warmUp(future);
+
+        List<ConnectionTiming> timings = future.get();
+        assertThat(timings).hasSize(1);
+        assertThat(timings.get(0).getHost()).isEqualTo(serverConfig.getHost());
+        assertThat(timings.get(0).isReused()).isFalse();
+
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("HEAD");
+    }
+
+    @Test
+    public void testSubsequentRequestReuseConnection() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HTTP_OK));
+        server.enqueue(new MockResponse().setResponseCode(HTTP_OK));
+
+        ConnectionWarmer connectionWarmer = ConnectionWarmer.builder()
+                .serverConfig(serverConfig)
+                .build();
+
+        FRListenerFuture<List<ConnectionTiming>> future = new FRListenerFuture<>();
+        connectionWarmer.warmUp(future);
+        assertThat(future.get().get(0).isReused()).isFalse();
+
+        future = new FRListenerFuture<>();
+        connectionWarmer.warmUp(future);
+        assertThat(future.get().get(0).isReused()).isTrue();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testWarmUpFailed() throws Exception {
+        server.shutdown();
+
+        FRListenerFuture<List<ConnectionTiming>> future = new FRListenerFuture<>();
+        ConnectionWarmer.builder()
+                .serverConfig(serverConfig)
+                .build()
+                .warmUp(future);
+
+        future.get();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collection;
+
+import okhttp3.Cookie;
+import okhttp3.HttpUrl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class CookieIndexTest {
+
+    private static final HttpUrl URL = HttpUrl.get("https://openam.example.com/openam/json/authenticate");
+
+    private final CountingMarshaller cookieMarshaller = new CountingMarshaller();
+
+    private static Cookie cookie(String setCookie) {
+        return Cookie.parse(URL, setCookie);
+    }
+
+    @Test
+    public void testReplaceSameDomainPathAndName() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+
+        assertThat(index.put(cookie("session=v1; Path=/; Domain=example.com"))).isTrue();
+        assertThat(index.put(cookie("session=v2; Path=/; Domain=example.com"))).isTrue();
+        assertThat(index.put(cookie("session=v3; Path=/openam; Domain=example.com"))).isTrue();
+
+        assertThat(index.values()).hasSize(2);
+        assertThat(index.match(URL)).extracting(Cookie::value).containsExactlyInAnyOrder("v2", "v3");
+    }
+
+    @Test
+    public void testUnchangedCookieIsNotPersisted() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+
+        assertThat(index.put(cookie("amlbcookie=01; Path=/; Domain=example.com"))).isTrue();
+        assertThat(index.put(cookie("amlbcookie=01; Path=/; Domain=example.com"))).isFalse();
+        assertThat(cookieMarshaller.marshalled).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiredCookieRemovesExisting() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+        index.put(cookie("session=v1; Path=/; Domain=example.com"));
+
+        assertThat(index.put(cookie("session=; Path=/; Domain=example.com; Max-Age=0"))).isTrue();
+        assertThat(index.values()).isEmpty();
+        assertThat(index.put(cookie("session=; Path=/; Domain=example.com; Max-Age=0"))).isFalse();
+    }
+
+    @Test
+    public void testMatchParentDomain() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+        index.put(cookie("parent=1; Path=/; Domain=example.com"));
+        index.put(cookie("host=1; Path=/"));
+        index.put(Cookie.parse(HttpUrl.get("https://other.com/"), "other=1; Path=/"));
+
+        assertThat(index.match(URL)).extracting(Cookie::name).containsExactlyInAnyOrder("parent", "host");
+        assertThat(index.match(HttpUrl.get("https://www.example.com/"))).extracting(Cookie::name)
+                .containsExactly("parent");
+    }
+
+    @Test
+    public void testStoredCookiesAreParsedOnce() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+        index.put(cookie("session=v1; Path=/; Domain=example.com"));
+        index.put(cookie("amlbcookie=01; Path=/; Domain=example.com"));
+        Collection<String> stored = index.values();
+
+        CookieIndex loaded = new CookieIndex(cookieMarshaller);
+        assertThat(loaded.load(stored)).isFalse();
+        assertThat(cookieMarshaller.unmarshalled).isEqualTo(2);
+        assertThat(loaded.load(stored)).isFalse();
+        assertThat(cookieMarshaller.unmarshalled).isEqualTo(2);
+        assertThat(loaded.match(URL)).hasSize(2);
+
+        //Only the new value is parsed
+        index.put(cookie("session=v2; Path=/; Domain=example.com"));
+        assertThat(loaded.load(index.values())).isFalse();
+        assertThat(cookieMarshaller.unmarshalled).isEqualTo(3);
+        assertThat(loaded.match(URL)).extracting(Cookie::value).containsExactlyInAnyOrder("v2", "01");
+    }
+
+    @Test
+    public void testInvalidStoredCookieIsRemoved() {
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+        index.put(cookie("session=v1; Path=/; Domain=example.com"));
+        Collection<String> stored = index.values();
+        stored.add("invalid");
+
+        CookieIndex loaded = new CookieIndex(cookieMarshaller);
+        assertThat(loaded.load(stored)).isTrue();
+        assertThat(loaded.values()).hasSize(1);
+    }
+
+    private static class CountingMarshaller extends CookieMarshaller {
+
+        private int marshalled;
+        private int unmarshalled;
+
+        @Override
+        String marshal(Cookie cookie) {
+            marshalled++;
+            return super.marshal(cookie);
+        }
+
+        @Override
+        Cookie unmarshal(String cookie) {
+            unmarshalled++;
+            return super.unmarshal(cookie);
+        }
+    }
+}
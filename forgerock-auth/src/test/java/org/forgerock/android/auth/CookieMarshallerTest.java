@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.util.Base64;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+
+import okhttp3.Cookie;
+import okhttp3.HttpUrl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class CookieMarshallerTest {
+
+    private static final HttpUrl URL = HttpUrl.get("https://openam.example.com/openam/json/authenticate");
+
+    private final CookieMarshaller cookieMarshaller = new CookieMarshaller();
+
+    private static String legacy(Cookie cookie) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(baos)) {
+            outputStream.writeObject(new SerializableCookie(cookie));
+        }
+        return Base64.encodeToString(baos.toByteArray(), Base64.DEFAULT);
+    }
+
+    @Test
+    public void testPersistentCookie() {
+        Cookie cookie = Cookie.parse(URL,
+                "session-jwt=session-jwt-cookie; Expires=Tue, 21 Jan 2220 02:53:31 GMT; Path=/; Domain=example.com; Secure; HttpOnly");
+
+        assertThat(cookieMarshaller.unmarshal(cookieMarshaller.marshal(cookie))).isEqualTo(cookie);
+    }
+
+    @Test
+    public void testSessionHostOnlyCookie() {
+        Cookie cookie = Cookie.parse(URL, "iPlanetDirectoryPro=iPlanetDirectoryProCookie; Path=/openam");
+
+        Cookie result = cookieMarshaller.unmarshal(cookieMarshaller.marshal(cookie));
+        assertThat(result).isEqualTo(cookie);
+        assertThat(result.hostOnly()).isTrue();
+        assertThat(result.persistent()).isFalse();
+    }
+
+    @Test
+    public void testReadLegacyFormat() throws IOException {
+        Cookie cookie = Cookie.parse(URL,
+                "session-jwt=session-jwt-cookie; Expires=Tue, 21 Jan 2220 02:53:31 GMT; Path=/; Domain=example.com; HttpOnly");
+        String legacy = legacy(cookie);
+
+        assertThat(cookieMarshaller.isLegacy(legacy)).isTrue();
+        assertThat(cookieMarshaller.isLegacy(cookieMarshaller.marshal(cookie))).isFalse();
+        assertThat(cookieMarshaller.unmarshal(legacy)).isEqualTo(cookie);
+    }
+
+    @Test
+    public void testCompactFormat() throws IOException {
+        Cookie cookie = Cookie.parse(URL, "amlbcookie=01; Path=/; Domain=example.com");
+
+        assertThat(cookieMarshaller.marshal(cookie).length()).isLessThan(legacy(cookie).length() / 2);
+    }
+
+    @Test
+    public void testUnsupportedFormat() {
+        assertThat(cookieMarshaller.unmarshal(Base64.encodeToString(new byte[]{9, 0}, Base64.NO_WRAP))).isNull();
+    }
+
+    @Test
+    public void testMigrateLegacyFormat() throws IOException {
+        Cookie cookie = Cookie.parse(URL, "amlbcookie=01; Expires=Tue, 21 Jan 2220 02:53:31 GMT; Path=/; Domain=example.com");
+        CookieIndex index = new CookieIndex(cookieMarshaller);
+
+        assertThat(index.load(Collections.singleton(legacy(cookie)))).isTrue();
+        assertThat(index.values()).containsExactly(cookieMarshaller.marshal(cookie));
+        assertThat(index.match(URL)).containsExactly(cookie);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -18,7 +18,10 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -303,6 +306,327 @@ public class DefaultTokenManagerTest extends BaseTest {
 
     }
 
+    @Test
+    public void testWriteBehind() throws Throwable {
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .writeBehind(true)
+                .context(context).build();
+
+        AccessToken accessToken = AccessToken.builder()
+                .value("access token")
+                .idToken("id token")
+                .scope(AccessToken.Scope.parse("openid test"))
+                .tokenType("Bearer")
+                .refreshToken("refresh token")
+                .expiresIn(100)
+                .build();
+
+        tokenManager.persist(accessToken);
+        //Read your write before flush
+        assertTrue(tokenManager.hasToken());
+        assertEquals("access token", getAccessToken(tokenManager).getValue());
+
+        tokenManager.flush();
+        assertNotNull(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE)
+                .getString(OAuth2.ACCESS_TOKEN, null));
+
+        tokenManager.clear();
+        assertFalse(tokenManager.hasToken());
+    }
+
+    @Test
+    public void testConcurrentRefreshSingleFlight() throws Throwable {
+
+        server.enqueue(response("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK)
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        AccessToken accessToken = AccessToken.builder()
+                .value("access token")
+                .idToken("id token")
+                .scope(AccessToken.Scope.parse("openid test"))
+                .tokenType("Bearer")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .sessionToken(new SSOToken("dummy"))
+                .build();
+
+        tokenManager.persist(accessToken);
+        Thread.sleep(1000);
+
+        List<FRListenerFuture<AccessToken>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+            tokenManager.getAccessToken(null, future);
+            futures.add(future);
+        }
+
+        for (FRListenerFuture<AccessToken> future : futures) {
+            assertEquals("Refreshed Token", future.get().getValue());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testFailedRefreshListenerDoesNotBlockWaiters() throws Throwable {
+
+        server.enqueue(response("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK)
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        AccessToken accessToken = AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .sessionToken(new SSOToken("dummy"))
+                .build();
+
+        tokenManager.persist(accessToken);
+        Thread.sleep(1000);
+
+        tokenManager.getAccessToken(null, new FRListener<AccessToken>() {
+            @Override
+            public void onSuccess(AccessToken result) {
+                throw new IllegalStateException("Listener failed");
+            }
+
+            @Override
+            public void onException(Exception e) {
+                throw new IllegalStateException("Listener failed");
+            }
+        });
+        FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+        tokenManager.getAccessToken(null, future);
+
+        assertEquals("Refreshed Token", future.get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testRefreshWithSupersededRefreshToken() throws Throwable {
+
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+        //The Refresh Token has been rotated
+        server.enqueue(new MockResponse()
+                .setBody("{\n" +
+                        "    \"error_description\": \"grant is invalid\",\n" +
+                        "    \"error\": \"invalid_grant\"\n" +
+                        "}")
+                .setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST));
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        AccessToken accessToken = AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .sessionToken(new SSOToken("dummy"))
+                .build();
+
+        tokenManager.persist(accessToken);
+        Thread.sleep(1000);
+
+        assertEquals("Refreshed Token", getAccessToken(tokenManager).getValue());
+
+        //Caller read the Access Token before it was refreshed, and refreshes after the refresh completed
+        FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+        tokenManager.refresh(accessToken, future);
+
+        assertEquals("Refreshed Token", future.get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(1, server.getRequestCount());
+        assertTrue(tokenManager.hasToken());
+    }
+
+    @Test
+    public void testConcurrentRefreshFailureFanOut() throws Throwable {
+
+        server.enqueue(new MockResponse()
+                .setBody("{\n" +
+                        "    \"error_description\": \"grant is invalid\",\n" +
+                        "    \"error\": \"invalid_grant\"\n" +
+                        "}")
+                .setBodyDelay(500, TimeUnit.MILLISECONDS)
+                .setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST));
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        AccessToken accessToken = AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .sessionToken(new SSOToken("dummy"))
+                .build();
+
+        tokenManager.persist(accessToken);
+        Thread.sleep(1000);
+
+        List<FRListenerFuture<AccessToken>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+            tokenManager.getAccessToken(null, future);
+            futures.add(future);
+        }
+
+        for (FRListenerFuture<AccessToken> future : futures) {
+            try {
+                future.get();
+                fail("Expected InvalidGrantException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InvalidGrantException);
+            }
+        }
+        assertEquals(1, server.getRequestCount());
+        assertFalse(tokenManager.hasToken());
+    }
+
+    @Test
+    public void testScopedTokenCache() throws Throwable {
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .scopedCacheSize(2)
+                .context(context).build();
+
+        TokenKey read = TokenKey.builder().scope(AccessToken.Scope.parse("openid read")).build();
+        TokenKey write = TokenKey.builder().scope(AccessToken.Scope.parse("openid write"))
+                .resource("https://api.example.com").build();
+        TokenKey profile = TokenKey.builder().scope(AccessToken.Scope.parse("profile")).build();
+
+        tokenManager.persist(read, AccessToken.builder().value("read token").expiresIn(100).build());
+        tokenManager.persist(write, AccessToken.builder().value("write token").expiresIn(100).build());
+
+        //Same scope in different order
+        assertEquals("read token", getAccessToken(tokenManager,
+                TokenKey.builder().scope(AccessToken.Scope.parse("read openid")).build()).getValue());
+        assertEquals("write token", getAccessToken(tokenManager, write).getValue());
+
+        //Least recently used token is removed
+        tokenManager.persist(profile, AccessToken.builder().value("profile token").expiresIn(100).build());
+        try {
+            getAccessToken(tokenManager, read);
+            fail("Expected AuthenticationRequiredException");
+        } catch (AuthenticationRequiredException e) {
+            //expected
+        }
+
+        //Persisted with the primary token
+        TokenManager another = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .scopedCacheSize(2)
+                .context(context).build();
+        assertEquals("write token", getAccessToken(another, write).getValue());
+        assertEquals("profile token", getAccessToken(another, profile).getValue());
+        assertFalse(another.hasToken());
+    }
+
+    @Test(expected = AuthenticationRequiredException.class)
+    public void testScopedTokenRemovedWhenClear() throws Throwable {
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .context(context).build();
+
+        TokenKey key = TokenKey.builder().scope(AccessToken.Scope.parse("openid read")).build();
+        tokenManager.persist(key, AccessToken.builder().value("read token").expiresIn(100).build());
+        tokenManager.clear();
+
+        getAccessToken(tokenManager, key);
+    }
+
+    @Test
+    public void testScopedTokenRefresh() throws Throwable {
+
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        TokenKey key = TokenKey.builder().scope(AccessToken.Scope.parse("openid read"))
+                .resource("https://api.example.com").build();
+        tokenManager.persist(key, AccessToken.builder()
+                .value("read token")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .build());
+        Thread.sleep(1000);
+
+        assertEquals("Refreshed Token", getAccessToken(tokenManager, key).getValue());
+        String body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("scope=openid%20read"));
+        assertTrue(body.contains("resource=https%3A%2F%2Fapi.example.com"));
+
+        //The refreshed token is cached
+        assertEquals("Refreshed Token", getAccessToken(tokenManager, key).getValue());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testConcurrentScopedRefreshSingleFlight() throws Throwable {
+
+        server.enqueue(response("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK)
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        TokenManager tokenManager = DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(DEFAULT_TOKEN_MANAGER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .context(context).build();
+
+        TokenKey key = TokenKey.builder().scope(AccessToken.Scope.parse("openid read")).build();
+        tokenManager.persist(key, AccessToken.builder()
+                .value("read token")
+                .refreshToken("refresh token")
+                .expiresIn(1)
+                .build());
+        Thread.sleep(1000);
+
+        List<FRListenerFuture<AccessToken>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+            tokenManager.getAccessToken(key, null, future);
+            futures.add(future);
+        }
+
+        for (FRListenerFuture<AccessToken> future : futures) {
+            assertEquals("Refreshed Token", future.get().getValue());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals("Refreshed Token", getAccessToken(tokenManager, key).getValue());
+    }
+
+    private AccessToken getAccessToken(TokenManager tokenManager, TokenKey key) throws Throwable {
+        FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+        tokenManager.getAccessToken(key, null, future);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
     private AccessToken getAccessToken(TokenManager tokenManager) throws Throwable {
         FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
         tokenManager.getAccessToken(null, future);
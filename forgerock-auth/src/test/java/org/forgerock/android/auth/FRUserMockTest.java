@@ -28,7 +28,6 @@ import org.forgerock.android.auth.exception.AuthenticationException;
 import org.forgerock.android.auth.exception.AuthenticationRequiredException;
 import org.json.JSONException;
 import org.junit.Assert;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -133,15 +132,15 @@ public class FRUserMockTest extends BaseTest {
 
     }
 
-    @Ignore("For now not to cache userinfo in memory")
     @Test
     public void userInfoIsCached() throws InterruptedException, ExecutionException, MalformedURLException, ParseException, JSONException {
         frUserHappyPath();
+        int requestCount = server.getRequestCount();
         //No userinfo enqueued
         FRListenerFuture<UserInfo> future = new FRListenerFuture<>();
         FRUser.getCurrentUser().getUserInfo(future);
-        future.get();
-
+        assertEquals("sub", future.get().getSub());
+        assertEquals(requestCount, server.getRequestCount());
     }
 
     /**
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.util.Base64;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.forgerock.android.auth.exception.InvalidIdTokenException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class IdTokenValidatorTest extends BaseTest {
+
+    private static final String ISSUER = "http://openam.example.com:8081/openam/oauth2";
+    private static final int BASE64_URL = Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP;
+
+    private KeyPair keyPair;
+    private IdTokenValidator validator;
+
+    @Before
+    public void setUp() throws Exception {
+        keyPair = generateKeyPair();
+        validator = IdTokenValidator.builder()
+                .clientId("andy_app")
+                .serverConfig(serverConfig)
+                .build();
+    }
+
+    @Test
+    public void testValidIdToken() throws Throwable {
+        server.enqueue(discovery().addHeader("Cache-Control", "max-age=3600"));
+        server.enqueue(jwks(jwk("key1", keyPair)));
+
+        String idToken = sign("key1", keyPair, claims());
+        UserInfo userInfo = validate(idToken);
+
+        assertThat(userInfo.getSub()).isEqualTo("demo");
+        assertThat(userInfo.getEmail()).isEqualTo("demo@example.com");
+        assertThat(server.takeRequest().getPath())
+                .isEqualTo("/oauth2/realms/root/.well-known/openid-configuration");
+        assertThat(server.takeRequest().getPath()).isEqualTo("/oauth2/connect/jwk_uri");
+
+        //Discovery document and JWKS are cached
+        validate(idToken);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRevalidateWithETag() throws Throwable {
+        server.enqueue(discovery().addHeader("Cache-Control", "no-cache").addHeader("ETag", "\"v1\""));
+        server.enqueue(jwks(jwk("key1", keyPair)));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+
+        String idToken = sign("key1", keyPair, claims());
+        validate(idToken);
+        validate(idToken);
+
+        assertThat(server.getRequestCount()).isEqualTo(3);
+        server.takeRequest();
+        server.takeRequest();
+        RecordedRequest revalidate = server.takeRequest();
+        assertThat(revalidate.getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    public void testReloadJwksWhenKeyNotFound() throws Throwable {
+        KeyPair rotated = generateKeyPair();
+        server.enqueue(discovery());
+        server.enqueue(jwks(jwk("key1", keyPair)));
+        server.enqueue(jwks(jwk("key1", keyPair), jwk("key2", rotated)));
+
+        validate(sign("key1", keyPair, claims()));
+        UserInfo userInfo = validate(sign("key2", rotated, claims()));
+
+        assertThat(userInfo.getSub()).isEqualTo("demo");
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testInvalidSignature() throws Throwable {
+        server.enqueue(discovery());
+        server.enqueue(jwks(jwk("key1", keyPair)));
+
+        assertInvalid(sign("key1", generateKeyPair(), claims()));
+    }
+
+    @Test
+    public void testInvalidAudience() throws Throwable {
+        server.enqueue(discovery());
+
+        assertInvalid(sign("key1", keyPair, claims().put("aud", "another_app")));
+    }
+
+    @Test
+    public void testInvalidIssuer() throws Throwable {
+        server.enqueue(discovery());
+
+        assertInvalid(sign("key1", keyPair, claims().put("iss", "https://attacker.example.com")));
+    }
+
+    @Test
+    public void testExpiredIdToken() throws Throwable {
+        server.enqueue(discovery());
+
+        long now = System.currentTimeMillis() / 1000;
+        assertInvalid(sign("key1", keyPair, claims().put("exp", now - 3600)));
+    }
+
+    @Test
+    public void testUnsignedIdToken() throws Throwable {
+        String header = encode(new JSONObject().put("alg", "none").toString());
+        String payload = encode(claims().toString());
+
+        assertInvalid(header + "." + payload + ".");
+        assertThat(server.getRequestCount()).isEqualTo(0);
+    }
+
+    private void assertInvalid(String idToken) throws Throwable {
+        try {
+            validate(idToken);
+            fail("Expected InvalidIdTokenException");
+        } catch (InvalidIdTokenException e) {
+            //expected
+        }
+    }
+
+    private UserInfo validate(String idToken) throws Throwable {
+        FRListenerFuture<UserInfo> future = new FRListenerFuture<>();
+        validator.validate(idToken, future);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private MockResponse discovery() throws Exception {
+        return new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .addHeader("Content-Type", "application/json")
+                .setBody(new JSONObject()
+                        .put("issuer", ISSUER)
+                        .put("jwks_uri", getUrl() + "/oauth2/connect/jwk_uri")
+                        .toString());
+    }
+
+    private MockResponse jwks(JSONObject... keys) throws Exception {
+        JSONArray array = new JSONArray();
+        for (JSONObject key : keys) {
+            array.put(key);
+        }
+        return new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .addHeader("Content-Type", "application/json")
+                .setBody(new JSONObject().put("keys", array).toString());
+    }
+
+    private JSONObject claims() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        return new JSONObject()
+                .put("iss", ISSUER)
+                .put("sub", "demo")
+                .put("aud", "andy_app")
+                .put("azp", "andy_app")
+                .put("email", "demo@example.com")
+                .put("iat", now)
+                .put("exp", now + 3600);
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static JSONObject jwk(String kid, KeyPair keyPair) throws Exception {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        return new JSONObject()
+                .put("kty", "RSA")
+                .put("kid", kid)
+                .put("use", "sig")
+                .put("alg", "RS256")
+                .put("n", encode(publicKey.getModulus()))
+                .put("e", encode(publicKey.getPublicExponent()));
+    }
+
+    private static String sign(String kid, KeyPair keyPair, JSONObject claims) throws Exception {
+        String header = encode(new JSONObject().put("alg", "RS256").put("kid", kid).toString());
+        String payload = encode(claims.toString());
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + payload + "." + Base64.encodeToString(signature.sign(), BASE64_URL);
+    }
+
+    private static String encode(String value) {
+        return Base64.encodeToString(value.getBytes(StandardCharsets.UTF_8), BASE64_URL);
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.encodeToString(bytes, BASE64_URL);
+    }
+}
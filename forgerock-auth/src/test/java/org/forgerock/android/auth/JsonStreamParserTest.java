@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.apache.commons.io.IOUtils;
+import org.forgerock.android.auth.callback.Callback;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonStreamParserTest {
+
+    private static final String[] RESOURCES = {
+            "/authTreeMockTest_Authenticate_NameCallback.json",
+            "/authTreeMockTest_Authenticate_PageCallback.json",
+            "/authTreeMockTest_Authenticate_MetadataWithStageCallback.json",
+            "/authTreeMockTest_Authenticate_IdPCallback.json",
+            "/authTreeMockTest_Authenticate_accessToken.json",
+            "/registration_kba_definition.json",
+            "/registration_attribute_collector.json",
+            "/registration_accept_terms_and_conditions.json",
+            "/webAuthn_registration_71.json",
+            "/webAuthn_authentication_71.json",
+            "/userinfo_success.json",
+    };
+
+    @After
+    public void tearDown() {
+        Config.reset();
+    }
+
+    private String getJson(String path) throws IOException {
+        return IOUtils.toString(getClass().getResourceAsStream(path), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testParity() throws Exception {
+        for (String resource : RESOURCES) {
+            String json = getJson(resource);
+            assertThat(JsonStreamParser.parse(new StringReader(json)).toString())
+                    .as(resource)
+                    .isEqualTo(new JSONObject(json).toString());
+        }
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        String json = "{\"int\":1,\"negative\":-1,\"long\":3000000000,\"double\":1.5,\"exponent\":1e3,\"zero\":0.0}";
+        JSONObject expected = new JSONObject(json);
+        JSONObject result = JsonStreamParser.parse(new StringReader(json));
+        assertThat(result.toString()).isEqualTo(expected.toString());
+        assertThat(result.get("int")).isEqualTo(expected.get("int")).isInstanceOf(Integer.class);
+        assertThat(result.get("long")).isEqualTo(expected.get("long")).isInstanceOf(Long.class);
+        assertThat(result.get("double")).isEqualTo(expected.get("double")).isInstanceOf(Double.class);
+        assertThat(result.get("exponent")).isEqualTo(expected.get("exponent"));
+    }
+
+    @Test
+    public void testNullAndBoolean() throws Exception {
+        String json = "{\"null\":null,\"true\":true,\"array\":[null,false,\"value\",{}]}";
+        JSONObject result = JsonStreamParser.parse(new StringReader(json));
+        assertThat(result.isNull("null")).isTrue();
+        assertThat(result.getBoolean("true")).isTrue();
+        assertThat(result.toString()).isEqualTo(new JSONObject(json).toString());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testInvalidJson() throws Exception {
+        JsonStreamParser.parse(new StringReader("[\"not an object\"]"));
+    }
+
+    @Test
+    public void testNodeParity() throws Exception {
+        String json = getJson("/registration_kba_definition.json");
+        NodeListener<Void> listener = new NodeListenerFuture<Void>() {
+            @Override
+            public void onCallbackReceived(Node node) {
+            }
+        };
+
+        Node expected = listener.onCallbackReceived("test", new JSONObject(json));
+        Node result = listener.onCallbackReceived("test", JsonStreamParser.parse(new StringReader(json)));
+
+        assertThat(result.getAuthId()).isEqualTo(expected.getAuthId());
+        assertThat(result.getStage()).isEqualTo(expected.getStage());
+        List<Callback> expectedCallbacks = expected.getCallbacks();
+        assertThat(result.getCallbacks()).hasSameSizeAs(expectedCallbacks);
+        for (int i = 0; i < expectedCallbacks.size(); i++) {
+            assertThat(result.getCallbacks().get(i).getContent()).isEqualTo(expectedCallbacks.get(i).getContent());
+        }
+    }
+
+    @Test
+    public void testAccessTokenParity() throws Exception {
+        AccessToken expected = handleTokenResponse(false);
+        AccessToken result = handleTokenResponse(true);
+
+        assertThat(result.getValue()).isEqualTo(expected.getValue());
+        assertThat(result.getIdToken()).isEqualTo(expected.getIdToken());
+        assertThat(result.getRefreshToken()).isEqualTo(expected.getRefreshToken());
+        assertThat(result.getScope()).isEqualTo(expected.getScope());
+        assertThat(result.getTokenType()).isEqualTo(expected.getTokenType());
+        assertThat(result.getExpiresIn()).isEqualTo(expected.getExpiresIn());
+    }
+
+    @Test
+    public void testAccessTokenParityWithoutRefreshToken() throws Exception {
+        String json = "{\"access_token\":\"access token\",\"expires_in\":\"60\",\"ignored\":{\"array\":[1,null]}}";
+        AccessToken expected = handleTokenResponse(false, json, "refresh token");
+        AccessToken result = handleTokenResponse(true, json, "refresh token");
+
+        assertThat(result.getValue()).isEqualTo(expected.getValue()).isEqualTo("access token");
+        assertThat(result.getRefreshToken()).isEqualTo(expected.getRefreshToken()).isEqualTo("refresh token");
+        assertThat(result.getExpiresIn()).isEqualTo(expected.getExpiresIn()).isEqualTo(60);
+        assertThat(result.getIdToken()).isEqualTo(expected.getIdToken()).isNull();
+        assertThat(result.getScope()).isEqualTo(expected.getScope()).isNull();
+    }
+
+    @Test(expected = JSONException.class)
+    public void testAccessTokenMissingValue() throws Throwable {
+        try {
+            handleTokenResponse(true, "{\"token_type\":\"Bearer\"}", null);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private AccessToken handleTokenResponse(boolean streaming) throws IOException, ExecutionException, InterruptedException {
+        return handleTokenResponse(streaming, getJson("/authTreeMockTest_Authenticate_accessToken.json"), null);
+    }
+
+    private AccessToken handleTokenResponse(boolean streaming, String json, String refreshToken)
+            throws ExecutionException, InterruptedException {
+        Config.getInstance().setStreamingJson(streaming);
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("https://openam.example.com/access_token").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(MediaType.get("application/json"), json))
+                .build();
+        FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+        new OAuth2ResponseHandler().handleTokenResponse(null, response, refreshToken, future);
+        return future.get();
+    }
+}
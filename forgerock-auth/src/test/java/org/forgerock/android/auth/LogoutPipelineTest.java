@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.forgerock.android.auth.exception.ApiException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class LogoutPipelineTest extends BaseTest {
+
+    private static final String LOGOUT_PIPELINE_TEST = "LogoutPipelineTest";
+
+    @Test
+    public void testStepsRunInParallel() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        Map<String, LogoutPipeline.Step> steps = new LinkedHashMap<>();
+        //Each step completes only when both steps are started
+        steps.put(Action.REVOKE_TOKEN, l -> complete(started, l));
+        steps.put(Action.LOGOUT, l -> complete(started, l));
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        LogoutPipeline.builder().build().execute(steps, future);
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getSteps()).containsKeys(Action.REVOKE_TOKEN, Action.LOGOUT);
+        assertThat(result.getStatus(Action.END_SESSION)).isEqualTo(LogoutResult.Status.SKIPPED);
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        Map<String, LogoutPipeline.Step> steps = new LinkedHashMap<>();
+        steps.put(Action.REVOKE_TOKEN, l -> Listener.onSuccess(l, null));
+        //Never complete
+        steps.put(Action.LOGOUT, l -> {
+        });
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        LogoutPipeline.builder().timeout(100L).build().execute(steps, future);
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getStatus(Action.REVOKE_TOKEN)).isEqualTo(LogoutResult.Status.SUCCESS);
+        assertThat(result.getStatus(Action.LOGOUT)).isEqualTo(LogoutResult.Status.TIMEOUT);
+        assertThat(result.getException(Action.LOGOUT)).isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    public void testDeferTransientFailure() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE));
+        Outbox outbox = outbox();
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        LogoutPipeline.builder().outbox(outbox).build().execute(requestStep(), future);
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.getStatus(Action.REVOKE_TOKEN)).isEqualTo(LogoutResult.Status.FAILED);
+        assertThat(outbox.size()).isEqualTo(1);
+        outbox.clear();
+    }
+
+    @Test
+    public void testNoDeferClientError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST));
+        Outbox outbox = outbox();
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        LogoutPipeline.builder().outbox(outbox).build().execute(requestStep(), future);
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.getStatus(Action.REVOKE_TOKEN)).isEqualTo(LogoutResult.Status.FAILED);
+        assertThat(result.getException(Action.REVOKE_TOKEN)).isInstanceOf(ApiException.class);
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLogout() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        TokenManager tokenManager = Config.getInstance().getTokenManager();
+        SingleSignOnManager singleSignOnManager = Config.getInstance().getSingleSignOnManager();
+        tokenManager.persist(AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh token")
+                .idToken("id token")
+                .expiresIn(3600)
+                .build());
+        singleSignOnManager.persist(new SSOToken("sso token"));
+
+        SessionManager sessionManager = SessionManager.builder()
+                .tokenManager(tokenManager)
+                .singleSignOnManager(singleSignOnManager)
+                .oAuth2Client(oAuth2Client)
+                .serverConfig(serverConfig)
+                .build();
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        sessionManager.logout(future);
+        //Local state is removed without waiting for the server
+        assertThat(sessionManager.hasSession()).isFalse();
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getSteps()).containsKeys(Action.REVOKE_TOKEN, Action.END_SESSION, Action.LOGOUT);
+
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RecordedRequest request = server.takeRequest();
+            paths.add(request.getPath());
+        }
+        assertThat(paths).anyMatch(path -> path.startsWith("/oauth2/realms/root/token/revoke"));
+        assertThat(paths).anyMatch(path -> path.startsWith("/oauth2/realms/root/connect/endSession"));
+        assertThat(paths).anyMatch(path -> path.startsWith("/json/realms/root/sessions?_action=logout"));
+    }
+
+    @Test
+    public void testLogoutWithCustomSingleSignOnManager() throws Exception {
+        SingleSignOnManager singleSignOnManager = mock(SingleSignOnManager.class);
+        when(singleSignOnManager.hasToken()).thenReturn(true);
+        doAnswer(invocation -> {
+            Listener.onSuccess(invocation.getArgument(0), null);
+            return null;
+        }).when(singleSignOnManager).revoke(any());
+
+        SessionManager sessionManager = SessionManager.builder()
+                .tokenManager(Config.getInstance().getTokenManager())
+                .singleSignOnManager(singleSignOnManager)
+                .oAuth2Client(oAuth2Client)
+                .serverConfig(serverConfig)
+                .build();
+
+        FRListenerFuture<LogoutResult> future = new FRListenerFuture<>();
+        sessionManager.logout(future);
+
+        LogoutResult result = future.get(5, TimeUnit.SECONDS);
+        assertThat(result.getStatus(Action.LOGOUT)).isEqualTo(LogoutResult.Status.SUCCESS);
+        verify(singleSignOnManager).revoke(any());
+    }
+
+    private Outbox outbox() {
+        return Outbox.builder()
+                .context(context)
+                .serverConfig(serverConfig)
+                .sharedPreferences(context.getSharedPreferences(LOGOUT_PIPELINE_TEST, Context.MODE_PRIVATE))
+                .build();
+    }
+
+    private Map<String, LogoutPipeline.Step> requestStep() throws Exception {
+        Map<String, LogoutPipeline.Step> steps = new LinkedHashMap<>();
+        steps.put(Action.REVOKE_TOKEN, new LogoutPipeline.RequestStep(oAuth2Client.getOkHttpClient(),
+                oAuth2Client.getRevokeRequest(AccessToken.builder().value("access token").build())));
+        return steps;
+    }
+
+    private static void complete(CountDownLatch started, FRListener<Void> listener) {
+        started.countDown();
+        new Thread(() -> {
+            try {
+                if (started.await(5, TimeUnit.SECONDS)) {
+                    Listener.onSuccess(listener, null);
+                } else {
+                    Listener.onException(listener, new IllegalStateException("Steps are not started in parallel"));
+                }
+            } catch (InterruptedException e) {
+                Listener.onException(listener, e);
+            }
+        }).start();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class OutboxTest extends BaseTest {
+
+    private static final String OUTBOX_TEST = "OutboxTest";
+
+    @After
+    public void tearDown() {
+        context.deleteSharedPreferences(OUTBOX_TEST);
+    }
+
+    private Outbox outbox(long initialBackoff) {
+        return Outbox.builder()
+                .context(context)
+                .serverConfig(serverConfig)
+                .sharedPreferences(context.getSharedPreferences(OUTBOX_TEST, Context.MODE_PRIVATE))
+                .initialBackoff(initialBackoff)
+                .build();
+    }
+
+    private AccessToken accessToken() {
+        return AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh_token_value")
+                .build();
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        Outbox outbox = outbox(Outbox.INITIAL_BACKOFF);
+        outbox.add(oAuth2Client.getRevokeRequest(accessToken()));
+        outbox.add(oAuth2Client.getEndSessionRequest("id token"));
+        assertThat(outbox.size()).isEqualTo(2);
+
+        outbox.drain();
+
+        assertThat(outbox.size()).isEqualTo(0);
+        RecordedRequest revoke = server.takeRequest();
+        RecordedRequest endSession = server.takeRequest();
+        if (!revoke.getMethod().equals("POST")) {
+            RecordedRequest temp = revoke;
+            revoke = endSession;
+            endSession = temp;
+        }
+        assertThat(revoke.getMethod()).isEqualTo("POST");
+        assertThat(revoke.getPath()).isEqualTo("/oauth2/realms/root/token/revoke");
+        assertThat(revoke.getHeader(ServerConfig.ACCEPT_API_VERSION)).isEqualTo(ServerConfig.API_VERSION_2_1);
+        assertThat(revoke.getHeader("Content-Type")).startsWith("application/x-www-form-urlencoded");
+        assertThat(revoke.getBody().readUtf8()).contains("refresh_token_value");
+        assertThat(endSession.getMethod()).isEqualTo("GET");
+        assertThat(endSession.getPath()).startsWith("/oauth2/realms/root/connect/endSession");
+    }
+
+    @Test
+    public void testRetryServerErrorWithBackoff() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        Outbox outbox = outbox(200L);
+        outbox.add(oAuth2Client.getRevokeRequest(accessToken()));
+
+        outbox.drain();
+        assertThat(outbox.size()).isEqualTo(1);
+
+        //Not retried before the backoff delay
+        outbox.drain();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+
+        Thread.sleep(300);
+        outbox.drain();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testScheduledRetryWithBackoff() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        //Sent and retried by the Outbox thread without draining the queue manually
+        Outbox outbox = outbox(200L);
+        outbox.add(oAuth2Client.getRevokeRequest(accessToken()));
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while ((server.getRequestCount() < 2 || outbox.size() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDiscardClientError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST));
+
+        Outbox outbox = outbox(Outbox.INITIAL_BACKOFF);
+        outbox.add(oAuth2Client.getRevokeRequest(accessToken()));
+        outbox.drain();
+
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDiscardAfterMaxAttempts() throws Exception {
+        Outbox outbox = outbox(Outbox.INITIAL_BACKOFF);
+        outbox.add(oAuth2Client.getRevokeRequest(accessToken()), Outbox.MAX_ATTEMPTS);
+
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCallsSurviveRestart() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK));
+
+        outbox(Outbox.INITIAL_BACKOFF).add(oAuth2Client.getRevokeRequest(accessToken()));
+
+        //A new instance reads the queued calls from the storage
+        Outbox outbox = outbox(Outbox.INITIAL_BACKOFF);
+        assertThat(outbox.size()).isEqualTo(1);
+        outbox.drain();
+
+        assertThat(server.takeRequest().getPath()).isEqualTo("/oauth2/realms/root/token/revoke");
+        assertThat(outbox.size()).isEqualTo(0);
+    }
+}
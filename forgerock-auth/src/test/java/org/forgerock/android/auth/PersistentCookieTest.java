@@ -16,10 +16,15 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import java.net.HttpURLConnection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
+import okhttp3.Cookie;
+import okhttp3.HttpUrl;
+
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -279,8 +284,8 @@ public class PersistentCookieTest extends BaseTest {
         FRSession.authenticate(context, "Example", nodeListenerFuture);
         assertThat(nodeListenerFuture.get()).isInstanceOf(FRSession.class);
 
-        //Second request with delete the cookies
-        Config.getInstance().getSingleSignOnManager().clear();
+        //Second request with delete the stored cookies, logout discards the cache, so remove them from the storage only
+        Config.getInstance().getSingleSignOnManager().persist(Collections.<String>emptyList());
         nodeListenerFuture.reset();
         FRSession.authenticate(context, "Example", nodeListenerFuture);
         nodeListenerFuture.get();
@@ -332,6 +337,31 @@ public class PersistentCookieTest extends BaseTest {
 
     }
 
+    @Test
+    public void cookieCacheNotRestoredAfterLogout() {
+
+        SecureCookieJar cookieJar = SecureCookieJar.builder()
+                .context(context)
+                .cacheIntervalMillis(10000L)
+                .build();
+        HttpUrl url = HttpUrl.get("http://localhost/");
+
+        cookieJar.saveFromResponse(url, Collections.singletonList(
+                Cookie.parse(url, "iPlanetDirectoryPro=iPlanetDirectoryProCookie; Path=/; Domain=localhost")));
+        assertThat(cookieJar.loadForRequest(url)).hasSize(1);
+
+        Config.getInstance().getSingleSignOnManager().clear();
+
+        //Response received after logout
+        cookieJar.saveFromResponse(url, Collections.singletonList(
+                Cookie.parse(url, "amlbcookie=01; Path=/; Domain=localhost")));
+
+        assertThat(Config.getInstance().getSingleSignOnManager().getCookies()).hasSize(1);
+        List<Cookie> cookies = cookieJar.loadForRequest(url);
+        assertThat(cookies).hasSize(1);
+        assertThat(cookies.get(0).name()).isEqualTo("amlbcookie");
+    }
+
     private Map<String, String> toMap(String cookieStr) {
         if (cookieStr == null) {
             return null;
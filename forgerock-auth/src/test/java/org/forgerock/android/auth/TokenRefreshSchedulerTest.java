@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class TokenRefreshSchedulerTest extends BaseTest {
+
+    private static final String TOKEN_REFRESH_SCHEDULER_TEST = "TokenRefreshSchedulerTest";
+
+    @After
+    public void tearDown() {
+        TokenRefreshScheduler.getInstance().onForeground();
+        TokenRefreshScheduler.getInstance().cancel();
+        context.deleteSharedPreferences(TOKEN_REFRESH_SCHEDULER_TEST);
+    }
+
+    private AccessToken accessToken(long expiresIn) {
+        return AccessToken.builder()
+                .value("access token")
+                .refreshToken("refresh token")
+                .expiresIn(expiresIn)
+                .sessionToken(new SSOToken("dummy"))
+                .build();
+    }
+
+    private TokenManager tokenManager() {
+        return DefaultTokenManager.builder()
+                .sharedPreferences(context.getSharedPreferences(TOKEN_REFRESH_SCHEDULER_TEST, Context.MODE_PRIVATE))
+                .oAuth2Client(oAuth2Client)
+                .threshold(0L)
+                .proactiveRefresh(true)
+                .context(context).build();
+    }
+
+    private boolean awaitRequest(long timeoutMillis) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < end) {
+            if (server.getRequestCount() > 0) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return server.getRequestCount() > 0;
+    }
+
+    @Test
+    public void testDelayWithJitter() {
+        AccessToken accessToken = accessToken(100);
+        assertThat(TokenRefreshScheduler.delayMillis(accessToken, 10, 0))
+                .isBetween(TimeUnit.SECONDS.toMillis(74), TimeUnit.SECONDS.toMillis(75));
+        assertThat(TokenRefreshScheduler.delayMillis(accessToken, 10, 1))
+                .isBetween(TimeUnit.SECONDS.toMillis(84), TimeUnit.SECONDS.toMillis(85));
+    }
+
+    @Test
+    public void testDelayBeforeThreshold() {
+        AccessToken accessToken = accessToken(100);
+        assertThat(TokenRefreshScheduler.delayMillis(accessToken, 30, 1))
+                .isLessThanOrEqualTo(TimeUnit.SECONDS.toMillis(70));
+        assertThat(TokenRefreshScheduler.delayMillis(accessToken, 200, 1)).isEqualTo(0);
+    }
+
+    @Test
+    public void testBackoff() {
+        assertThat(TokenRefreshScheduler.backoffMillis(1, 1)).isEqualTo(TokenRefreshScheduler.BACKOFF_BASE_MILLIS);
+        assertThat(TokenRefreshScheduler.backoffMillis(2, 1)).isEqualTo(TokenRefreshScheduler.BACKOFF_BASE_MILLIS * 2);
+        assertThat(TokenRefreshScheduler.backoffMillis(2, 0)).isEqualTo(TokenRefreshScheduler.BACKOFF_BASE_MILLIS);
+        assertThat(TokenRefreshScheduler.backoffMillis(100, 1)).isEqualTo(TokenRefreshScheduler.BACKOFF_MAX_MILLIS);
+    }
+
+    @Test
+    public void testRefreshBeforeExpire() throws Exception {
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+
+        TokenManager tokenManager = tokenManager();
+        tokenManager.persist(accessToken(2));
+        assertThat(TokenRefreshScheduler.getInstance().isScheduled()).isTrue();
+
+        assertThat(awaitRequest(5000)).isTrue();
+        //Wait for the refreshed token to be persisted
+        Thread.sleep(500);
+        FRListenerFuture<AccessToken> future = new FRListenerFuture<>();
+        tokenManager.getAccessToken(null, future);
+        assertThat(future.get().getValue()).isEqualTo("Refreshed Token");
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPausedInBackground() throws Exception {
+        enqueue("/authenticate_refreshToken.json", HttpURLConnection.HTTP_OK);
+
+        TokenRefreshScheduler.getInstance().onBackground();
+        tokenManager().persist(accessToken(1));
+
+        assertThat(awaitRequest(2000)).isFalse();
+
+        TokenRefreshScheduler.getInstance().onForeground();
+        assertThat(awaitRequest(2000)).isTrue();
+    }
+
+    @Test
+    public void testCancelOnClear() {
+        TokenManager tokenManager = tokenManager();
+        tokenManager.persist(accessToken(100));
+        assertThat(TokenRefreshScheduler.getInstance().isScheduled()).isTrue();
+
+        tokenManager.clear();
+        assertThat(TokenRefreshScheduler.getInstance().isScheduled()).isFalse();
+    }
+}
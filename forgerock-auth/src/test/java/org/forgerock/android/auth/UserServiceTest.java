@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserServiceTest extends BaseTest {
+
+    private TokenManager persistToken(String value) {
+        TokenManager tokenManager = Config.getInstance().getTokenManager();
+        tokenManager.persist(AccessToken.builder()
+                .value(value)
+                .refreshToken("refresh token")
+                .expiresIn(3600)
+                .build());
+        return tokenManager;
+    }
+
+    private UserService userService(TokenManager tokenManager, long cacheTtl) {
+        return UserService.builder()
+                .serverConfig(serverConfig)
+                .tokenManager(tokenManager)
+                .cacheTtl(cacheTtl)
+                .build();
+    }
+
+    private MockResponse userinfo() {
+        return new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .addHeader("Content-Type", "application/json")
+                .setBody(getJson("/userinfo_success.json"));
+    }
+
+    private UserInfo getUserInfo(UserService userService) throws Exception {
+        FRListenerFuture<UserInfo> future = new FRListenerFuture<>();
+        userService.userinfo(future);
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testUserInfoIsCached() throws Exception {
+        server.enqueue(userinfo());
+        UserService userService = userService(persistToken("access token"), UserService.DEFAULT_CACHE_TTL);
+
+        UserInfo first = getUserInfo(userService);
+        UserInfo second = getUserInfo(userService);
+
+        assertThat(second).isSameAs(first);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(server.takeRequest().getHeader("Authorization")).isEqualTo("Bearer access token");
+    }
+
+    @Test
+    public void testRevalidateWithEtag() throws Exception {
+        server.enqueue(userinfo().addHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+        UserService userService = userService(persistToken("access token"), 0L);
+
+        UserInfo first = getUserInfo(userService);
+        UserInfo second = getUserInfo(userService);
+
+        assertThat(second.getSub()).isEqualTo(first.getSub());
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    public void testConcurrentRequestsSingleFlight() throws Exception {
+        server.enqueue(userinfo().setBodyDelay(500, TimeUnit.MILLISECONDS));
+        UserService userService = userService(persistToken("access token"), UserService.DEFAULT_CACHE_TTL);
+
+        List<FRListenerFuture<UserInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FRListenerFuture<UserInfo> future = new FRListenerFuture<>();
+            userService.userinfo(future);
+            futures.add(future);
+        }
+
+        for (FRListenerFuture<UserInfo> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).getSub()).isEqualTo("sub");
+        }
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedListenerDoesNotBlockWaiters() throws Exception {
+        server.enqueue(userinfo().setBodyDelay(500, TimeUnit.MILLISECONDS));
+        UserService userService = userService(persistToken("access token"), UserService.DEFAULT_CACHE_TTL);
+
+        userService.userinfo(new FRListener<UserInfo>() {
+            @Override
+            public void onSuccess(UserInfo result) {
+                throw new IllegalStateException("Listener failed");
+            }
+
+            @Override
+            public void onException(Exception e) {
+                throw new IllegalStateException("Listener failed");
+            }
+        });
+        FRListenerFuture<UserInfo> future = new FRListenerFuture<>();
+        userService.userinfo(future);
+
+        assertThat(future.get(5, TimeUnit.SECONDS).getSub()).isEqualTo("sub");
+    }
+
+    @Test
+    public void testNotCachedAfterTokenRefreshed() throws Exception {
+        server.enqueue(userinfo());
+        server.enqueue(userinfo());
+        UserService userService = userService(persistToken("access token"), UserService.DEFAULT_CACHE_TTL);
+        getUserInfo(userService);
+
+        persistToken("refreshed token");
+        getUserInfo(userService);
+
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        server.takeRequest();
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getHeader("Authorization")).isEqualTo("Bearer refreshed token");
+    }
+
+    @Test
+    public void testClearedWhenTokenRemoved() throws Exception {
+        server.enqueue(userinfo());
+        server.enqueue(userinfo());
+        TokenManager tokenManager = persistToken("access token");
+        UserService userService = Config.getInstance().getUserService();
+        getUserInfo(userService);
+
+        //Notify the token removed event
+        tokenManager.clear();
+        persistToken("access token");
+        getUserInfo(userService);
+
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+}
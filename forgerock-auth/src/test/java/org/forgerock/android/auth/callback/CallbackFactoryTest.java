@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth.callback;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class CallbackFactoryTest {
+
+    private static final String NAME_CALLBACK = "{\n" +
+            "    \"type\": \"NameCallback\",\n" +
+            "    \"output\": [\n" +
+            "        {\n" +
+            "            \"name\": \"prompt\",\n" +
+            "            \"value\": \"User Name\"\n" +
+            "        }\n" +
+            "    ],\n" +
+            "    \"input\": [\n" +
+            "        {\n" +
+            "            \"name\": \"IDToken1\",\n" +
+            "            \"value\": \"\"\n" +
+            "        }\n" +
+            "    ]\n" +
+            "}";
+
+    @Test
+    public void testRegisteredTypeMatchesCallbackType() throws Exception {
+        for (Map.Entry<String, Class<? extends Callback>> entry : CallbackFactory.getInstance().getCallbacks().entrySet()) {
+            assertThat(CallbackFactory.getInstance().getType(entry.getValue())).isEqualTo(entry.getKey());
+        }
+    }
+
+    @Test
+    public void testCreateByType() throws Exception {
+        Callback callback = CallbackFactory.getInstance().create("NameCallback", new JSONObject(NAME_CALLBACK), 1);
+        assertThat(callback).isInstanceOf(NameCallback.class);
+        assertThat(((NameCallback) callback).getPrompt()).isEqualTo("User Name");
+        assertThat(((NameCallback) callback).get_id()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCreateByClass() throws Exception {
+        Callback callback = CallbackFactory.getInstance().create(NameCallback.class, new JSONObject(NAME_CALLBACK), 0);
+        assertThat(callback).isInstanceOf(NameCallback.class);
+        assertThat(((NameCallback) callback).getPrompt()).isEqualTo("User Name");
+    }
+
+    @Test
+    public void testUnknownType() throws Exception {
+        assertThat(CallbackFactory.getInstance().create("UnknownCallback", new JSONObject(NAME_CALLBACK), 0)).isNull();
+    }
+
+    @Test
+    public void testRegisterCustomCallback() throws Exception {
+        CallbackFactory.getInstance().register(FactoryTestCallback.class);
+        assertThat(CallbackFactory.getInstance().getCallbacks()).containsEntry("FactoryTestCallback", FactoryTestCallback.class);
+
+        Callback callback = CallbackFactory.getInstance().create("FactoryTestCallback", new JSONObject(NAME_CALLBACK), 0);
+        assertThat(callback).isInstanceOf(FactoryTestCallback.class);
+        assertThat(((FactoryTestCallback) callback).getPrompt()).isEqualTo("User Name");
+    }
+
+    @Test
+    public void testCallbackAddedToCallbacks() throws Exception {
+        CallbackFactory.getInstance().getCallbacks().put("MapTestCallback", MapTestCallback.class);
+        try {
+            Callback callback = CallbackFactory.getInstance().create("MapTestCallback", new JSONObject(NAME_CALLBACK), 0);
+            assertThat(callback).isInstanceOf(MapTestCallback.class);
+            assertThat(((MapTestCallback) callback).getPrompt()).isEqualTo("User Name");
+        } finally {
+            CallbackFactory.getInstance().getCallbacks().remove("MapTestCallback");
+        }
+    }
+
+    @Test
+    public void testCallbackReplacedInCallbacks() throws Exception {
+        CallbackFactory.getInstance().getCallbacks().put("NameCallback", MapTestCallback.class);
+        try {
+            Callback callback = CallbackFactory.getInstance().create("NameCallback", new JSONObject(NAME_CALLBACK), 0);
+            assertThat(callback).isInstanceOf(MapTestCallback.class);
+        } finally {
+            CallbackFactory.getInstance().getCallbacks().put("NameCallback", NameCallback.class);
+        }
+    }
+
+    public static final class MapTestCallback extends AbstractPromptCallback {
+
+        public MapTestCallback() {
+            super();
+        }
+
+        public MapTestCallback(JSONObject jsonObject, int index) {
+            super(jsonObject, index);
+        }
+
+        @Override
+        public String getType() {
+            return "MapTestCallback";
+        }
+    }
+
+    public static final class FactoryTestCallback extends AbstractPromptCallback {
+
+        public FactoryTestCallback() {
+            super();
+        }
+
+        public FactoryTestCallback(JSONObject jsonObject, int index) {
+            super(jsonObject, index);
+        }
+
+        @Override
+        public String getType() {
+            return "FactoryTestCallback";
+        }
+    }
+}
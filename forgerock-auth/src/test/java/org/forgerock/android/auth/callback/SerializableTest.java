@@ -15,11 +15,17 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 //Test to make sure all Callback class are serializable
 @RunWith(RobolectricTestRunner.class)
 public class SerializableTest {
@@ -42,6 +48,29 @@ public class SerializableTest {
         }
     }
 
+    @Test
+    public void testCallbackStateSurvivesSerialization() throws Exception {
+        JSONObject raw = new JSONObject("{\"type\":\"NameCallback\"," +
+                "\"output\":[{\"name\":\"prompt\",\"value\":\"User Name\"}]," +
+                "\"input\":[{\"name\":\"IDToken1\",\"value\":\"\"}],\"_id\":0}");
+        NameCallback callback = new NameCallback(raw, 0);
+        callback.setName("tester");
+
+        NameCallback restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(convertToBytes(callback)))) {
+            restored = (NameCallback) in.readObject();
+        }
+        assertThat(restored.getContent()).isEqualTo(callback.getContent());
+        assertThat(restored.getPrompt()).isEqualTo("User Name");
+        assertThat(restored.getInputValue()).isEqualTo("tester");
+
+        //The restored Callback can still be updated
+        restored.setName("another");
+        assertThat(restored.toJsonObject().getJSONArray("input").getJSONObject(0).getString("value"))
+                .isEqualTo("another");
+        assertThat(callback.getInputValue()).isEqualTo("tester");
+    }
+
     private byte[] convertToBytes(Object object) throws IOException {
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
              ObjectOutputStream out = new ObjectOutputStream(bos)) {
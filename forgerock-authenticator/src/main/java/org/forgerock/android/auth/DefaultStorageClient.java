@@ -57,8 +57,10 @@ class DefaultStorageClient implements StorageClient {
     public List<Account> getAllAccounts() {
         List<Account> accountList = new ArrayList<>();
 
-        Map<String,?> keys = accountData.getAll();
+        Map<String,?> keys = getAll(accountData);
         for(Map.Entry<String,?> entry : keys.entrySet()){
+            if(entry.getValue() == null)
+                continue;
             Logger.debug(TAG, "Account map values: ",entry.getKey() + ": " + entry.getValue().toString());
             Account account = Account.deserialize(entry.getValue().toString());
             if(account != null)
@@ -92,8 +94,10 @@ class DefaultStorageClient implements StorageClient {
     private List<Mechanism> getAllMechanisms() {
         List<Mechanism> mechanismList = new ArrayList<>();
 
-        Map<String,?> keys = mechanismData.getAll();
+        Map<String,?> keys = getAll(mechanismData);
         for(Map.Entry<String,?> entry : keys.entrySet()){
+            if(entry.getValue() == null)
+                continue;
             Logger.debug(TAG, "Mechanism map values: ",entry.getKey() + ": " + entry.getValue().toString());
             String jsonData = entry.getValue().toString();
 
@@ -155,8 +159,10 @@ class DefaultStorageClient implements StorageClient {
     public List<PushNotification> getAllNotifications() {
         List<PushNotification> pushNotificationList = new ArrayList<>();
 
-        Map<String,?> keys = notificationData.getAll();
+        Map<String,?> keys = getAll(notificationData);
         for(Map.Entry<String,?> entry : keys.entrySet()){
+            if(entry.getValue() == null)
+                continue;
             Logger.debug(TAG, "PushNotification map values: ",entry.getKey() + ": " + entry.getValue().toString());
             PushNotification pushNotification = PushNotification.deserialize(entry.getValue().toString());
             if(pushNotification != null)
@@ -225,6 +231,19 @@ class DefaultStorageClient implements StorageClient {
                 .commit();
     }
 
+    /**
+     * Retrieve all the entries, decrypt all values in bulk when stored with {@link SecuredSharedPreferences}.
+     *
+     * @param sharedPreferences The SharedPreferences
+     * @return All the entries
+     */
+    private Map<String, ?> getAll(SharedPreferences sharedPreferences) {
+        if (sharedPreferences instanceof SecuredSharedPreferences) {
+            return ((SecuredSharedPreferences) sharedPreferences).decryptAll();
+        }
+        return sharedPreferences.getAll();
+    }
+
     @VisibleForTesting
     void setAccountData(SharedPreferences sharedPreferences) {
         this.accountData = sharedPreferences;
@@ -11,21 +11,23 @@ import lombok.NonNull;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.security.spec.AlgorithmParameterSpec;
-import java.util.Arrays;
 
 /**
  * The abstract class {@link AbstractSymmetricEncryptor} provides methods
  * to encrypt and decrypt data using Symmetric Key {@link SecretKey}
+ *
+ * <p>
+ * {@link Cipher} and {@link Mac} instances are pooled per thread and the {@link SecretKey} is cached
+ * after first retrieval, the cached {@link SecretKey} is dropped when the Encryptor is {@link #reset()}
+ * or when the key cannot be used anymore.
  */
 abstract class AbstractSymmetricEncryptor implements Encryptor {
 
@@ -35,73 +37,104 @@ abstract class AbstractSymmetricEncryptor implements Encryptor {
     static final int KEY_SIZE = 256;
     final String keyAlias;
 
+    private final ThreadLocal<Cipher> cipherPool = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(AES_GCM_NO_PADDING);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException("Error while getting an cipher instance", e);
+            }
+        }
+    };
+
+    private final ThreadLocal<Mac> macPool = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                Mac mac = Mac.getInstance(HMAC_SHA256);
+                mac.init(new SecretKeySpec(keyAlias.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException("Error while instantiating MAC", e);
+            }
+        }
+    };
+
+    private volatile SecretKey secretKey;
+
     AbstractSymmetricEncryptor(@NonNull String keyAlias) {
         this.keyAlias = keyAlias;
     }
 
     @Override
     public byte[] encrypt(@NonNull byte[] data) {
-        byte[] encryptedData;
         try {
-            Cipher cipher = Cipher.getInstance(AES_GCM_NO_PADDING);
-
-            byte[] iv = init(cipher);
-            encryptedData = cipher.doFinal(data);
-            byte[] mac = computeMac(keyAlias, encryptedData);
-            encryptedData = concatArrays(mac, iv, encryptedData);
+            return encrypt(data, secretKey());
         } catch (Exception e) {
-            throw new EncryptionException(e);
+            //The cached key may have been deleted or invalidated, retry with a fresh key.
+            clearSecretKey();
+            try {
+                return encrypt(data, secretKey());
+            } catch (Exception ex) {
+                throw new EncryptionException(ex);
+            }
         }
-        return encryptedData;
+    }
+
+    private byte[] encrypt(byte[] data, SecretKey key) throws GeneralSecurityException, IOException {
+        Cipher cipher = cipherPool.get();
+        byte[] iv = init(cipher, key);
+        byte[] encryptedData = cipher.doFinal(data);
+        byte[] mac = computeMac(encryptedData, 0, encryptedData.length);
+        return concatArrays(mac, iv, encryptedData);
     }
 
     @Override
     public byte[] decrypt(byte[] encryptedData) {
-        Cipher cipher;
-        try {
-            cipher = Cipher.getInstance(AES_GCM_NO_PADDING);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
-            throw new EncryptionException("Error while getting an cipher instance", e);
-        }
-
         int ivLength = IV_LENGTH;
-        int macLength;
-        try {
-            macLength = Mac.getInstance(HMAC_SHA256).getMacLength();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error while instantiating MAC", e);
-        }
+        int macLength = macPool.get().getMacLength();
         int encryptedDataLength = encryptedData.length - ivLength - macLength;
-        byte[] macFromMessage = getArraySubset(encryptedData, 0, macLength);
-
-        byte[] iv = getArraySubset(encryptedData, macLength, ivLength);
-        encryptedData = getArraySubset(encryptedData, macLength + ivLength, encryptedDataLength);
-        byte[] mac = computeMac(keyAlias, encryptedData);
+        byte[] mac = computeMac(encryptedData, macLength + ivLength, encryptedDataLength);
 
-        if (!Arrays.equals(mac, macFromMessage)) {
+        if (!MessageDigest.isEqual(mac, getArraySubset(encryptedData, 0, macLength))) {
             throw new RuntimeException("MAC signature could not be verified");
         }
 
         AlgorithmParameterSpec ivParams;
-        ivParams = new GCMParameterSpec(128, iv);
+        ivParams = new GCMParameterSpec(128, encryptedData, macLength, ivLength);
 
+        SecretKey key = null;
         try {
-            cipher.init(Cipher.DECRYPT_MODE, getSecretKey(), ivParams);
-            return cipher.doFinal(encryptedData);
+            key = secretKey();
+            return decrypt(encryptedData, macLength + ivLength, encryptedDataLength, key, ivParams);
         } catch (Exception e) {
+            //The key may have been replaced by another instance, retry once with a fresh key.
+            if (key != null) {
+                clearSecretKey(key);
+                try {
+                    return decrypt(encryptedData, macLength + ivLength, encryptedDataLength,
+                            secretKey(), ivParams);
+                } catch (Exception ex) {
+                    throw new EncryptionException(ex.getMessage(), ex);
+                }
+            }
             throw new EncryptionException(e.getMessage(), e);
         }
     }
 
-    private byte[] computeMac(String key, byte[] cipherText) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_SHA256);
-            SecretKey sk = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
-            mac.init(sk);
-            return mac.doFinal(cipherText);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new EncryptionException(e);
-        }
+    private byte[] decrypt(byte[] data, int offset, int length, SecretKey key,
+                           AlgorithmParameterSpec ivParams) throws GeneralSecurityException {
+        Cipher cipher = cipherPool.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, ivParams);
+        return cipher.doFinal(data, offset, length);
+    }
+
+    private byte[] computeMac(byte[] cipherText, int offset, int length) {
+        //Mac is reset after doFinal, the pooled instance is ready for reuse
+        Mac mac = macPool.get();
+        mac.update(cipherText, offset, length);
+        return mac.doFinal();
     }
 
     private byte[] getArraySubset(byte[] array, int start, int length) {
@@ -118,6 +151,39 @@ abstract class AbstractSymmetricEncryptor implements Encryptor {
         return result;
     }
 
+    /**
+     * Retrieve the cached SecretKey, retrieve it with {@link #getSecretKey()} if not cached.
+     *
+     * @return The SecretKey
+     */
+    final SecretKey secretKey() throws GeneralSecurityException, IOException {
+        SecretKey key = secretKey;
+        if (key == null) {
+            synchronized (this) {
+                key = secretKey;
+                if (key == null) {
+                    key = getSecretKey();
+                    secretKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Drop the cached SecretKey, the next operation will retrieve it again.
+     */
+    final synchronized void clearSecretKey() {
+        secretKey = null;
+    }
+
+    private synchronized void clearSecretKey(SecretKey key) {
+        //Only drop the key if another thread has not refreshed it already
+        if (secretKey == key) {
+            secretKey = null;
+        }
+    }
+
     /**
      * Retrieve the SecretKey.
      *
@@ -129,5 +195,12 @@ abstract class AbstractSymmetricEncryptor implements Encryptor {
      */
     abstract SecretKey getSecretKey() throws GeneralSecurityException, IOException;
 
-    abstract byte[] init(Cipher cipher) throws GeneralSecurityException, IOException;
-}
\ No newline at end of file
+    /**
+     * Initialize the cipher for encryption.
+     *
+     * @param cipher The Cipher to initialize
+     * @param secretKey The SecretKey to encrypt the data
+     * @return The IV used by the Cipher
+     */
+    abstract byte[] init(Cipher cipher, SecretKey secretKey) throws GeneralSecurityException, IOException;
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2020 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -31,6 +31,9 @@ import lombok.RequiredArgsConstructor;
  * <li>LOGOUT - AM Session logout request to revoke SSO Token: '/json/realms/{realm}/sessions?_action=logout'</li>
  * <li>USER_INFO - Retrieving user info: `/oauth2/realms/{realm}/userinfo`</li>
  * <li>END_SESSION - End session API: `/oauth2/realms/{realm}/connect/endSession`</li>
+ * <li>PREWARM - HEAD request to the server url to establish the connection in advance</li>
+ * <li>DISCOVERY - OpenID Connect discovery: `/oauth2/realms/{realm}/.well-known/openid-configuration`</li>
+ * <li>JWKS - JSON Web Key Set to verify the ID Token: the 'jwks_uri' of the discovery document</li>
  * </ul>
  */
 @Getter
@@ -48,6 +51,9 @@ public class Action {
     public static final String LOGOUT = "LOGOUT";
     public static final String USER_INFO = "USER_INFO";
     public static final String END_SESSION = "END_SESSION";
+    public static final String PREWARM = "PREWARM";
+    public static final String DISCOVERY = "DISCOVERY";
+    public static final String JWKS = "JWKS";
 
     private final String type;
 
@@ -29,6 +29,7 @@ import lombok.NonNull;
 class AndroidLEncryptor extends AbstractSymmetricEncryptor {
 
     private static final String AES = "AES";
+    private static final SecureRandom secureRandom = new SecureRandom();
 
     private final SecretKeyStore secretKeyStore;
     private final Context context;
@@ -81,18 +82,19 @@ class AndroidLEncryptor extends AbstractSymmetricEncryptor {
     }
 
     @Override
-    byte[] init(Cipher cipher) throws GeneralSecurityException {
+    byte[] init(Cipher cipher, SecretKey secretKey) throws GeneralSecurityException {
         AlgorithmParameterSpec ivParams;
         byte[] iv = new byte[IV_LENGTH];
-        SecureRandom secureRandom = new SecureRandom();
         secureRandom.nextBytes(iv);
         ivParams = new GCMParameterSpec(128, iv);
-        cipher.init(Cipher.ENCRYPT_MODE, getSecretKey(), ivParams);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivParams);
         return iv;
     }
 
     @Override
     public void reset() throws GeneralSecurityException, IOException {
+        //Drop the cached SecretKey
+        clearSecretKey();
         //Clear the stored encrypted SecretKey
         secretKeyStore.remove();
         //Reset the Public/Private Keys that used to encrypt the SecretKey
@@ -69,9 +69,9 @@ class AndroidMEncryptor extends AbstractSymmetricEncryptor {
     }
 
     @Override
-    byte[] init(Cipher cipher) throws GeneralSecurityException, IOException {
+    byte[] init(Cipher cipher, SecretKey secretKey) throws GeneralSecurityException, IOException {
         //Generate a random IV See KeyGenParameterSpec.Builder.setRandomizedEncryptionRequired
-        cipher.init(Cipher.ENCRYPT_MODE, getSecretKey());
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
         return cipher.getIV();
     }
 
@@ -89,6 +89,7 @@ class AndroidMEncryptor extends AbstractSymmetricEncryptor {
 
     @Override
     public void reset() throws GeneralSecurityException, IOException {
+        clearSecretKey();
         getKeyStore().deleteEntry(keyAlias);
     }
 }
\ No newline at end of file
@@ -61,6 +61,24 @@ public interface Encryptor {
         }
     }
 
+    /**
+     * Create an {@link Encryptor} which encrypts the data with a software data encryption key, the data
+     * encryption key is wrapped by the {@link Encryptor} from
+     * {@link #getEncryptor(Context, String, SecretKeyStore, KeyUpdatedListener)}.
+     *
+     * @param context        The Application Context
+     * @param keyAlias       The Alias of the key encryption key
+     * @param secretKeyStore The SecretKeyStore to store the SecretKey of the key encryption key (Android L)
+     * @param dataKeyStore   The SecretKeyStore to store the wrapped data encryption key
+     * @param listener       The listener to listen event for key changes.
+     * @return The Encryptor
+     */
+    static Encryptor getEnvelopeEncryptor(Context context, String keyAlias, SecretKeyStore secretKeyStore,
+                                          SecretKeyStore dataKeyStore, KeyUpdatedListener listener) {
+        return new EnvelopeEncryptor(getEncryptor(context, keyAlias, secretKeyStore, listener),
+                dataKeyStore, listener);
+    }
+
     @SuppressLint("NewApi")
     static Encryptor getEncryptor(Context context, String keyAlias, KeyUpdatedListener listener) {
         switch (Build.VERSION.SDK_INT) {
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.os.Build;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
+import android.util.Base64;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import lombok.NonNull;
+
+/**
+ * Provide data encryption and decryption with a software Data Encryption Key (DEK).
+ *
+ * <p>
+ * The DEK is a random AES key, it is wrapped by the Key Encryption Key {@link Encryptor}
+ * (usually backed by the AndroidKeyStore) and stored with the {@link SecretKeyStore}.
+ * The DEK is unwrapped once per process and kept in memory, so encryption and decryption of the data
+ * does not require any KeyStore operation.
+ *
+ * <p>
+ * Data encrypted by the Key Encryption Key directly (before switching to this {@link Encryptor}) can still be
+ * decrypted, and is re-encrypted with the DEK on the next write.
+ *
+ * <p>
+ * The DEK is only discarded when the Key Encryption Key has been permanently invalidated, other failures to
+ * unwrap the DEK may be temporary and keep the DEK.
+ */
+class EnvelopeEncryptor implements Encryptor {
+
+    private static final String TAG = EnvelopeEncryptor.class.getSimpleName();
+
+    private static final String AES = "AES";
+    private static final String AES_GCM_NO_PADDING = "AES/GCM/NOPADDING";
+    private static final int TAG_LENGTH = 128;
+
+    //Header of the data encrypted with the DEK: "FR" + version
+    private static final byte[] HEADER = {0x46, 0x52, 0x01};
+
+    //Unwrapped DEKs shared by all instances in the process, keyed by the wrapped DEK
+    private static final Map<String, SecretKey> dataKeys = new ConcurrentHashMap<>();
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private final Encryptor keyEncryptor;
+    private final SecretKeyStore dataKeyStore;
+    private final KeyUpdatedListener listener;
+
+    private final ThreadLocal<Cipher> cipherPool = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(AES_GCM_NO_PADDING);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException("Error while getting an cipher instance", e);
+            }
+        }
+    };
+
+    /**
+     * @param keyEncryptor The {@link Encryptor} to wrap and unwrap the DEK, and to decrypt data which is not
+     *                     encrypted with the DEK.
+     * @param dataKeyStore The {@link SecretKeyStore} to store the wrapped DEK
+     * @param listener     The listener to listen event for key changes.
+     */
+    EnvelopeEncryptor(@NonNull Encryptor keyEncryptor, @NonNull SecretKeyStore dataKeyStore,
+                      KeyUpdatedListener listener) {
+        this.keyEncryptor = keyEncryptor;
+        this.dataKeyStore = dataKeyStore;
+        this.listener = listener;
+    }
+
+    @Override
+    public byte[] encrypt(@NonNull byte[] clearText) {
+        try {
+            byte[] iv = new byte[AbstractSymmetricEncryptor.IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = cipherPool.get();
+            cipher.init(Cipher.ENCRYPT_MODE, getDataKey(true), new GCMParameterSpec(TAG_LENGTH, iv));
+            byte[] result = new byte[HEADER.length + iv.length + cipher.getOutputSize(clearText.length)];
+            System.arraycopy(HEADER, 0, result, 0, HEADER.length);
+            System.arraycopy(iv, 0, result, HEADER.length, iv.length);
+            cipher.doFinal(clearText, 0, clearText.length, result, HEADER.length + iv.length);
+            return result;
+        } catch (EncryptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+    @Override
+    public byte[] decrypt(@NonNull byte[] encryptedData) {
+        if (!hasHeader(encryptedData)) {
+            //Encrypted before switching to envelope encryption
+            return keyEncryptor.decrypt(encryptedData);
+        }
+        try {
+            SecretKey dataKey = getDataKey(false);
+            int offset = HEADER.length + AbstractSymmetricEncryptor.IV_LENGTH;
+            Cipher cipher = cipherPool.get();
+            cipher.init(Cipher.DECRYPT_MODE, dataKey,
+                    new GCMParameterSpec(TAG_LENGTH, encryptedData, HEADER.length,
+                            AbstractSymmetricEncryptor.IV_LENGTH));
+            return cipher.doFinal(encryptedData, offset, encryptedData.length - offset);
+        } catch (GeneralSecurityException | EncryptionException e) {
+            //The header may be a coincidence, try the Key Encryption Key
+            try {
+                return keyEncryptor.decrypt(encryptedData);
+            } catch (Exception ignore) {
+                throw new EncryptionException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void reset() throws GeneralSecurityException, IOException {
+        String wrappedKey = dataKeyStore.getEncryptedSecretKey();
+        if (wrappedKey != null) {
+            dataKeys.remove(wrappedKey);
+        }
+        dataKeyStore.remove();
+        keyEncryptor.reset();
+    }
+
+    private boolean hasHeader(byte[] encryptedData) {
+        if (encryptedData.length < HEADER.length + AbstractSymmetricEncryptor.IV_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (encryptedData[i] != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the Key Encryption Key has been permanently invalidated, the DEK cannot be unwrapped anymore.
+     *
+     * @param e The failure to unwrap the DEK
+     * @return True if the DEK cannot be recovered
+     */
+    private static boolean isKeyInvalidated(Throwable e) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KeyPermanentlyInvalidatedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieve the DEK, unwrap it with the Key Encryption Key if it is not yet in memory.
+     *
+     * @param create True to generate a new DEK when it is not found or has been invalidated.
+     * @return The DEK
+     */
+    private SecretKey getDataKey(boolean create) {
+        String wrappedKey = dataKeyStore.getEncryptedSecretKey();
+        if (wrappedKey != null) {
+            SecretKey dataKey = dataKeys.get(wrappedKey);
+            if (dataKey != null) {
+                return dataKey;
+            }
+            try {
+                dataKey = new SecretKeySpec(
+                        keyEncryptor.decrypt(Base64.decode(wrappedKey, Base64.NO_WRAP)), AES);
+                dataKeys.put(wrappedKey, dataKey);
+                return dataKey;
+            } catch (Exception e) {
+                if (!isKeyInvalidated(e)) {
+                    //The failure may be temporary, keep the DEK and the data encrypted with it
+                    throw new EncryptionException("Failed to unwrap the data encryption key", e);
+                }
+                Logger.warn(TAG, e, "The data encryption key has been invalidated.");
+                //Data encrypted with the DEK cannot be recovered
+                dataKeyStore.remove();
+                if (listener != null) {
+                    listener.onKeyUpdated();
+                }
+                if (!create) {
+                    throw new EncryptionException("Failed to unwrap the data encryption key", e);
+                }
+            }
+        } else if (!create) {
+            throw new EncryptionException("Data encryption key not found");
+        }
+        return createDataKey();
+    }
+
+    private synchronized SecretKey createDataKey() {
+        //Another thread may have created the DEK
+        String wrappedKey = dataKeyStore.getEncryptedSecretKey();
+        if (wrappedKey != null && dataKeys.containsKey(wrappedKey)) {
+            return dataKeys.get(wrappedKey);
+        }
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(AES);
+            keyGenerator.init(AbstractSymmetricEncryptor.KEY_SIZE);
+            SecretKey dataKey = keyGenerator.generateKey();
+            wrappedKey = Base64.encodeToString(keyEncryptor.encrypt(dataKey.getEncoded()), Base64.NO_WRAP);
+            dataKeyStore.persist(wrappedKey);
+            dataKeys.put(wrappedKey, dataKey);
+            return dataKey;
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionException(e);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reference to a value which expires after a fixed duration.
+ *
+ * <p>
+ * The expiry time is recorded when the value is set and checked when the value is read, an expired value
+ * is never returned. Setting a value does not schedule any task. With sweeping enabled, a single periodic task
+ * per reference discards the expired value, so it does not stay in memory until the next read.
+ *
+ * @param <T> The type of the value
+ */
+class ExpiringReference<T> {
+
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, ExpiringReference.class.getSimpleName());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long durationNanos;
+    private final AtomicReference<Entry<T>> entry = new AtomicReference<>();
+
+    /**
+     * @param durationMillis The duration in milliseconds to keep the value, values are not kept when it is not positive.
+     */
+    ExpiringReference(long durationMillis) {
+        this(durationMillis, false);
+    }
+
+    /**
+     * @param durationMillis The duration in milliseconds to keep the value, values are not kept when it is not positive.
+     * @param sweep          True to discard the expired value proactively, every durationMillis.
+     */
+    ExpiringReference(long durationMillis, boolean sweep) {
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        if (sweep && durationMillis > 0) {
+            Sweep.schedule(this, durationMillis);
+        }
+    }
+
+    /**
+     * Retrieve the value.
+     *
+     * @return The value, null if there is no value or the value is expired.
+     */
+    T get() {
+        Entry<T> current = entry.get();
+        if (current == null) {
+            return null;
+        }
+        if (current.isExpired()) {
+            //Do not discard a fresher value set concurrently
+            entry.compareAndSet(current, null);
+            return null;
+        }
+        return current.value;
+    }
+
+    /**
+     * Set the value, the value expires after the duration of this reference.
+     *
+     * @param value The value
+     */
+    void set(T value) {
+        if (durationNanos > 0) {
+            entry.set(value == null ? null : new Entry<>(value, System.nanoTime() + durationNanos));
+        }
+    }
+
+    /**
+     * Discard the value.
+     */
+    void clear() {
+        entry.set(null);
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Periodic task to discard the expired value, it does not keep the reference from being garbage collected
+     * and cancels itself after the reference is collected.
+     */
+    private static class Sweep implements Runnable {
+
+        private final WeakReference<ExpiringReference<?>> reference;
+        private ScheduledFuture<?> future;
+
+        private Sweep(ExpiringReference<?> reference) {
+            this.reference = new WeakReference<>(reference);
+        }
+
+        static void schedule(ExpiringReference<?> reference, long intervalMillis) {
+            Sweep sweep = new Sweep(reference);
+            synchronized (sweep) {
+                sweep.future = sweeper.scheduleWithFixedDelay(sweep, intervalMillis, intervalMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public synchronized void run() {
+            ExpiringReference<?> expiringReference = reference.get();
+            if (expiringReference == null) {
+                future.cancel(false);
+            } else {
+                expiringReference.get();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Network timings of a single request made by the SDK, all durations are in milliseconds.
+ * A duration is 0 when the phase did not happen, e.g. no DNS lookup and connect when a pooled connection is reused.
+ */
+@Builder
+@Getter
+@ToString
+public class NetworkMetrics {
+
+    /**
+     * The {@link Action#getType()} of the request, null if the request is not tagged with an {@link Action}
+     */
+    private String action;
+    private String host;
+    private long dnsMillis;
+    //TCP connect, including the TLS handshake
+    private long connectMillis;
+    private long secureConnectMillis;
+    //Writing the request headers and body
+    private long requestMillis;
+    //From the end of the request to the first byte of the response
+    private long timeToFirstByteMillis;
+    private long responseBodyMillis;
+    private long totalMillis;
+    private boolean connectionReused;
+    private long requestBytes;
+    private long responseBytes;
+    /**
+     * The failure of the request, null if a response has been received.
+     */
+    private Exception exception;
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+/**
+ * {@link EventListener} to collect the {@link NetworkMetrics} of a {@link Call} and send them to the
+ * registered {@link NetworkMetricsSink}.
+ */
+class NetworkMetricsEventListener extends EventListener {
+
+    private static final String TAG = NetworkMetricsEventListener.class.getSimpleName();
+
+    /**
+     * Factory to create the {@link EventListener} for each {@link Call}, no metrics are collected when
+     * there is no {@link NetworkMetricsSink} registered.
+     */
+    static final Factory FACTORY = call -> {
+        NetworkMetricsSink sink = NetworkMetricsRegistry.getInstance().getNetworkMetricsSink();
+        if (sink == null) {
+            return EventListener.NONE;
+        }
+        return new NetworkMetricsEventListener(sink);
+    };
+
+    /**
+     * Create the factory which sends the {@link NetworkMetrics} of each {@link Call} to the provided sink,
+     * in addition to the registered {@link NetworkMetricsSink}.
+     *
+     * @param callSink The sink to receive the {@link NetworkMetrics} of the calls
+     * @return The factory to create the {@link EventListener}
+     */
+    static Factory factory(NetworkMetricsSink callSink) {
+        return call -> {
+            NetworkMetricsSink sink = NetworkMetricsRegistry.getInstance().getNetworkMetricsSink();
+            if (sink == null) {
+                return new NetworkMetricsEventListener(callSink);
+            }
+            return new NetworkMetricsEventListener(metrics -> {
+                record(callSink, metrics);
+                record(sink, metrics);
+            });
+        };
+    }
+
+    private final NetworkMetricsSink sink;
+
+    private long callStart;
+    private long dnsStart;
+    private long dnsEnd;
+    private long connectStart;
+    private long connectEnd;
+    private long secureConnectStart;
+    private long secureConnectEnd;
+    private long requestStart;
+    private long requestEnd;
+    private long responseHeadersStart;
+    private long responseBodyStart;
+    private long responseBodyEnd;
+    private long requestBytes;
+    private long responseBytes;
+
+    private NetworkMetricsEventListener(NetworkMetricsSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public synchronized void callStart(@NotNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void dnsStart(@NotNull Call call, @NotNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void dnsEnd(@NotNull Call call, @NotNull String domainName, @NotNull List<InetAddress> inetAddressList) {
+        dnsEnd = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void secureConnectStart(@NotNull Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void secureConnectEnd(@NotNull Call call, Handshake handshake) {
+        secureConnectEnd = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy, Protocol protocol) {
+        connectEnd = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy, Protocol protocol, @NotNull IOException ioe) {
+        connectEnd = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void requestHeadersStart(@NotNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void requestHeadersEnd(@NotNull Call call, @NotNull Request request) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void requestBodyEnd(@NotNull Call call, long byteCount) {
+        requestEnd = System.nanoTime();
+        requestBytes = byteCount;
+    }
+
+    @Override
+    public synchronized void responseHeadersStart(@NotNull Call call) {
+        responseHeadersStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void responseBodyStart(@NotNull Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void responseBodyEnd(@NotNull Call call, long byteCount) {
+        responseBodyEnd = System.nanoTime();
+        responseBytes = byteCount;
+    }
+
+    @Override
+    public void callEnd(@NotNull Call call) {
+        record(call, null);
+    }
+
+    @Override
+    public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+        record(call, ioe);
+    }
+
+    private void record(Call call, Exception exception) {
+        NetworkMetrics metrics;
+        synchronized (this) {
+            long now = System.nanoTime();
+            Object tag = call.request().tag();
+            metrics = NetworkMetrics.builder()
+                    .action(tag instanceof Action ? ((Action) tag).getType() : null)
+                    .host(call.request().url().host())
+                    .dnsMillis(millis(dnsStart, dnsEnd))
+                    .connectMillis(millis(connectStart, connectEnd))
+                    .secureConnectMillis(millis(secureConnectStart, secureConnectEnd))
+                    .requestMillis(millis(requestStart, requestEnd))
+                    .timeToFirstByteMillis(millis(requestEnd, responseHeadersStart))
+                    .responseBodyMillis(millis(responseBodyStart, responseBodyEnd))
+                    .totalMillis(millis(callStart, now))
+                    .connectionReused(connectStart == 0 && requestStart != 0)
+                    .requestBytes(requestBytes)
+                    .responseBytes(responseBytes)
+                    .exception(exception)
+                    .build();
+        }
+        record(sink, metrics);
+    }
+
+    private static void record(NetworkMetricsSink sink, NetworkMetrics metrics) {
+        try {
+            sink.record(metrics);
+        } catch (Exception e) {
+            Logger.warn(TAG, e, "Failed to record network metrics");
+        }
+    }
+
+    private static long millis(long start, long end) {
+        if (start == 0 || end < start) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(end - start);
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import lombok.Getter;
+
+/**
+ * Registry to manage {@link NetworkMetricsSink}
+ */
+public class NetworkMetricsRegistry {
+
+    private static final NetworkMetricsRegistry INSTANCE = new NetworkMetricsRegistry();
+
+    @Getter
+    private volatile NetworkMetricsSink networkMetricsSink;
+
+    private NetworkMetricsRegistry() {
+    }
+
+    /**
+     * Returns a cached instance {@link NetworkMetricsRegistry}
+     *
+     * @return instance of {@link NetworkMetricsRegistry}
+     */
+    public static NetworkMetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the {@link NetworkMetricsSink}, null to stop collecting the metrics.
+     *
+     * @param networkMetricsSink The sink to receive the {@link NetworkMetrics}
+     */
+    public void register(NetworkMetricsSink networkMetricsSink) {
+        this.networkMetricsSink = networkMetricsSink;
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+/**
+ * Sink to receive the {@link NetworkMetrics} of the requests made by the SDK, register the sink
+ * with {@link NetworkMetricsRegistry}.
+ *
+ * <pre>
+ * NetworkMetricsRegistry.getInstance().register(metrics -&gt; {
+ *     if (Action.AUTHENTICATE.equals(metrics.getAction())) {
+ *         //Report metrics.getTotalMillis()
+ *     }
+ * });
+ * </pre>
+ */
+public interface NetworkMetricsSink {
+
+    /**
+     * Called when a request completes or fails. This method is invoked on the network thread and should
+     * not block.
+     *
+     * @param metrics The metrics of the request
+     */
+    void record(NetworkMetrics metrics);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 - 2020 ForgeRock. All rights reserved.
+ * Copyright (c) 2019 - 2021 ForgeRock. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,23 +7,50 @@
 
 package org.forgerock.android.auth;
 
+import androidx.annotation.VisibleForTesting;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.CertificatePinner;
+import okhttp3.ConnectionPool;
 import okhttp3.CookieJar;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 /**
- * Provider to Cache and provide OKHttpClient
+ * Provider to Cache and provide OKHttpClient.
+ *
+ * <p>
+ * All the provided {@link OkHttpClient} are derived from a single root client, so they share the
+ * same {@link ConnectionPool} and {@link Dispatcher}, connections to the same host are reused across
+ * {@link NetworkConfig}. The network timings of each request are reported to the
+ * {@link NetworkMetricsSink} registered with {@link NetworkMetricsRegistry}.
  */
 class OkHttpClientProvider {
 
+    private static final String TAG = OkHttpClientProvider.class.getSimpleName();
     private static final OkHttpClientProvider INSTANCE = new OkHttpClientProvider();
 
-    private Map<String, OkHttpClient> cache = new ConcurrentHashMap<>();
+    static final int DEFAULT_CACHE_SIZE = 8;
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    static final long DEFAULT_KEEP_ALIVE_DURATION = 300;
+    static final int DEFAULT_MAX_REQUESTS = 64;
+    static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    private final Map<String, OkHttpClient> cache = new LinkedHashMap<String, OkHttpClient>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<String, OkHttpClient> eldest) {
+            return size() > DEFAULT_CACHE_SIZE;
+        }
+    };
+
+    private OkHttpClient root;
+    private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private long keepAliveNanos = TimeUnit.SECONDS.toNanos(DEFAULT_KEEP_ALIVE_DURATION);
 
     private OkHttpClientProvider() {
     }
@@ -39,13 +66,30 @@ class OkHttpClientProvider {
      * @return The OkHttpClient
      */
     OkHttpClient lookup(NetworkConfig networkConfig) {
-        OkHttpClient client = cache.get(networkConfig.getIdentifier());
+        return lookup(networkConfig, new Interceptor[0]);
+    }
+
+    /**
+     * Create or lookup a cached OKHttpClient with additional {@link Interceptor}s. The client is cached
+     * with the class of the {@link Interceptor}s, the {@link Interceptor}s should not hold any state.
+     *
+     * @param networkConfig The Server configuration
+     * @param interceptors  Additional {@link Interceptor}s to add after the {@link NetworkConfig} Interceptors
+     * @return The OkHttpClient
+     */
+    synchronized OkHttpClient lookup(NetworkConfig networkConfig, Interceptor... interceptors) {
+        StringBuilder key = new StringBuilder(networkConfig.getIdentifier());
+        for (Interceptor i : interceptors) {
+            key.append('#').append(i.getClass().getName());
+        }
+
+        OkHttpClient client = cache.get(key.toString());
 
         if (client != null) {
             return client;
         }
 
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+        OkHttpClient.Builder builder = getRoot().newBuilder()
                 .connectTimeout(networkConfig.getTimeout(), networkConfig.getTimeUnit())
                 .readTimeout(networkConfig.getTimeout(), networkConfig.getTimeUnit())
                 .writeTimeout(networkConfig.getTimeout(), networkConfig.getTimeUnit())
@@ -64,6 +108,10 @@ class OkHttpClientProvider {
             }
         }
 
+        for (Interceptor i : interceptors) {
+            builder.addInterceptor(i);
+        }
+
         if (Logger.isDebugEnabled()) {
             HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
             interceptor.level(HttpLoggingInterceptor.Level.BODY);
@@ -79,15 +127,89 @@ class OkHttpClientProvider {
         }
 
         client = builder.build();
-        cache.put(networkConfig.getIdentifier(), client);
+        cache.put(key.toString(), client);
         return client;
 
     }
 
     /**
-     * Clear the cached {{@link OkHttpClient}}
+     * Size the shared {@link ConnectionPool}. The cached {@link OkHttpClient}s are discarded when the setting
+     * changes, in-flight requests complete with their current client. Invalid setting is ignored.
+     *
+     * @param maxIdleConnections The maximum number of idle connections to keep
+     * @param keepAliveDuration  The time to keep an idle connection alive
+     * @param timeUnit           The unit of the keepAliveDuration
+     */
+    synchronized void setConnectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+        if (maxIdleConnections < 0 || keepAliveDuration <= 0) {
+            Logger.warn(TAG, "Invalid connection pool setting, maxIdleConnections: %d, keepAliveDuration: %d",
+                    maxIdleConnections, keepAliveDuration);
+            return;
+        }
+        if (maxIdleConnections == this.maxIdleConnections &&
+                timeUnit.toNanos(keepAliveDuration) == keepAliveNanos) {
+            return;
+        }
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveNanos = timeUnit.toNanos(keepAliveDuration);
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAliveDuration, timeUnit);
+        if (root != null) {
+            root.connectionPool().evictAll();
+            root = root.newBuilder().connectionPool(connectionPool).build();
+        } else {
+            root = newRootBuilder().connectionPool(connectionPool).build();
+        }
+        cache.clear();
+    }
+
+    /**
+     * Set the limits of the shared {@link Dispatcher}, the limits apply to all the provided
+     * {@link OkHttpClient}s immediately. Invalid limits are ignored.
+     *
+     * @param maxRequests        The maximum number of requests to execute concurrently
+     * @param maxRequestsPerHost The maximum number of requests for each host to execute concurrently
+     */
+    synchronized void setDispatcherLimits(int maxRequests, int maxRequestsPerHost) {
+        if (maxRequests < 1 || maxRequestsPerHost < 1) {
+            Logger.warn(TAG, "Invalid dispatcher limits, maxRequests: %d, maxRequestsPerHost: %d",
+                    maxRequests, maxRequestsPerHost);
+            return;
+        }
+        Dispatcher dispatcher = getRoot().dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+    }
+
+    private OkHttpClient getRoot() {
+        if (root == null) {
+            root = newRootBuilder().build();
+        }
+        return root;
+    }
+
+    private static OkHttpClient.Builder newRootBuilder() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(DEFAULT_MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(DEFAULT_MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(DEFAULT_MAX_IDLE_CONNECTIONS,
+                        DEFAULT_KEEP_ALIVE_DURATION, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .eventListenerFactory(NetworkMetricsEventListener.FACTORY);
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Clear the cached {{@link OkHttpClient}}, and close the idle connections.
      */
-    public void clear() {
+    public synchronized void clear() {
         cache.clear();
+        if (root != null) {
+            root.connectionPool().evictAll();
+        }
     }
 }
@@ -10,26 +10,44 @@ package org.forgerock.android.auth;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Base64;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import org.json.JSONArray;
+import org.forgerock.android.core.R;
 import org.json.JSONException;
-import org.json.JSONObject;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import lombok.Getter;
 
 import static org.forgerock.android.auth.Encryptor.getEncryptor;
+import static org.forgerock.android.auth.Encryptor.getEnvelopeEncryptor;
+import static org.forgerock.android.auth.ValueEnvelope.BOOLEAN_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.FLOAT_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.INT_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.LONG_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.STRING_SET_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.STRING_TYPE;
 
 /**
  * An implementation of {@link SharedPreferences} that encrypts values.
@@ -37,14 +55,24 @@ import static org.forgerock.android.auth.Encryptor.getEncryptor;
 public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedListener {
     public static final String TAG = SecuredSharedPreferences.class.getName();
 
-    private static final int STRING_TYPE = 0;
-    private static final int STRING_SET_TYPE = 1;
-    private static final int INT_TYPE = 2;
-    private static final int LONG_TYPE = 3;
-    private static final int FLOAT_TYPE = 4;
-    private static final int BOOLEAN_TYPE = 5;
     public static final String VALUE = "value";
-    private static final String TYPE = "type";
+
+    /**
+     * Default number of decrypted values kept in memory.
+     */
+    static final int DEFAULT_CACHE_SIZE = 32;
+
+    /**
+     * Suffix of the key alias to store the wrapped data encryption key.
+     */
+    static final String DATA_KEY_SUFFIX = ".DEK";
+
+    /**
+     * Minimum number of entries to decrypt in parallel with {@link #decryptAll()}.
+     */
+    static final int PARALLEL_THRESHOLD = 16;
+    private static final int MAX_WORKER_THREADS = 4;
+    private static ExecutorService worker;
 
     @Getter
     private final SharedPreferences sharedPreferences;
@@ -52,37 +80,78 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
     private final Encryptor encryptor;
     @Getter
     private final String keyAlias;
+    //Decrypted values, null when caching is disabled
+    private final LruCache<String, CacheEntry> cache;
 
     SecuredSharedPreferences(Context context, String fileName, String keyAlias) {
         this(context, fileName, keyAlias, null);
     }
 
     SecuredSharedPreferences(Context context, String fileName, String keyAlias, Encryptor encryptor) {
+        this(context, fileName, keyAlias, encryptor, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param context   The Application Context
+     * @param fileName  The SharedPreferences file name
+     * @param keyAlias  The key alias of the encryption key
+     * @param encryptor The Encryptor, null to use the default Encryptor for the device
+     * @param cacheSize Maximum number of decrypted values kept in memory, 0 to disable the cache.
+     */
+    SecuredSharedPreferences(Context context, String fileName, String keyAlias, Encryptor encryptor, int cacheSize) {
         this.sharedPreferences = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
         this.listeners = new ArrayList<>();
         this.keyAlias = keyAlias;
+        this.cache = cacheSize > 0 ? new LruCache<>(cacheSize) : null;
         if (encryptor == null) {
-            this.encryptor = getEncryptor(context,
-                    keyAlias,
-                    new SharedPreferencesSecretKeyStore(keyAlias, sharedPreferences),
-                    this);
+            if (context.getResources().getBoolean(R.bool.forgerock_envelope_encryption)) {
+                this.encryptor = getEnvelopeEncryptor(context,
+                        keyAlias,
+                        new SharedPreferencesSecretKeyStore(keyAlias, sharedPreferences),
+                        new SharedPreferencesSecretKeyStore(keyAlias + DATA_KEY_SUFFIX, sharedPreferences),
+                        this);
+            } else {
+                this.encryptor = getEncryptor(context,
+                        keyAlias,
+                        new SharedPreferencesSecretKeyStore(keyAlias, sharedPreferences),
+                        this);
+            }
         } else {
             this.encryptor = encryptor;
         }
     }
 
 
+    /**
+     * Retrieve all values. The returned map is a snapshot of the stored entries, the values are only
+     * decrypted when they are read, so retrieving the keys or the size does not decrypt any value.
+     * The returned map cannot be modified.
+     *
+     * @return All the entries
+     */
     @Override
     @NonNull
     public Map<String, ?> getAll() {
-        Map<String, ? super Object> entries = new HashMap<>();
+        Map<String, LazyEntry> entries = new LinkedHashMap<>();
         for (Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
-            if (!isKeyAlias(entry.getKey())) {
-                Object decryptedValue = get(entry.getKey());
-                entries.put(entry.getKey(), decryptedValue);
+            if (!isKeyAlias(entry.getKey()) && entry.getValue() instanceof String) {
+                entries.put(entry.getKey(), new LazyEntry(entry.getKey(), (String) entry.getValue()));
             }
         }
-        return entries;
+        return new LazyDecryptedMap(entries);
+    }
+
+    /**
+     * Retrieve and decrypt all values. When the number of entries reaches {@link #PARALLEL_THRESHOLD}, the
+     * values are decrypted in parallel with a bounded worker pool.
+     *
+     * @return All the entries, with all values decrypted.
+     */
+    @NonNull
+    public Map<String, ?> decryptAll() {
+        LazyDecryptedMap all = (LazyDecryptedMap) getAll();
+        all.decrypt();
+        return all;
     }
 
     private Set<String> keys() {
@@ -102,7 +171,8 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
         Set<String> returnValues;
         Object value = get(key);
         if (value instanceof Set) {
-            returnValues = (Set<String>) value;
+            //Cached value is shared, return a copy to the caller
+            returnValues = new HashSet<>((Set<String>) value);
         } else {
             returnValues = new HashSet<>();
         }
@@ -163,40 +233,7 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
     private Object get(@lombok.NonNull String key, boolean retry) {
         Reject.ifTrue(isKeyAlias(key), "Extract key is not allowed!");
         try {
-            String encryptedValue = sharedPreferences.getString(key, null);
-            if (encryptedValue != null) {
-
-                String decryptedValue = decrypt(encryptedValue);
-                if (decryptedValue == null) {
-                    return null;
-                }
-                JSONObject value = new JSONObject(decryptedValue);
-                int type = value.getInt("type");
-
-                switch (type) {
-                    case STRING_TYPE:
-                        return value.getString(VALUE);
-                    case INT_TYPE:
-                        return value.getInt(VALUE);
-                    case LONG_TYPE:
-                        return value.getLong(VALUE);
-                    case FLOAT_TYPE:
-                        return value.getDouble(VALUE);
-                    case BOOLEAN_TYPE:
-                        return value.getBoolean(VALUE);
-                    case STRING_SET_TYPE:
-                        Set<String> stringSet = new HashSet<>();
-                        JSONArray jsonArray = value.getJSONArray(VALUE);
-                        for (int i = 0; i < jsonArray.length(); i++) {
-                            stringSet.add(jsonArray.getString(i));
-                        }
-                        return stringSet;
-                    default:
-                        throw new IllegalArgumentException("Invalid Data Type");
-                }
-            } else {
-                return null;
-            }
+            return get(key, sharedPreferences.getString(key, null));
         } catch (Exception ex) {
             if (retry) {
                 get(key, false);
@@ -205,13 +242,74 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
         }
     }
 
+    /**
+     * Decrypt the encrypted value of the key, the decrypted value is cached.
+     *
+     * @param key            The key
+     * @param encryptedValue The encrypted value of the key
+     * @return The decrypted value, null if the value does not exist or cannot be decrypted.
+     */
+    private Object get(String key, String encryptedValue) throws JSONException {
+        if (encryptedValue == null) {
+            return null;
+        }
+        CacheEntry cached = cache != null ? cache.get(key) : null;
+        if (cached != null && cached.encryptedValue.equals(encryptedValue)) {
+            return cached.value;
+        }
+
+        byte[] decryptedValue = decrypt(encryptedValue);
+        if (decryptedValue == null) {
+            return null;
+        }
+        Object value = ValueEnvelope.decode(decryptedValue);
+        if (cache != null) {
+            cache.put(key, new CacheEntry(encryptedValue, value));
+        }
+        return value;
+    }
+
+    private static synchronized ExecutorService getWorker() {
+        if (worker == null) {
+            int threads = Math.max(1, Math.min(MAX_WORKER_THREADS, Runtime.getRuntime().availableProcessors()));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            worker = executor;
+        }
+        return worker;
+    }
+
+    /**
+     * Remove the decrypted values of the provided keys from the cache.
+     *
+     * @param keys The keys to invalidate
+     */
+    private void invalidate(Collection<String> keys) {
+        if (cache != null) {
+            for (String key : keys) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all decrypted values from the cache.
+     */
+    private void invalidateAll() {
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
     private boolean isKeyAlias(String key) {
-        return keyAlias.equals(key);
+        return keyAlias.equals(key) || (keyAlias + DATA_KEY_SUFFIX).equals(key);
     }
 
-    private String decrypt(@lombok.NonNull String data) {
+    private byte[] decrypt(@lombok.NonNull String data) {
         try {
-            return new String(encryptor.decrypt(Base64.decode(data, Base64.DEFAULT)));
+            //DEFAULT decoding also accepts values encoded with line breaks
+            return encryptor.decrypt(Base64.decode(data, Base64.DEFAULT));
         } catch (EncryptionException e) {
             //Failed to decrypt the data, reset the encryptor
             Logger.warn(TAG, "Failed to decrypt the data." );
@@ -222,7 +320,7 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
 
     private String encrypt(byte[] value, boolean retry) {
         try {
-            return Base64.encodeToString(encryptor.encrypt(value), Base64.DEFAULT);
+            return Base64.encodeToString(encryptor.encrypt(value), Base64.NO_WRAP);
         } catch (Exception e) {
             try {
                 encryptor.reset();
@@ -240,13 +338,186 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
 
     @Override
     public void onKeyUpdated() {
+        invalidateAll();
         edit().clear().commit();
     }
 
+    /**
+     * An entry of {@link #getAll()}, the value is decrypted on first access. The value is null when
+     * it cannot be decrypted.
+     */
+    private final class LazyEntry implements Map.Entry<String, Object> {
+        private final String key;
+        private final String encryptedValue;
+        private volatile boolean decrypted;
+        private volatile Object value;
+
+        LazyEntry(String key, String encryptedValue) {
+            this.key = key;
+            this.encryptedValue = encryptedValue;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            if (!decrypted) {
+                Object result;
+                try {
+                    result = get(key, encryptedValue);
+                } catch (Exception e) {
+                    //The stored value is kept, the failure may be temporary
+                    Logger.warn(TAG, e, "Failed to read the value of %s.", key);
+                    invalidate(Collections.singletonList(key));
+                    result = null;
+                }
+                //Cached value is shared, return a copy to the caller
+                if (result instanceof Set) {
+                    result = new HashSet<>((Set<String>) result);
+                }
+                value = result;
+                decrypted = true;
+            }
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object v = getValue();
+            return key.equals(e.getKey()) && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object v = getValue();
+            return key.hashCode() ^ (v == null ? 0 : v.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * Read only map of {@link LazyEntry}.
+     */
+    private static final class LazyDecryptedMap extends AbstractMap<String, Object> {
+        private final Map<String, LazyEntry> entries;
+
+        LazyDecryptedMap(Map<String, LazyEntry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            LazyEntry entry = entries.get(key);
+            return entry == null ? null : entry.getValue();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(entries.keySet());
+        }
+
+        @NonNull
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @NonNull
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<LazyEntry> iterator = entries.values().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            return iterator.next();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        /**
+         * Decrypt all the values, in parallel for large map.
+         */
+        void decrypt() {
+            if (entries.size() < PARALLEL_THRESHOLD) {
+                for (LazyEntry entry : entries.values()) {
+                    entry.getValue();
+                }
+                return;
+            }
+            List<Future<?>> futures = new ArrayList<>(entries.size());
+            ExecutorService executor = getWorker();
+            for (final LazyEntry entry : entries.values()) {
+                futures.add(executor.submit(entry::getValue));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * A decrypted value with the encrypted value it was decrypted from. The entry is only
+     * valid while the stored encrypted value is unchanged, so writes from other instances
+     * sharing the same file never return a stale value.
+     */
+    private static final class CacheEntry {
+        private final String encryptedValue;
+        private final Object value;
+
+        CacheEntry(String encryptedValue, Object value) {
+            this.encryptedValue = encryptedValue;
+            this.value = value;
+        }
+    }
+
     private static final class Editor implements SharedPreferences.Editor {
         private final SecuredSharedPreferences securedSharedPreferences;
         private final SharedPreferences.Editor editor;
         private final List<String> keysChanged;
+        private final List<String> keysRemoved;
         private AtomicBoolean clearRequest = new AtomicBoolean(false);
 
         Editor(SecuredSharedPreferences securedSharedPreferences,
@@ -254,6 +525,7 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
             this.securedSharedPreferences = securedSharedPreferences;
             this.editor = editor;
             keysChanged = new CopyOnWriteArrayList<>();
+            keysRemoved = new CopyOnWriteArrayList<>();
         }
 
         @Override
@@ -267,7 +539,7 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
         @NonNull
         public SharedPreferences.Editor putStringSet(@Nullable String key,
                                                      @Nullable Set<String> values) {
-            put(key, values);
+            put(key, values, STRING_SET_TYPE);
             return this;
         }
 
@@ -305,6 +577,7 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
             Reject.ifTrue(securedSharedPreferences.isKeyAlias(key), "Remove SecretKey is not allowed!");
             editor.remove(key);
             keysChanged.remove(key);
+            keysRemoved.add(key);
             return this;
         }
 
@@ -317,62 +590,61 @@ public class SecuredSharedPreferences implements SharedPreferences, KeyUpdatedLi
 
         @Override
         public boolean commit() {
-            if (clearRequest.getAndSet(false)) {
-                for (String key : securedSharedPreferences.keys()) {
-                    if (!keysChanged.contains(key)
-                            && !securedSharedPreferences.isKeyAlias(key)) {
-                        editor.remove(key);
-                    }
-                }
-            }
+            boolean clear = prepareClear();
             try {
                 return editor.commit();
             } finally {
+                invalidateCache(clear);
                 notifyListeners();
                 keysChanged.clear();
+                keysRemoved.clear();
             }
         }
 
         @Override
         public void apply() {
+            boolean clear = prepareClear();
             editor.apply();
+            invalidateCache(clear);
             notifyListeners();
+            keysChanged.clear();
+            keysRemoved.clear();
         }
 
-        private void put(@lombok.NonNull String key, Object value, int type) {
-            Reject.ifTrue(securedSharedPreferences.isKeyAlias(key), "Update SecretKey is not allowed!");
-            if (value == null) {
-                remove(key);
-                return;
+        /**
+         * Remove all the keys that are not changed by this editor if clear is requested.
+         *
+         * @return True if clear is requested.
+         */
+        private boolean prepareClear() {
+            boolean clear = clearRequest.getAndSet(false);
+            if (clear) {
+                for (String key : securedSharedPreferences.keys()) {
+                    if (!keysChanged.contains(key)
+                            && !securedSharedPreferences.isKeyAlias(key)) {
+                        editor.remove(key);
+                    }
+                }
             }
-            JSONObject data = new JSONObject();
-            try {
-                data.put(TYPE, type);
-                data.put(VALUE, value);
-                put(key, data.toString().getBytes());
-            } catch (JSONException e) {
-                throw new RuntimeException(e);
+            return clear;
+        }
+
+        private void invalidateCache(boolean clear) {
+            if (clear) {
+                securedSharedPreferences.invalidateAll();
+            } else {
+                securedSharedPreferences.invalidate(keysChanged);
+                securedSharedPreferences.invalidate(keysRemoved);
             }
         }
 
-        private void put(@lombok.NonNull String key, Set<String> value) {
+        private void put(@lombok.NonNull String key, Object value, int type) {
             Reject.ifTrue(securedSharedPreferences.isKeyAlias(key), "Update SecretKey is not allowed!");
             if (value == null) {
                 remove(key);
                 return;
             }
-            JSONObject data = new JSONObject();
-            JSONArray content = new JSONArray();
-            try {
-                data.put(TYPE, STRING_SET_TYPE);
-                for (String s : value) {
-                    content.put(s);
-                }
-                data.put(VALUE, content);
-                put(key, data.toString().getBytes());
-            } catch (JSONException e) {
-                throw new RuntimeException(e);
-            }
+            put(key, ValueEnvelope.encode(type, value));
         }
 
         private void put(String key, byte[] value) {
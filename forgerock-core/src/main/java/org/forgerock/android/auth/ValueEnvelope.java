@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encode and decode the typed values stored by {@link SecuredSharedPreferences}.
+ *
+ * <p>
+ * Values are encoded with a compact binary format:
+ * <pre>
+ * version (1 byte) | type (1 byte) | payload
+ * </pre>
+ * The payload of {@link #INT_TYPE}, {@link #LONG_TYPE}, {@link #FLOAT_TYPE} and {@link #BOOLEAN_TYPE}
+ * is the fixed size big-endian value, a String is a 4 bytes length followed by the UTF-8 bytes and
+ * a String Set is a 4 bytes count followed by each String.
+ *
+ * <p>
+ * Values stored with the previous JSON format <code>{"type":N,"value":...}</code> can still be decoded.
+ */
+final class ValueEnvelope {
+
+    static final int STRING_TYPE = 0;
+    static final int STRING_SET_TYPE = 1;
+    static final int INT_TYPE = 2;
+    static final int LONG_TYPE = 3;
+    static final int FLOAT_TYPE = 4;
+    static final int BOOLEAN_TYPE = 5;
+
+    static final byte VERSION = 1;
+
+    private static final byte JSON_START = '{';
+    private static final String TYPE = "type";
+    private static final String VALUE = "value";
+    private static final int HEADER_LENGTH = 2;
+
+    private ValueEnvelope() {
+    }
+
+    /**
+     * Encode the value.
+     *
+     * @param type  The type of the value
+     * @param value The value
+     * @return The encoded value
+     */
+    static byte[] encode(int type, Object value) {
+        ByteBuffer buffer;
+        switch (type) {
+            case STRING_TYPE:
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                buffer = allocate(type, 4 + bytes.length);
+                buffer.putInt(bytes.length).put(bytes);
+                break;
+            case INT_TYPE:
+                buffer = allocate(type, 4).putInt((Integer) value);
+                break;
+            case LONG_TYPE:
+                buffer = allocate(type, 8).putLong((Long) value);
+                break;
+            case FLOAT_TYPE:
+                buffer = allocate(type, 4).putFloat((Float) value);
+                break;
+            case BOOLEAN_TYPE:
+                buffer = allocate(type, 1).put((byte) ((Boolean) value ? 1 : 0));
+                break;
+            case STRING_SET_TYPE:
+                @SuppressWarnings("unchecked")
+                Set<String> set = (Set<String>) value;
+                List<byte[]> values = new ArrayList<>(set.size());
+                int length = 4;
+                for (String s : set) {
+                    byte[] v = s.getBytes(StandardCharsets.UTF_8);
+                    values.add(v);
+                    length += 4 + v.length;
+                }
+                buffer = allocate(type, length);
+                buffer.putInt(values.size());
+                for (byte[] v : values) {
+                    buffer.putInt(v.length).put(v);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid Data Type");
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decode the value, {@link Set} values are unmodifiable.
+     *
+     * @param data The encoded value
+     * @return The value
+     */
+    static Object decode(byte[] data) throws JSONException {
+        if (data.length > 0 && data[0] == JSON_START) {
+            return decodeJson(new String(data, StandardCharsets.UTF_8));
+        }
+        if (data.length < HEADER_LENGTH || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported value format");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        switch (data[1]) {
+            case STRING_TYPE:
+                return getString(buffer);
+            case INT_TYPE:
+                return buffer.getInt();
+            case LONG_TYPE:
+                return buffer.getLong();
+            case FLOAT_TYPE:
+                return buffer.getFloat();
+            case BOOLEAN_TYPE:
+                return buffer.get() != 0;
+            case STRING_SET_TYPE:
+                int size = buffer.getInt();
+                Set<String> stringSet = new HashSet<>();
+                for (int i = 0; i < size; i++) {
+                    stringSet.add(getString(buffer));
+                }
+                return Collections.unmodifiableSet(stringSet);
+            default:
+                throw new IllegalArgumentException("Invalid Data Type");
+        }
+    }
+
+    private static ByteBuffer allocate(int type, int length) {
+        return ByteBuffer.allocate(HEADER_LENGTH + length)
+                .put(VERSION)
+                .put((byte) type);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static Object decodeJson(String data) throws JSONException {
+        JSONObject value = new JSONObject(data);
+        int type = value.getInt(TYPE);
+
+        switch (type) {
+            case STRING_TYPE:
+                return value.getString(VALUE);
+            case INT_TYPE:
+                return value.getInt(VALUE);
+            case LONG_TYPE:
+                return value.getLong(VALUE);
+            case FLOAT_TYPE:
+                return (float) value.getDouble(VALUE);
+            case BOOLEAN_TYPE:
+                return value.getBoolean(VALUE);
+            case STRING_SET_TYPE:
+                Set<String> stringSet = new HashSet<>();
+                JSONArray jsonArray = value.getJSONArray(VALUE);
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    stringSet.add(jsonArray.getString(i));
+                }
+                return Collections.unmodifiableSet(stringSet);
+            default:
+                throw new IllegalArgumentException("Invalid Data Type");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AbstractSymmetricEncryptorTest {
+
+    private SoftwareEncryptor encryptor;
+
+    @Before
+    public void setUp() {
+        encryptor = new SoftwareEncryptor();
+    }
+
+    @Test
+    public void testEncryptDecrypt() {
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(encryptor.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test
+    public void testSecretKeyIsCached() {
+        for (int i = 0; i < 10; i++) {
+            encryptor.decrypt(encryptor.encrypt(("Test" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        assertThat(encryptor.keyRetrieved.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testResetDropCachedKey() {
+        encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        encryptor.reset();
+        encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        assertThat(encryptor.keyRetrieved.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testKeyReplacedByOtherInstance() throws Exception {
+        SoftwareEncryptor other = new SoftwareEncryptor();
+        other.keys = encryptor.keys;
+
+        //Cache the key on both instances
+        encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        other.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+
+        //Other instance generate a new key
+        other.reset();
+        byte[] encrypted = other.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new String(encryptor.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidMac() {
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+        encryptor.decrypt(encrypted);
+    }
+
+    @Test
+    public void testMultipleThreads() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger success = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            final String value = "Test" + i;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 20; j++) {
+                    byte[] result = encryptor.decrypt(encryptor.encrypt(value.getBytes(StandardCharsets.UTF_8)));
+                    if (value.equals(new String(result, StandardCharsets.UTF_8))) {
+                        success.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(success.get()).isEqualTo(200);
+        assertThat(encryptor.keyRetrieved.get()).isEqualTo(1);
+    }
+
+    /**
+     * Encryptor with the SecretKey stored in memory.
+     */
+    private static class SoftwareEncryptor extends AbstractSymmetricEncryptor {
+
+        private final AtomicInteger keyRetrieved = new AtomicInteger();
+        private List<SecretKey> keys = new ArrayList<>();
+
+        SoftwareEncryptor() {
+            super("TestAlias");
+        }
+
+        @Override
+        SecretKey getSecretKey() throws GeneralSecurityException {
+            keyRetrieved.incrementAndGet();
+            synchronized (keys) {
+                if (keys.isEmpty()) {
+                    KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+                    keyGenerator.init(KEY_SIZE);
+                    keys.add(keyGenerator.generateKey());
+                }
+                return keys.get(0);
+            }
+        }
+
+        @Override
+        byte[] init(Cipher cipher, SecretKey secretKey) throws GeneralSecurityException {
+            byte[] iv = new byte[IV_LENGTH];
+            new SecureRandom().nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            return iv;
+        }
+
+        @Override
+        public void reset() {
+            clearSecretKey();
+            synchronized (keys) {
+                keys.clear();
+            }
+        }
+    }
+}
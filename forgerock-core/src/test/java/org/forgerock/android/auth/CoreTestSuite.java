@@ -17,6 +17,13 @@ import org.junit.runners.Suite;
         LoggerTest.class,
         KeyStoreManagerTest.class,
         RequestInterceptorTest.class,
+        SecuredSharedPreferencesCacheTest.class,
+        AbstractSymmetricEncryptorTest.class,
+        EnvelopeEncryptorTest.class,
+        ValueEnvelopeTest.class,
+        OkHttpClientProviderTest.class,
+        NetworkMetricsTest.class,
+        ExpiringReferenceTest.class,
 
 })
 public class CoreTestSuite {
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
+import android.util.Base64;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class EnvelopeEncryptorTest {
+
+    private static final String FILE_NAME = "EnvelopeEncryptorTest";
+    private static final String DATA_KEY_ALIAS = "TestAlias.DEK";
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private SharedPreferences sharedPreferences;
+    private KeyEncryptor keyEncryptor;
+    private AtomicInteger keyUpdated;
+    private EnvelopeEncryptor encryptor;
+
+    @Before
+    public void setUp() {
+        sharedPreferences = context.getSharedPreferences(FILE_NAME, Context.MODE_PRIVATE);
+        keyEncryptor = new KeyEncryptor();
+        keyUpdated = new AtomicInteger();
+        encryptor = new EnvelopeEncryptor(keyEncryptor,
+                new SharedPreferencesSecretKeyStore(DATA_KEY_ALIAS, sharedPreferences),
+                keyUpdated::incrementAndGet);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteSharedPreferences(FILE_NAME);
+    }
+
+    @Test
+    public void testEncryptDecrypt() {
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(encryptor.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+        assertThat(sharedPreferences.getString(DATA_KEY_ALIAS, null)).isNotNull();
+    }
+
+    @Test
+    public void testKeyEncryptorOnlyUsedToWrapDataKey() {
+        for (int i = 0; i < 10; i++) {
+            encryptor.decrypt(encryptor.encrypt(("Test" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        assertThat(keyEncryptor.encryptCount.get()).isEqualTo(1);
+        assertThat(keyEncryptor.decryptCount.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDecryptDataEncryptedWithKeyEncryptor() {
+        byte[] legacy = keyEncryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(encryptor.decrypt(legacy), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test
+    public void testSharedDataKeyAcrossInstances() {
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        EnvelopeEncryptor other = new EnvelopeEncryptor(keyEncryptor,
+                new SharedPreferencesSecretKeyStore(DATA_KEY_ALIAS, sharedPreferences), null);
+        assertThat(new String(other.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test
+    public void testDecryptDataEncryptedWithKeyEncryptorWithHeader() {
+        //Data encrypted by the Key Encryption Key which starts with the header, without DEK
+        byte[] legacy = new byte[32];
+        legacy[0] = 0x46;
+        legacy[1] = 0x52;
+        legacy[2] = 0x01;
+        keyEncryptor.decrypted = "Test".getBytes(StandardCharsets.UTF_8);
+        assertThat(new String(encryptor.decrypt(legacy), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test
+    public void testInvalidDataKey() {
+        sharedPreferences.edit().putString(DATA_KEY_ALIAS, "invalid").commit();
+        keyEncryptor.failure = new EncryptionException(new KeyPermanentlyInvalidatedException());
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        keyEncryptor.failure = null;
+
+        assertThat(keyUpdated.get()).isEqualTo(1);
+        assertThat(sharedPreferences.getString(DATA_KEY_ALIAS, null)).isNotEqualTo("invalid");
+        assertThat(new String(encryptor.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+    }
+
+    @Test
+    public void testTemporaryUnwrapFailureKeepsDataKey() {
+        //DEK persisted by a previous process, not yet unwrapped
+        byte[] dataKey = new byte[32];
+        new SecureRandom().nextBytes(dataKey);
+        String wrappedKey = Base64.encodeToString(keyEncryptor.encrypt(dataKey), Base64.NO_WRAP);
+        sharedPreferences.edit().putString(DATA_KEY_ALIAS, wrappedKey).commit();
+
+        keyEncryptor.failure = new EncryptionException("KeyStore is not available");
+        try {
+            encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+            fail("Expected EncryptionException");
+        } catch (EncryptionException e) {
+            //expected
+        }
+        assertThat(keyUpdated.get()).isEqualTo(0);
+        assertThat(sharedPreferences.getString(DATA_KEY_ALIAS, null)).isEqualTo(wrappedKey);
+
+        keyEncryptor.failure = null;
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(encryptor.decrypt(encrypted), StandardCharsets.UTF_8)).isEqualTo("Test");
+        assertThat(sharedPreferences.getString(DATA_KEY_ALIAS, null)).isEqualTo(wrappedKey);
+    }
+
+    @Test(expected = EncryptionException.class)
+    public void testDataKeyRemoved() throws Exception {
+        byte[] encrypted = encryptor.encrypt("Test".getBytes(StandardCharsets.UTF_8));
+        encryptor.reset();
+        encryptor.decrypt(encrypted);
+    }
+
+    /**
+     * Key encryption key, prepend a marker to the data.
+     */
+    private static class KeyEncryptor implements Encryptor {
+
+        private static final byte MARKER = 0x7F;
+        private final AtomicInteger encryptCount = new AtomicInteger();
+        private final AtomicInteger decryptCount = new AtomicInteger();
+        private volatile RuntimeException failure;
+        private volatile byte[] decrypted;
+
+        @Override
+        public byte[] encrypt(byte[] clearText) {
+            encryptCount.incrementAndGet();
+            byte[] result = new byte[clearText.length + 1];
+            result[0] = MARKER;
+            System.arraycopy(clearText, 0, result, 1, clearText.length);
+            return result;
+        }
+
+        @Override
+        public byte[] decrypt(byte[] encryptedData) {
+            decryptCount.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            if (decrypted != null) {
+                return decrypted;
+            }
+            if (encryptedData.length == 0 || encryptedData[0] != MARKER) {
+                throw new EncryptionException("Invalid data");
+            }
+            return Arrays.copyOfRange(encryptedData, 1, encryptedData.length);
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}
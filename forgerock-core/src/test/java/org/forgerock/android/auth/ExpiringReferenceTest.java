@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExpiringReferenceTest {
+
+    @Test
+    public void testValueExpires() throws InterruptedException {
+        ExpiringReference<String> reference = new ExpiringReference<>(100);
+        reference.set("value");
+        assertThat(reference.get()).isEqualTo("value");
+
+        Thread.sleep(150);
+        assertThat(reference.get()).isNull();
+    }
+
+    @Test
+    public void testSetExtendsExpiry() throws InterruptedException {
+        ExpiringReference<String> reference = new ExpiringReference<>(200);
+        reference.set("first");
+        Thread.sleep(150);
+        reference.set("second");
+        Thread.sleep(100);
+
+        //The first value would have expired, the second is still valid
+        assertThat(reference.get()).isEqualTo("second");
+    }
+
+    @Test
+    public void testDisabled() {
+        ExpiringReference<String> reference = new ExpiringReference<>(0);
+        reference.set("value");
+        assertThat(reference.get()).isNull();
+    }
+
+    @Test
+    public void testClear() {
+        ExpiringReference<String> reference = new ExpiringReference<>(1000);
+        reference.set("value");
+        reference.clear();
+        assertThat(reference.get()).isNull();
+    }
+
+    @Test
+    public void testSweep() throws Exception {
+        ExpiringReference<String> reference = new ExpiringReference<>(100, true);
+        reference.set("value");
+
+        Thread.sleep(350);
+
+        //Discarded without reading it
+        Field field = ExpiringReference.class.getDeclaredField("entry");
+        field.setAccessible(true);
+        assertThat(((AtomicReference<?>) field.get(reference)).get()).isNull();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkMetricsTest {
+
+    private MockWebServer server;
+    private final List<NetworkMetrics> metrics = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        NetworkMetricsRegistry.getInstance().register(metrics::add);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NetworkMetricsRegistry.getInstance().register(null);
+        OkHttpClientProvider.getInstance().clear();
+        server.shutdown();
+    }
+
+    private OkHttpClient client() {
+        return OkHttpClientProvider.getInstance().lookup(NetworkConfig.networkBuilder()
+                .host(server.getHostName())
+                .build());
+    }
+
+    private void execute(Object tag) throws IOException {
+        Request request = new Request.Builder()
+                .url(server.url("/").toString())
+                .tag(tag)
+                .build();
+        try (Response response = client().newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+
+    @Test
+    public void testMetricsRecordedPerAction() throws IOException {
+        server.enqueue(new MockResponse().setBody("12345"));
+        execute(new Action(Action.AUTHENTICATE));
+
+        assertThat(metrics).hasSize(1);
+        NetworkMetrics result = metrics.get(0);
+        assertThat(result.getAction()).isEqualTo(Action.AUTHENTICATE);
+        assertThat(result.getHost()).isEqualTo(server.getHostName());
+        assertThat(result.isConnectionReused()).isFalse();
+        assertThat(result.getResponseBytes()).isEqualTo(5);
+        assertThat(result.getException()).isNull();
+    }
+
+    @Test
+    public void testConnectionReused() throws IOException {
+        server.enqueue(new MockResponse().setBody("1"));
+        server.enqueue(new MockResponse().setBody("2"));
+        execute(new Action(Action.AUTHENTICATE));
+        execute(new Action(Action.EXCHANGE_TOKEN));
+
+        assertThat(metrics).hasSize(2);
+        assertThat(metrics.get(0).isConnectionReused()).isFalse();
+        assertThat(metrics.get(1).getAction()).isEqualTo(Action.EXCHANGE_TOKEN);
+        assertThat(metrics.get(1).isConnectionReused()).isTrue();
+        assertThat(metrics.get(1).getConnectMillis()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRequestWithoutAction() throws IOException {
+        server.enqueue(new MockResponse());
+        execute(null);
+
+        assertThat(metrics).hasSize(1);
+        assertThat(metrics.get(0).getAction()).isNull();
+    }
+
+    @Test
+    public void testNoSinkRegistered() throws IOException {
+        NetworkMetricsRegistry.getInstance().register(null);
+        server.enqueue(new MockResponse());
+        execute(new Action(Action.AUTHENTICATE));
+
+        assertThat(metrics).isEmpty();
+    }
+
+    @Test
+    public void testFailedRequest() throws IOException {
+        server.shutdown();
+        try {
+            execute(new Action(Action.AUTHENTICATE));
+        } catch (IOException e) {
+            //Expected
+        }
+
+        assertThat(metrics).hasSize(1);
+        assertThat(metrics.get(0).getException()).isInstanceOf(IOException.class);
+    }
+}
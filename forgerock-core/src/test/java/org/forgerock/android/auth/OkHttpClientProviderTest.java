@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class OkHttpClientProviderTest {
+
+    @After
+    public void tearDown() {
+        OkHttpClientProvider.getInstance().setConnectionPool(OkHttpClientProvider.DEFAULT_MAX_IDLE_CONNECTIONS,
+                OkHttpClientProvider.DEFAULT_KEEP_ALIVE_DURATION, TimeUnit.SECONDS);
+        OkHttpClientProvider.getInstance().setDispatcherLimits(OkHttpClientProvider.DEFAULT_MAX_REQUESTS,
+                OkHttpClientProvider.DEFAULT_MAX_REQUESTS_PER_HOST);
+        OkHttpClientProvider.getInstance().clear();
+    }
+
+    private NetworkConfig networkConfig(String identifier) {
+        return NetworkConfig.networkBuilder()
+                .identifier(identifier)
+                .host("openam.example.com")
+                .build();
+    }
+
+    @Test
+    public void testSameConfigReturnCachedClient() {
+        OkHttpClient client1 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        OkHttpClient client2 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        assertThat(client1).isSameAs(client2);
+    }
+
+    @Test
+    public void testClientsShareConnectionPoolAndDispatcher() {
+        OkHttpClient client1 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        OkHttpClient client2 = OkHttpClientProvider.getInstance().lookup(networkConfig("2"));
+        OkHttpClient client3 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"), new TestInterceptor());
+
+        assertThat(client1).isNotSameAs(client2);
+        assertThat(client1).isNotSameAs(client3);
+        assertThat(client1.connectionPool()).isSameAs(client2.connectionPool());
+        assertThat(client1.connectionPool()).isSameAs(client3.connectionPool());
+        assertThat(client1.dispatcher()).isSameAs(client2.dispatcher());
+        assertThat(client1.dispatcher()).isSameAs(client3.dispatcher());
+    }
+
+    @Test
+    public void testLookupWithInterceptor() {
+        OkHttpClient client1 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"), new TestInterceptor());
+        OkHttpClient client2 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"), new TestInterceptor());
+        assertThat(client1).isSameAs(client2);
+        assertThat(client1.interceptors()).hasAtLeastOneElementOfType(TestInterceptor.class);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        OkHttpClient first = OkHttpClientProvider.getInstance().lookup(networkConfig("0"));
+        for (int i = 1; i <= OkHttpClientProvider.DEFAULT_CACHE_SIZE; i++) {
+            OkHttpClientProvider.getInstance().lookup(networkConfig(String.valueOf(i)));
+        }
+        assertThat(OkHttpClientProvider.getInstance().size()).isEqualTo(OkHttpClientProvider.DEFAULT_CACHE_SIZE);
+        //The least recently used client has been evicted
+        assertThat(OkHttpClientProvider.getInstance().lookup(networkConfig("0"))).isNotSameAs(first);
+    }
+
+    @Test
+    public void testDispatcherLimits() {
+        OkHttpClient client = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        OkHttpClientProvider.getInstance().setDispatcherLimits(10, 2);
+        assertThat(client.dispatcher().getMaxRequests()).isEqualTo(10);
+        assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConnectionPoolReplaced() {
+        OkHttpClient client1 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        OkHttpClientProvider.getInstance().setConnectionPool(2, 60, TimeUnit.SECONDS);
+        OkHttpClient client2 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        assertThat(client1).isNotSameAs(client2);
+        assertThat(client1.connectionPool()).isNotSameAs(client2.connectionPool());
+        assertThat(client1.dispatcher()).isSameAs(client2.dispatcher());
+    }
+
+    @Test
+    public void testInvalidSettingIgnored() {
+        OkHttpClient client1 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        OkHttpClientProvider.getInstance().setConnectionPool(0, 0, TimeUnit.SECONDS);
+        OkHttpClientProvider.getInstance().setDispatcherLimits(0, 0);
+        OkHttpClient client2 = OkHttpClientProvider.getInstance().lookup(networkConfig("1"));
+        assertThat(client1).isSameAs(client2);
+        assertThat(client2.dispatcher().getMaxRequests()).isEqualTo(OkHttpClientProvider.DEFAULT_MAX_REQUESTS);
+    }
+
+    private static class TestInterceptor implements Interceptor {
+        @NotNull
+        @Override
+        public Response intercept(@NotNull Chain chain) throws IOException {
+            return chain.proceed(chain.request());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class SecuredSharedPreferencesCacheTest {
+
+    private static final String FILE_NAME = "SecuredSharedPreferencesCacheTest";
+    private static final String KEY_ALIAS = "TestAlias";
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private CountingEncryptor encryptor;
+
+    @Before
+    public void setUp() {
+        encryptor = new CountingEncryptor();
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteSharedPreferences(FILE_NAME);
+    }
+
+    @Test
+    public void testRepeatedReadDecryptOnce() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putString("Test", "Value").commit();
+
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+        assertThat(sharedPreferences.getAll().get("Test")).isEqualTo("Value");
+        assertThat(encryptor.decryptCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor, 0);
+        sharedPreferences.edit().putString("Test", "Value").commit();
+
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+        assertThat(encryptor.decryptCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCommitInvalidateCache() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putString("Test", "Value").commit();
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+
+        sharedPreferences.edit().putString("Test", "Value2").commit();
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value2");
+
+        sharedPreferences.edit().remove("Test").commit();
+        assertThat(sharedPreferences.getString("Test", null)).isNull();
+    }
+
+    @Test
+    public void testApplyInvalidateCache() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putInt("Test", 1).apply();
+        assertThat(sharedPreferences.getInt("Test", 0)).isEqualTo(1);
+
+        sharedPreferences.edit().putInt("Test", 2).apply();
+        assertThat(sharedPreferences.getInt("Test", 0)).isEqualTo(2);
+    }
+
+    @Test
+    public void testClearInvalidateCache() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putString("Test", "Value").commit();
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+
+        sharedPreferences.edit().clear().commit();
+        assertThat(sharedPreferences.getString("Test", null)).isNull();
+    }
+
+    @Test
+    public void testApplyClear() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putString("Test", "Value").apply();
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+
+        sharedPreferences.edit().clear().putString("Test2", "Value2").apply();
+        assertThat(sharedPreferences.getString("Test", null)).isNull();
+        assertThat(sharedPreferences.getString("Test2", null)).isEqualTo("Value2");
+    }
+
+    @Test
+    public void testKeyUpdatedInvalidateCache() {
+        SecuredSharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences.edit().putString("Test", "Value").commit();
+        assertThat(sharedPreferences.getString("Test", null)).isEqualTo("Value");
+
+        sharedPreferences.onKeyUpdated();
+        assertThat(sharedPreferences.getString("Test", null)).isNull();
+    }
+
+    @Test
+    public void testWriteFromOtherInstance() {
+        SharedPreferences sharedPreferences1 = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        SharedPreferences sharedPreferences2 = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        sharedPreferences1.edit().putString("Test", "Value").commit();
+        assertThat(sharedPreferences1.getString("Test", null)).isEqualTo("Value");
+
+        sharedPreferences2.edit().putString("Test", "Value2").commit();
+        assertThat(sharedPreferences1.getString("Test", null)).isEqualTo("Value2");
+    }
+
+    @Test
+    public void testCachedStringSetIsNotShared() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor);
+        Set<String> values = new HashSet<>();
+        values.add("Value1");
+        values.add("Value2");
+        sharedPreferences.edit().putStringSet("Test", values).commit();
+
+        sharedPreferences.getStringSet("Test", null).add("Value3");
+        assertThat(sharedPreferences.getStringSet("Test", null)).containsOnly("Value1", "Value2");
+    }
+
+    @Test
+    public void testGetAllDecryptOnRead() {
+        SharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor, 0);
+        sharedPreferences.edit().putString("Test", "Value").putString("Test2", "Value2").commit();
+
+        Map<String, ?> all = sharedPreferences.getAll();
+        assertThat(all).hasSize(2);
+        assertThat(all.containsKey("Test")).isTrue();
+        assertThat(encryptor.decryptCount.get()).isEqualTo(0);
+
+        assertThat(all.get("Test")).isEqualTo("Value");
+        assertThat(all.get("Test")).isEqualTo("Value");
+        assertThat(encryptor.decryptCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDecryptAll() {
+        SecuredSharedPreferences sharedPreferences = new SecuredSharedPreferences(context, FILE_NAME, KEY_ALIAS, encryptor, 0);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        int size = SecuredSharedPreferences.PARALLEL_THRESHOLD * 2;
+        for (int i = 0; i < size; i++) {
+            editor.putString("Test" + i, "Value" + i);
+        }
+        editor.commit();
+
+        Map<String, ?> all = sharedPreferences.decryptAll();
+        assertThat(encryptor.decryptCount.get()).isEqualTo(size);
+        for (int i = 0; i < size; i++) {
+            assertThat(all.get("Test" + i)).isEqualTo("Value" + i);
+        }
+        assertThat(encryptor.decryptCount.get()).isEqualTo(size);
+    }
+
+    private static class CountingEncryptor implements Encryptor {
+
+        private final AtomicInteger decryptCount = new AtomicInteger();
+
+        @Override
+        public byte[] encrypt(byte[] clearText) {
+            return clearText;
+        }
+
+        @Override
+        public byte[] decrypt(byte[] encryptedData) {
+            decryptCount.incrementAndGet();
+            return encryptedData;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}
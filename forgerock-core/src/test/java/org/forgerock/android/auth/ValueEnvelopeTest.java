@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 ForgeRock. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package org.forgerock.android.auth;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.android.auth.ValueEnvelope.BOOLEAN_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.FLOAT_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.INT_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.LONG_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.STRING_SET_TYPE;
+import static org.forgerock.android.auth.ValueEnvelope.STRING_TYPE;
+
+@RunWith(RobolectricTestRunner.class)
+public class ValueEnvelopeTest {
+
+    @Test
+    public void testString() throws JSONException {
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(STRING_TYPE, "Value é"))).isEqualTo("Value é");
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(STRING_TYPE, ""))).isEqualTo("");
+    }
+
+    @Test
+    public void testPrimitives() throws JSONException {
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(INT_TYPE, 100))).isEqualTo(100);
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(LONG_TYPE, Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(FLOAT_TYPE, 1.5f))).isEqualTo(1.5f);
+        assertThat(ValueEnvelope.decode(ValueEnvelope.encode(BOOLEAN_TYPE, true))).isEqualTo(true);
+        assertThat(ValueEnvelope.encode(BOOLEAN_TYPE, true)).hasSize(3);
+    }
+
+    @Test
+    public void testStringSet() throws JSONException {
+        Set<String> values = new HashSet<>(Arrays.asList("Value1", "Value2", ""));
+        assertThat((Set<?>) ValueEnvelope.decode(ValueEnvelope.encode(STRING_SET_TYPE, values)))
+                .isEqualTo(values);
+        assertThat((Set<?>) ValueEnvelope.decode(ValueEnvelope.encode(STRING_SET_TYPE, Collections.emptySet())))
+                .isEmpty();
+    }
+
+    @Test
+    public void testDecodeJson() throws JSONException {
+        JSONObject string = new JSONObject().put("type", STRING_TYPE).put("value", "Value");
+        assertThat(ValueEnvelope.decode(string.toString().getBytes(StandardCharsets.UTF_8))).isEqualTo("Value");
+
+        JSONObject integer = new JSONObject().put("type", INT_TYPE).put("value", 100);
+        assertThat(ValueEnvelope.decode(integer.toString().getBytes(StandardCharsets.UTF_8))).isEqualTo(100);
+
+        JSONObject floatValue = new JSONObject().put("type", FLOAT_TYPE).put("value", 1.5f);
+        assertThat(ValueEnvelope.decode(floatValue.toString().getBytes(StandardCharsets.UTF_8))).isEqualTo(1.5f);
+
+        JSONObject set = new JSONObject().put("type", STRING_SET_TYPE)
+                .put("value", new JSONArray().put("Value1").put("Value2"));
+        assertThat((Set<?>) ValueEnvelope.decode(set.toString().getBytes(StandardCharsets.UTF_8)))
+                .containsOnly("Value1", "Value2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() throws JSONException {
+        ValueEnvelope.decode(new byte[]{9, STRING_TYPE});
+    }
+}